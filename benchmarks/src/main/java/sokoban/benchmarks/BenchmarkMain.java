@@ -0,0 +1,33 @@
+package sokoban.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punkt wejścia zestawu testów wydajności. Przyjmuje te same argumenty co org.openjdk.jmh.Main, a dodatkowo zawsze włącza profiler GC, który raportuje tempo alokacji (gc.alloc.rate oraz gc.alloc.rate.norm - bajty na operację).
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class BenchmarkMain {
+
+	/**
+	 * Uruchamia testy wydajności.
+	 *
+	 * @param args Argumenty JMH (np. wyrażenie regularne nazw testów, -p size=huge)
+	 * @throws RunnerException Jeśli uruchomienie testów się nie powiodło.
+	 * @throws CommandLineOptionException Jeśli argumenty są nieprawidłowe.
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,49 @@
+package sokoban.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sokoban.engine.Level;
+import sokoban.engine.LevelParser;
+import sokoban.util.TileGrid;
+
+/**
+ * Pomiar wypełniania podłogi od pozycji gracza. Każde wywołanie pracuje na kopii siatki zawierającej same ściany, więc pomiar obejmuje także skopiowanie siatki.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FloodFillBenchmark {
+
+	@Param({ LevelFixtures.SMALL, LevelFixtures.MEDIUM, LevelFixtures.HUGE })
+	public String size;
+
+	protected TileGrid walls;
+	protected int playerX, playerY;
+
+	@Setup
+	public void setup() {
+		Level level = LevelFixtures.level(size);
+		walls = LevelFixtures.wallsOnly(level);
+		playerX = level.getPlayerX();
+		playerY = level.getPlayerY();
+	}
+
+	@Benchmark
+	public TileGrid floodFill() {
+		TileGrid grid = new TileGrid(walls);
+		LevelParser.floorfillFloor(grid, playerX, playerY);
+		return grid;
+	}
+}
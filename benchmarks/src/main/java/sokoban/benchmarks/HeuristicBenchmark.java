@@ -0,0 +1,50 @@
+package sokoban.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sokoban.solver.SolverBoard;
+import sokoban.solver.SolverResult;
+import sokoban.tools.SolverOptions;
+
+/**
+ * Porównanie oszacowań solvera. Każdy poziom rozwiązywany jest kolejno z każdym oszacowaniem przy stałym limicie węzłów - słabsze oszacowanie rozwija więcej węzłów, ale liczy każdy z nich szybciej.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HeuristicBenchmark {
+
+	@Param({ SolverOptions.HEURISTIC_ASSIGNMENT, SolverOptions.HEURISTIC_MANHATTAN,
+			SolverOptions.HEURISTIC_PUSH_DISTANCE })
+	public String heuristic;
+
+	@Param({ "1", "3", "5" })
+	public String map;
+
+	protected SolverOptions options;
+	protected SolverBoard board;
+
+	@Setup
+	public void setup() {
+		options = new SolverOptions();
+		options.setHeuristic(heuristic);
+		board = new SolverBoard(LevelFixtures.parse(LevelFixtures.resourceBytes("/maps/" + map + ".map")));
+	}
+
+	@Benchmark
+	public SolverResult solve() {
+		return options.solve(board, SolverRegression.NODE_LIMIT, () -> false);
+	}
+}
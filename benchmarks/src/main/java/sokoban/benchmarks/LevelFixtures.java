@@ -0,0 +1,134 @@
+package sokoban.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import sokoban.engine.Level;
+import sokoban.engine.LevelParser;
+import sokoban.exceptions.InvalidMapFileException;
+import sokoban.util.TileGrid;
+
+/**
+ * Poziomy używane w testach wydajności: mały (mapa 1), średni (mapa 6) oraz syntetyczny poziom 500x500 generowany w pamięci.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelFixtures {
+
+	public static final String SMALL = "small";
+	public static final String MEDIUM = "medium";
+	public static final String HUGE = "huge";
+
+	public static final int HUGE_SIZE = 500;
+
+	/**
+	 * Zwraca treść pliku mapy o podanym rozmiarze.
+	 *
+	 * @param size Rozmiar poziomu (small, medium lub huge)
+	 * @return Treść pliku mapy.
+	 */
+	public static byte[] mapFile(String size) {
+		switch (size) {
+		case SMALL:
+			return resourceBytes("/maps/1.map");
+		case MEDIUM:
+			return resourceBytes("/maps/6.map");
+		case HUGE:
+			return synthetic(HUGE_SIZE).getBytes(StandardCharsets.UTF_8);
+		default:
+			throw new IllegalArgumentException("LevelFixtures - Unknown level size: " + size);
+		}
+	}
+
+	/**
+	 * Wczytuje poziom o podanym rozmiarze.
+	 *
+	 * @param size Rozmiar poziomu (small, medium lub huge)
+	 * @return Wczytany poziom.
+	 */
+	public static Level level(String size) {
+		return parse(mapFile(size));
+	}
+
+	/**
+	 * Wczytuje poziom z treści pliku mapy.
+	 *
+	 * @param content Treść pliku mapy
+	 * @return Wczytany poziom.
+	 */
+	public static Level parse(byte[] content) {
+		try {
+			return LevelParser.parse(() -> new ByteArrayInputStream(content));
+		} catch (InvalidMapFileException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Tworzy siatkę zawierającą tylko ściany poziomu (bez podłogi), tj. stan sprzed wypełniania podłogi.
+	 *
+	 * @param level Poziom
+	 * @return Siatka bez pól podłogi.
+	 */
+	public static TileGrid wallsOnly(Level level) {
+		TileGrid grid = new TileGrid(level.getWidth(), level.getHeight());
+		for (int i = 0; i < level.getWidth() * level.getHeight(); i++) {
+			if ((level.getTile(i) & TileGrid.WALL) != 0) {
+				grid.addFlag(i, TileGrid.WALL);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Generuje kwadratowy poziom otoczony ścianą, z kolumnami co cztery pola oraz parami skrzynka - pole wygranej co osiem pól.
+	 *
+	 * @param size Długość boku poziomu
+	 * @return Treść pliku mapy.
+	 */
+	public static String synthetic(int size) {
+		StringBuilder sb = new StringBuilder(size * (size + 1) + 64);
+		sb.append("name=Syntetyczny ").append(size).append('x').append(size).append('\n');
+		sb.append("timeLimit=0\n");
+		sb.append("map=\n");
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+				if (border || (x % 4 == 0 && y % 4 == 0)) {
+					sb.append('#');
+				} else if (x == 1 && y == 1) {
+					sb.append('p');
+				} else if (x % 8 == 2 && y % 8 == 2 && x + 1 < size - 1) {
+					sb.append('b');
+				} else if (x % 8 == 3 && y % 8 == 2) {
+					sb.append('X');
+				} else {
+					sb.append('.');
+				}
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Odczytuje zasób z classpath.
+	 *
+	 * @param name Nazwa zasobu
+	 * @return Treść zasobu.
+	 */
+	public static byte[] resourceBytes(String name) {
+		try (InputStream in = LevelFixtures.class.getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IllegalStateException("LevelFixtures - Missing resource: " + name);
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
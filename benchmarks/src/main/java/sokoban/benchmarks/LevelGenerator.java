@@ -0,0 +1,137 @@
+package sokoban.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator poziomów testowych metodą gry wstecz: skrzynki ustawiane są na polach wygranej, a następnie gracz wykonuje losowe przeciągnięcia skrzynek. Każde przeciągnięcie da się odwrócić pchnięciem, więc wygenerowany poziom zawsze ma rozwiązanie. Dla tego samego ziarna generator zwraca zawsze ten sam poziom.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelGenerator {
+
+	private static final int[] DX = { 0, 1, 0, -1 };
+	private static final int[] DY = { -1, 0, 1, 0 };
+
+	protected final int width, height;
+	protected final boolean[] wall, box, goal;
+	protected int player;
+
+	protected LevelGenerator(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.wall = new boolean[width * height];
+		this.box = new boolean[width * height];
+		this.goal = new boolean[width * height];
+	}
+
+	/**
+	 * Generuje poziom o podanych parametrach.
+	 *
+	 * @param name Nazwa poziomu
+	 * @param width Szerokość poziomu (razem z zewnętrzną ścianą)
+	 * @param height Wysokość poziomu (razem z zewnętrzną ścianą)
+	 * @param boxes Liczba skrzynek
+	 * @param pulls Liczba losowych przeciągnięć
+	 * @param seed Ziarno generatora liczb losowych
+	 * @return Treść pliku mapy.
+	 */
+	public static String generate(String name, int width, int height, int boxes, int pulls, long seed) {
+		Random random = new Random(seed);
+		LevelGenerator gen = new LevelGenerator(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+				gen.wall[y * width + x] = border || random.nextInt(100) < 12;
+			}
+		}
+		gen.player = gen.randomFree(random);
+		List<Integer> reachable = gen.reachable();
+		for (int i = 0; i < boxes; i++) {
+			int cell;
+			do {
+				cell = reachable.get(random.nextInt(reachable.size()));
+			} while (cell == gen.player || gen.goal[cell]);
+			gen.goal[cell] = gen.box[cell] = true;
+		}
+		for (int i = 0; i < pulls; i++) {
+			gen.randomPull(random);
+		}
+		return gen.toMapFile(name);
+	}
+
+	private int randomFree(Random random) {
+		int cell;
+		do {
+			cell = random.nextInt(width * height);
+		} while (wall[cell]);
+		return cell;
+	}
+
+	private List<Integer> reachable() {
+		boolean[] visited = new boolean[width * height];
+		List<Integer> cells = new ArrayList<>();
+		visited[player] = true;
+		cells.add(player);
+		for (int head = 0; head < cells.size(); head++) {
+			int cell = cells.get(head);
+			for (int dir = 0; dir < 4; dir++) {
+				int next = cell + DY[dir] * width + DX[dir];
+				if (!wall[next] && !box[next] && !visited[next]) {
+					visited[next] = true;
+					cells.add(next);
+				}
+			}
+		}
+		return cells;
+	}
+
+	private void randomPull(Random random) {
+		List<Integer> candidates = new ArrayList<>();
+		for (int cell : reachable()) {
+			for (int dir = 0; dir < 4; dir++) {
+				int offset = DY[dir] * width + DX[dir];
+				int boxCell = cell - offset, behind = cell + offset;
+				if (box[boxCell] && !wall[behind] && !box[behind]) {
+					candidates.add(cell * 4 + dir);
+				}
+			}
+		}
+		if (candidates.isEmpty()) {
+			return;
+		}
+		int pull = candidates.get(random.nextInt(candidates.size()));
+		int cell = pull >> 2, dir = pull & 3;
+		int offset = DY[dir] * width + DX[dir];
+		box[cell - offset] = false;
+		box[cell] = true;
+		player = cell + offset;
+	}
+
+	private String toMapFile(String name) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("name=").append(name).append('\n');
+		sb.append("timeLimit=0\n");
+		sb.append("map=\n");
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int cell = y * width + x;
+				char c;
+				if (wall[cell]) {
+					c = '#';
+				} else if (cell == player) {
+					c = goal[cell] ? 'P' : 'p';
+				} else if (box[cell]) {
+					c = goal[cell] ? 'B' : 'b';
+				} else {
+					c = goal[cell] ? 'X' : '.';
+				}
+				sb.append(c);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,106 @@
+package sokoban.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+import sokoban.util.Direction;
+import sokoban.util.TileGrid;
+
+/**
+ * Pomiar operacji wykonywanych przy każdym ruchu gracza: sprawdzenia i wykonania ruchu, odczytu zawartości pól oraz sprawdzenia ukończenia poziomu.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveBenchmark {
+
+	@Param({ LevelFixtures.SMALL, LevelFixtures.MEDIUM, LevelFixtures.HUGE })
+	public String size;
+
+	protected GameState state;
+	protected Direction forth, blocked;
+	protected int width, height;
+
+	@Setup
+	public void setup() {
+		Level level = LevelFixtures.level(size);
+		state = level.createGame();
+		width = level.getWidth();
+		height = level.getHeight();
+		for (Direction dir : Direction.getDirections()) {
+			int x = state.getPlayerX() + dir.getOffsetX(), y = state.getPlayerY() + dir.getOffsetY();
+			if (state.getTile(x, y) == 0 || (state.getTile(x, y) & TileGrid.WALL) != 0) {
+				blocked = dir;
+			} else if (!state.hasBox(x, y) && forth == null) {
+				forth = dir;
+			}
+		}
+		if (forth == null) {
+			throw new IllegalStateException("MoveBenchmark - Player cannot walk on level: " + size);
+		}
+	}
+
+	/**
+	 * Krok na wolne pole i jego cofnięcie - stan gry i dziennik ruchów po wywołaniu są takie same jak przed nim, więc dziennik nie rośnie w trakcie pomiaru.
+	 *
+	 * @return Wynik cofnięcia ruchu.
+	 */
+	@Benchmark
+	public int walk() {
+		state.move(forth);
+		return state.undo();
+	}
+
+	/**
+	 * Próba ruchu w ścianę (o ile gracz stoi przy ścianie). Jeśli gracz nie stoi przy ścianie, wykonany ruch jest cofany.
+	 *
+	 * @return Wynik ruchu.
+	 */
+	@Benchmark
+	public int blockedMove() {
+		int result = state.move(blocked == null ? forth : blocked);
+		if (result != GameState.BLOCKED) {
+			state.undo();
+		}
+		return result;
+	}
+
+	/**
+	 * Odczyt zawartości wszystkich pól planszy.
+	 *
+	 * @param bh Pochłaniacz wyników
+	 */
+	@Benchmark
+	public void cellLookup(Blackhole bh) {
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				bh.consume(state.getTile(x, y));
+				bh.consume(state.hasBox(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Sprawdzenie, czy poziom został ukończony.
+	 *
+	 * @return True, jeśli poziom został ukończony.
+	 */
+	@Benchmark
+	public boolean completion() {
+		return state.isCompleted();
+	}
+}
@@ -0,0 +1,41 @@
+package sokoban.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sokoban.engine.Level;
+
+/**
+ * Pomiar wczytywania poziomu z treści pliku mapy (bez odczytu z dysku).
+ *
+ * @author Maciej Budrowski
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBenchmark {
+
+	@Param({ LevelFixtures.SMALL, LevelFixtures.MEDIUM, LevelFixtures.HUGE })
+	public String size;
+
+	protected byte[] content;
+
+	@Setup
+	public void setup() {
+		content = LevelFixtures.mapFile(size);
+	}
+
+	@Benchmark
+	public Level parse() {
+		return LevelFixtures.parse(content);
+	}
+}
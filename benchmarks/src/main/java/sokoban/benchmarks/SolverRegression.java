@@ -0,0 +1,336 @@
+package sokoban.benchmarks;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import sokoban.solver.BidirectionalResult;
+import sokoban.solver.SolverBoard;
+import sokoban.solver.SolverResult;
+import sokoban.tools.SolverOptions;
+
+/**
+ * Test regresji wydajności solvera. Rozwiązuje stały zestaw poziomów (dziesięć map z katalogu maps oraz poziomy generowane z ustalonymi ziarnami) przy stałym limicie węzłów - mapy 6, 9 i 10 przekraczają limit i mierzą jedynie tempo przeszukiwania, mierząc czas, liczbę rozwiniętych węzłów, liczbę węzłów na sekundę oraz szczytowe zużycie sterty. Opcje solvera (np. --mode bidirectional, --parallel N, --heuristic manhattan) wybierają mierzony wariant solvera - plik bazowy zapamiętuje wariant, dla którego go zapisano. Dla przeszukiwania dwukierunkowego raportowany jest także kierunek, który znalazł punkt spotkania, i liczba węzłów każdego kierunku. Wyniki porównywane są z plikiem bazowym - spowolnienie większe niż dopuszczalna tolerancja (domyślnie 20%), wzrost liczby węzłów lub zmiana liczby przesunięć kończy program z kodem 1.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar sokoban.benchmarks.SolverRegression [--record] [--baseline plik] [--runs N] [--tolerance 0.2]
+ *                                                           [opcje solvera - SolverOptions]
+ * </pre>
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class SolverRegression {
+
+	public static final String DEFAULT_BASELINE = "solver-baseline.json";
+	public static final int NODE_LIMIT = 200000;
+	public static final int DEFAULT_RUNS = 3;
+	public static final double DEFAULT_TOLERANCE = 0.2;
+
+	/**
+	 * Czasy krótsze niż ten próg (w milisekundach) nie są porównywane względnie - dla nich szum pomiaru przekracza tolerancję.
+	 */
+	private static final double MIN_COMPARED_MILLIS = 20.0;
+
+	/**
+	 * Wynik pomiaru pojedynczego poziomu. Pole direction jest ustawione tylko dla przeszukiwania dwukierunkowego.
+	 */
+	protected static final class Measurement {
+		String status, direction;
+		int pushes;
+		long nodes, forwardNodes, backwardNodes;
+		double millis, nodesPerSecond, peakMegabytes;
+
+		JSONObject toJson() {
+			JSONObject obj = new JSONObject();
+			obj.put("status", status);
+			obj.put("pushes", pushes);
+			obj.put("nodes", nodes);
+			obj.put("millis", round(millis));
+			obj.put("nodesPerSecond", Math.round(nodesPerSecond));
+			obj.put("peakMegabytes", round(peakMegabytes));
+			if (direction != null) {
+				obj.put("direction", direction);
+				obj.put("forwardNodes", forwardNodes);
+				obj.put("backwardNodes", backwardNodes);
+			}
+			return obj;
+		}
+
+		static Measurement fromJson(JSONObject obj) {
+			Measurement m = new Measurement();
+			m.status = obj.getString("status");
+			m.pushes = obj.getInt("pushes");
+			m.nodes = obj.getLong("nodes");
+			m.millis = obj.getDouble("millis");
+			m.nodesPerSecond = obj.getDouble("nodesPerSecond");
+			m.peakMegabytes = obj.getDouble("peakMegabytes");
+			if (obj.has("direction")) {
+				m.direction = obj.getString("direction");
+				m.forwardNodes = obj.getLong("forwardNodes");
+				m.backwardNodes = obj.getLong("backwardNodes");
+			}
+			return m;
+		}
+
+		private static double round(double value) {
+			return Math.round(value * 10.0) / 10.0;
+		}
+	}
+
+	/**
+	 * Zwraca zestaw poziomów testowych.
+	 *
+	 * @return Treści plików map indeksowane nazwą poziomu.
+	 */
+	public static Map<String, byte[]> corpus() {
+		Map<String, byte[]> levels = new LinkedHashMap<>();
+		for (int i = 1; i <= 10; i++) {
+			levels.put("map-" + i, LevelFixtures.resourceBytes("/maps/" + i + ".map"));
+		}
+		// ziarna dobrane tak, aby każdy poziom wymagał od kilku do kilkunastu tysięcy węzłów (od ok. 0,3 s do 2 s)
+		levels.put("generated-1", generated("generated-1", 12, 10, 7, 400, 4));
+		levels.put("generated-2", generated("generated-2", 14, 11, 8, 400, 3));
+		levels.put("generated-3", generated("generated-3", 16, 12, 8, 400, 16));
+		levels.put("generated-4", generated("generated-4", 14, 12, 9, 400, 23));
+		return levels;
+	}
+
+	private static byte[] generated(String name, int width, int height, int boxes, int pulls, long seed) {
+		return LevelGenerator.generate(name, width, height, boxes, pulls, seed).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Mierzy pojedynczy poziom: jeden przebieg rozgrzewający, a następnie mediana czasu z podanej liczby przebiegów.
+	 *
+	 * @param content Treść pliku mapy
+	 * @param runs Liczba mierzonych przebiegów
+	 * @param options Wariant solvera
+	 * @return Wynik pomiaru.
+	 */
+	protected static Measurement measure(byte[] content, int runs, SolverOptions options) {
+		solveOnce(content, options);
+		double[] times = new double[runs];
+		double peak = 0;
+		SolverResult result = null;
+		for (int i = 0; i < runs; i++) {
+			System.gc();
+			List<MemoryPoolMXBean> pools = heapPools();
+			for (MemoryPoolMXBean pool : pools) {
+				pool.resetPeakUsage();
+			}
+			result = solveOnce(content, options);
+			times[i] = result.getElapsedMillis();
+			long used = 0;
+			for (MemoryPoolMXBean pool : pools) {
+				used += pool.getPeakUsage().getUsed();
+			}
+			peak = Math.max(peak, used / (1024.0 * 1024.0));
+		}
+		Arrays.sort(times);
+		Measurement m = new Measurement();
+		m.status = statusName(result.getStatus());
+		m.pushes = result.getPushes();
+		m.nodes = result.getNodes();
+		m.millis = times[runs / 2];
+		m.nodesPerSecond = m.millis == 0 ? 0 : m.nodes * 1000.0 / m.millis;
+		m.peakMegabytes = peak;
+		if (result instanceof BidirectionalResult) {
+			BidirectionalResult bidirectional = (BidirectionalResult) result;
+			m.direction = BidirectionalResult.directionName(bidirectional.getMeetingDirection());
+			m.forwardNodes = bidirectional.getForwardNodes();
+			m.backwardNodes = bidirectional.getBackwardNodes();
+		}
+		return m;
+	}
+
+	private static SolverResult solveOnce(byte[] content, SolverOptions options) {
+		return options.solve(new SolverBoard(LevelFixtures.parse(content)), NODE_LIMIT, () -> false);
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	private static String statusName(int status) {
+		switch (status) {
+		case SolverResult.SOLVED:
+			return "solved";
+		case SolverResult.UNSOLVABLE:
+			return "unsolvable";
+		case SolverResult.LIMIT_EXCEEDED:
+			return "limit";
+		default:
+			return "interrupted";
+		}
+	}
+
+	/**
+	 * Porównuje wyniki z plikiem bazowym.
+	 *
+	 * @param baseline Wyniki bazowe
+	 * @param current Bieżące wyniki
+	 * @param tolerance Dopuszczalne względne spowolnienie (np. 0.2)
+	 * @return Lista opisów regresji (pusta, jeśli ich nie ma).
+	 */
+	protected static List<String> compare(Map<String, Measurement> baseline, Map<String, Measurement> current,
+			double tolerance) {
+		List<String> failures = new ArrayList<>();
+		double baseNodes = 0, baseMillis = 0, curNodes = 0, curMillis = 0;
+		for (Map.Entry<String, Measurement> entry : current.entrySet()) {
+			String name = entry.getKey();
+			Measurement cur = entry.getValue(), base = baseline.get(name);
+			if (base == null) {
+				continue;
+			}
+			if (!cur.status.equals(base.status) || cur.pushes != base.pushes) {
+				failures.add(String.format("%s: wynik %s/%d, oczekiwano %s/%d", name, cur.status, cur.pushes,
+						base.status, base.pushes));
+			}
+			if (cur.nodes > base.nodes * (1 + tolerance)) {
+				failures.add(String.format("%s: %d węzłów, wcześniej %d", name, cur.nodes, base.nodes));
+			}
+			if (base.millis >= MIN_COMPARED_MILLIS && cur.millis > base.millis * (1 + tolerance)) {
+				failures.add(String.format("%s: %.1f ms, wcześniej %.1f ms (+%.0f%%)", name, cur.millis, base.millis,
+						(cur.millis / base.millis - 1) * 100));
+			}
+			baseNodes += base.nodes;
+			baseMillis += base.millis;
+			curNodes += cur.nodes;
+			curMillis += cur.millis;
+		}
+		if (baseMillis > 0 && curMillis > 0) {
+			double baseRate = baseNodes / baseMillis, curRate = curNodes / curMillis;
+			if (curRate < baseRate / (1 + tolerance)) {
+				failures.add(String.format("łącznie: %.0f węzłów/s, wcześniej %.0f węzłów/s", curRate * 1000,
+						baseRate * 1000));
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Punkt wejścia testu regresji.
+	 *
+	 * @param args Argumenty wywołania
+	 * @throws IOException Jeśli nie udało się odczytać lub zapisać pliku bazowego.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path baselineFile = Paths.get(DEFAULT_BASELINE);
+		boolean record = false;
+		int runs = DEFAULT_RUNS;
+		double tolerance = DEFAULT_TOLERANCE;
+		SolverOptions options = new SolverOptions();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--record":
+				record = true;
+				break;
+			case "--baseline":
+				baselineFile = Paths.get(args[++i]);
+				break;
+			case "--runs":
+				runs = Integer.parseInt(args[++i]);
+				break;
+			case "--tolerance":
+				tolerance = Double.parseDouble(args[++i]);
+				break;
+			default:
+				int last = -1;
+				try {
+					last = options.parse(args, i);
+				} catch (IllegalArgumentException e) {
+					// zgłaszane poniżej
+				}
+				if (last < 0) {
+					System.err.println("Nieprawidłowy argument: " + args[i]);
+					System.exit(2);
+				}
+				i = last;
+			}
+		}
+		try {
+			options.validate();
+		} catch (IllegalArgumentException e) {
+			System.err.println("Nieprawidłowy argument: " + e.getMessage());
+			System.exit(2);
+		}
+
+		Map<String, Measurement> current = new LinkedHashMap<>();
+		System.out.printf("%-12s %-11s %7s %9s %10s %12s %9s%n", "poziom", "status", "pchnięć", "węzłów", "ms",
+				"węzłów/s", "MB");
+		for (Map.Entry<String, byte[]> entry : corpus().entrySet()) {
+			Measurement m = measure(entry.getValue(), runs, options);
+			current.put(entry.getKey(), m);
+			System.out.printf("%-12s %-11s %7d %9d %10.1f %12.0f %9.1f", entry.getKey(), m.status, m.pushes, m.nodes,
+					m.millis, m.nodesPerSecond, m.peakMegabytes);
+			if (m.direction != null) {
+				System.out.printf("   w przód %d, wstecz %d, spotkanie: %s", m.forwardNodes, m.backwardNodes,
+						m.direction);
+			}
+			System.out.println();
+		}
+
+		if (record) {
+			JSONObject root = new JSONObject();
+			for (Map.Entry<String, Measurement> entry : current.entrySet()) {
+				root.put(entry.getKey(), entry.getValue().toJson());
+			}
+			JSONObject file = new JSONObject();
+			file.put("nodeLimit", NODE_LIMIT);
+			file.put("solver", options.describe());
+			file.put("levels", root);
+			Files.write(baselineFile, file.toString(4).getBytes(StandardCharsets.UTF_8));
+			System.out.println("Zapisano wyniki bazowe do " + baselineFile);
+			return;
+		}
+
+		if (!Files.exists(baselineFile)) {
+			System.err.println("Brak pliku bazowego " + baselineFile + " - uruchom z opcją --record.");
+			System.exit(2);
+		}
+		JSONObject file = new JSONObject(new String(Files.readAllBytes(baselineFile), StandardCharsets.UTF_8));
+		if (file.getInt("nodeLimit") != NODE_LIMIT) {
+			System.err.println("Plik bazowy zapisano dla innego limitu węzłów - uruchom z opcją --record.");
+			System.exit(2);
+		}
+		if (!file.optString("solver", "forward").equals(options.describe())) {
+			System.err.println("Plik bazowy zapisano dla wariantu solvera " + file.optString("solver", "forward")
+					+ " - uruchom z opcją --record i innym plikiem --baseline.");
+			System.exit(2);
+		}
+		JSONObject levels = file.getJSONObject("levels");
+		Map<String, Measurement> baseline = new LinkedHashMap<>();
+		for (String name : levels.keySet()) {
+			baseline.put(name, Measurement.fromJson(levels.getJSONObject(name)));
+		}
+		List<String> failures = compare(baseline, current, tolerance);
+		if (failures.isEmpty()) {
+			System.out.println("Brak regresji względem " + baselineFile + ".");
+			return;
+		}
+		System.err.println("REGRESJA WYDAJNOŚCI SOLVERA:");
+		for (String failure : failures) {
+			System.err.println("  " + failure);
+		}
+		System.exit(1);
+	}
+}
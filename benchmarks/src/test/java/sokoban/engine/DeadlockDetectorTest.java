@@ -0,0 +1,127 @@
+package sokoban.engine;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import sokoban.exceptions.InvalidMapFileException;
+import sokoban.util.Direction;
+
+/**
+ * Testy wykrywania zakleszczeń. Fałszywe zakleszczenie odrzuca rozwiązywalne stany w solverze i niesłusznie informuje gracza o utknięciu, dlatego każda plansza oznaczona jako zakleszczona jest naprawdę nierozwiązywalna, a każda pozostała - rozwiązywalna.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class DeadlockDetectorTest {
+
+	@Test
+	public void frozenSquareOffGoalsIsDeadlock() throws InvalidMapFileException {
+		Level level = level(
+				"########",
+				"#      #",
+				"# bb   #",
+				"# bb p #",
+				"#  XXXX#",
+				"########");
+		assertTrue(detector(level).isFrozenDeadlock(cell(level, 3, 3), level::hasInitialBox));
+		assertTrue(isDeadlockAfterPush(level, 3, 3));
+	}
+
+	@Test
+	public void frozenSquareOnGoalsIsNotDeadlock() throws InvalidMapFileException {
+		Level level = level(
+				"########",
+				"#      #",
+				"# BB   #",
+				"# BB p #",
+				"#      #",
+				"########");
+		assertFalse(detector(level).isFrozenDeadlock(cell(level, 3, 3), level::hasInitialBox));
+		assertFalse(isDeadlockAfterPush(level, 3, 3));
+	}
+
+	@Test
+	public void adjacentBoxesInOpenAreaAreNotFrozen() throws InvalidMapFileException {
+		Level level = level(
+				"########",
+				"#      #",
+				"# bb   #",
+				"#    p #",
+				"#  XX  #",
+				"########");
+		assertFalse(detector(level).isFrozenDeadlock(cell(level, 3, 2), level::hasInitialBox));
+		assertFalse(isDeadlockAfterPush(level, 3, 2));
+	}
+
+	@Test
+	public void boxInCornerIsDeadlock() throws InvalidMapFileException {
+		Level level = level(
+				"#####",
+				"#b  #",
+				"# p #",
+				"#  X#",
+				"#####");
+		assertTrue(isDeadlockAfterPush(level, 1, 1));
+	}
+
+	@Test
+	public void corralWithEmptyGoalBehindFrozenBoxesIsDeadlock() throws InvalidMapFileException {
+		// skrzynki stoją na polach wygranej, więc same nie tworzą zakleszczenia - pole wygranej nad nimi jest jednak nieosiągalne
+		Level level = level(
+				"#######",
+				"##X####",
+				"##B b #",
+				"##B p #",
+				"#######");
+		assertFalse(detector(level).isFrozenDeadlock(cell(level, 2, 2), level::hasInitialBox));
+		assertTrue(isDeadlockAfterPush(level, 2, 2));
+	}
+
+	@Test
+	public void corralClosedByMovableBoxIsNotDeadlock() throws InvalidMapFileException {
+		Level level = level(
+				"#######",
+				"##X####",
+				"##b   #",
+				"#  bp #",
+				"#   X #",
+				"#######");
+		assertFalse(isDeadlockAfterPush(level, 2, 2));
+	}
+
+	@Test
+	public void gameStateClearsDeadlockOnUndo() throws InvalidMapFileException {
+		GameState state = level(
+				"#####",
+				"#   #",
+				"# bp#",
+				"#  X#",
+				"#####").createGame();
+		assertFalse(state.isDeadlocked());
+		state.move(Direction.getLeft());
+		assertTrue(state.isDeadlocked());
+		state.undo();
+		assertFalse(state.isDeadlocked());
+	}
+
+	private static Level level(String... rows) throws InvalidMapFileException {
+		return LevelParser.fromRows("test", 0, Arrays.asList(rows), 1);
+	}
+
+	private static DeadlockDetector detector(Level level) {
+		return new DeadlockDetector(level);
+	}
+
+	private static int cell(Level level, int x, int y) {
+		return y * level.getWidth() + x;
+	}
+
+	private static boolean isDeadlockAfterPush(Level level, int boxX, int boxY) {
+		return detector(level).isDeadlockAfterPush(cell(level, boxX, boxY),
+				cell(level, level.getPlayerX(), level.getPlayerY()), level::hasInitialBox);
+	}
+}
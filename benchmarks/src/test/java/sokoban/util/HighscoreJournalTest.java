@@ -0,0 +1,142 @@
+package sokoban.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testy odtwarzania dziennika najlepszych wyników po awarii: niepełny ostatni wiersz i rekord z nieprawidłową sumą kontrolną kończą odczyt, poprawne rekordy przed nimi są zachowywane, a uszkodzona końcówka pliku jest obcinana.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HighscoreJournalTest {
+
+	@TempDir
+	protected Path directory;
+
+	@Test
+	public void replayReadsAppendedRecords() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		new HighscoreJournal(file).append(records("a", "b", "c"));
+
+		List<JSONObject> replayed = new ArrayList<>();
+		HighscoreJournal journal = new HighscoreJournal(file);
+		assertEquals(3, journal.replay(replayed::add));
+		assertEquals(Arrays.asList("a", "b", "c"), players(replayed));
+	}
+
+	@Test
+	public void tornLastLineIsTruncated() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		new HighscoreJournal(file).append(records("a", "b"));
+		long valid = Files.size(file);
+		appendRaw(file, "1234abcd\t{\"player\":\"c\",\"ti");
+
+		List<JSONObject> replayed = new ArrayList<>();
+		assertEquals(2, new HighscoreJournal(file).replay(replayed::add));
+		assertEquals(Arrays.asList("a", "b"), players(replayed));
+		assertEquals(valid, Files.size(file));
+	}
+
+	@Test
+	public void recordWithBadChecksumEndsReplay() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		HighscoreJournal writer = new HighscoreJournal(file);
+		writer.append(records("a"));
+		long valid = Files.size(file);
+		appendRaw(file, "0\t" + record("b") + "\n");
+		writer.append(records("c"));
+
+		List<JSONObject> replayed = new ArrayList<>();
+		assertEquals(1, new HighscoreJournal(file).replay(replayed::add));
+		assertEquals(Arrays.asList("a"), players(replayed));
+		assertEquals(valid, Files.size(file));
+	}
+
+	@Test
+	public void appendAfterRecoveryContinuesValidPrefix() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		new HighscoreJournal(file).append(records("a"));
+		appendRaw(file, "garbage");
+
+		HighscoreJournal journal = new HighscoreJournal(file);
+		journal.replay(record -> { });
+		journal.append(records("b"));
+
+		List<JSONObject> replayed = new ArrayList<>();
+		assertEquals(2, new HighscoreJournal(file).replay(replayed::add));
+		assertEquals(Arrays.asList("a", "b"), players(replayed));
+	}
+
+	@Test
+	public void readNewReturnsRecordsAppendedByAnotherWriter() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		HighscoreJournal reader = new HighscoreJournal(file), writer = new HighscoreJournal(file);
+		writer.append(records("a"));
+		reader.replay(record -> { });
+		writer.replay(record -> { });
+		writer.append(records("b", "c"));
+
+		List<JSONObject> read = new ArrayList<>();
+		assertTrue(reader.readNew(read::add));
+		assertEquals(Arrays.asList("b", "c"), players(read));
+	}
+
+	@Test
+	public void readNewDetectsNewGeneration() throws IOException {
+		Path file = directory.resolve("highscores.journal");
+		HighscoreJournal reader = new HighscoreJournal(file), writer = new HighscoreJournal(file);
+		writer.reset(1);
+		writer.append(records("a"));
+		reader.replay(record -> { });
+		writer.reset(2);
+
+		List<JSONObject> read = new ArrayList<>();
+		assertFalse(reader.readNew(read::add));
+		assertTrue(read.isEmpty());
+		assertEquals(2, HighscoreJournal.readGeneration(file));
+	}
+
+	private static JSONObject record(String player) {
+		JSONObject record = new JSONObject();
+		record.put("fingerprint", "2a");
+		record.put("mapName", "test");
+		record.put("player", player);
+		record.put("time", 12.5);
+		return record;
+	}
+
+	private static List<JSONObject> records(String... players) {
+		List<JSONObject> records = new ArrayList<>();
+		for (String player : players) {
+			records.add(record(player));
+		}
+		return records;
+	}
+
+	private static List<String> players(List<JSONObject> records) {
+		List<String> players = new ArrayList<>();
+		for (JSONObject record : records) {
+			players.add(record.getString("player"));
+		}
+		return players;
+	}
+
+	private static void appendRaw(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+}
@@ -0,0 +1,76 @@
+package sokoban.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import sokoban.MapInfo;
+
+/**
+ * Testy wczytywania najlepszych wyników z pliku i dziennika. Highscores korzysta z plików w katalogu roboczym, który dla testów ustawiany jest w konfiguracji maven-surefire-plugin.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HighscoresTest {
+
+	private static final Path FILE = Paths.get("highscores.dat");
+	private static final Path JOURNAL = Paths.get("highscores.journal");
+	private static final MapInfo MAP = new MapInfo("test", 42L);
+
+	@BeforeEach
+	public void removeFiles() throws IOException {
+		Files.deleteIfExists(FILE);
+		Files.deleteIfExists(JOURNAL);
+	}
+
+	@Test
+	public void journalOfCurrentGenerationIsReplayed() throws IOException {
+		writeSnapshot(2);
+		HighscoreJournal journal = new HighscoreJournal(JOURNAL);
+		journal.reset(2);
+		journal.append(Collections.singletonList(record("journal")));
+
+		Highscores.loadHighscores();
+		assertEquals(2, Highscores.getScoreCount(MAP));
+		assertEquals("journal", Highscores.getLastUsedName());
+	}
+
+	@Test
+	public void staleJournalIsDiscarded() throws IOException {
+		// awaria między zapisaniem pliku najlepszych wyników a zastąpieniem dziennika - rekordy są już w pliku
+		writeSnapshot(2);
+		HighscoreJournal journal = new HighscoreJournal(JOURNAL);
+		journal.reset(1);
+		journal.append(Collections.singletonList(record("stale")));
+
+		Highscores.loadHighscores();
+		assertEquals(1, Highscores.getScoreCount(MAP));
+		assertEquals("snapshot", Highscores.getLastUsedName());
+		assertEquals(2, HighscoreJournal.readGeneration(JOURNAL));
+		assertEquals(0, new HighscoreJournal(JOURNAL).replay(record -> { }));
+	}
+
+	private static void writeSnapshot(long generation) throws IOException {
+		Leaderboard board = new Leaderboard();
+		board.add("snapshot", 10.0, 1);
+		HighscoreSnapshot.write(FILE, generation, "snapshot", Collections.singletonMap(MAP, board), seq -> true);
+	}
+
+	private static JSONObject record(String player) {
+		JSONObject record = new JSONObject();
+		record.put("fingerprint", Long.toHexString(MAP.getFingerprint()));
+		record.put("mapName", MAP.getMapName());
+		record.put("player", player);
+		record.put("time", 12.5);
+		return record;
+	}
+}
@@ -16,30 +16,21 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowEvent;
 import java.awt.geom.AffineTransform;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.function.Supplier;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
-import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.Timer;
@@ -47,10 +38,18 @@ import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.PlainDocument;
 
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+import sokoban.engine.LevelParser;
 import sokoban.exceptions.InvalidMapFileException;
+import sokoban.solver.AnytimeResult;
+import sokoban.solver.AnytimeSolver;
+import sokoban.solver.HintService;
+import sokoban.solver.SolverResult;
 import sokoban.util.Direction;
 import sokoban.util.Highscores;
 import sokoban.util.Pair;
+import sokoban.util.TileGrid;
 
 /**
  * Klasa reprezentująca widok gry na ekranie. Widok zawiera pasek z informacjami na górze ekranu oraz planszę właściwą poniżej.
@@ -98,16 +97,28 @@ public class Board extends JPanel {
 
 			switch (key) {
 			case KeyEvent.VK_UP:
-				playerInstance.move(Direction.getUp());
+				movePlayer(Direction.getUp());
 				break;
 			case KeyEvent.VK_DOWN:
-				playerInstance.move(Direction.getDown());
+				movePlayer(Direction.getDown());
 				break;
 			case KeyEvent.VK_LEFT:
-				playerInstance.move(Direction.getLeft());
+				movePlayer(Direction.getLeft());
 				break;
 			case KeyEvent.VK_RIGHT:
-				playerInstance.move(Direction.getRight());
+				movePlayer(Direction.getRight());
+				break;
+			case KeyEvent.VK_U:
+				undoMove();
+				break;
+			case KeyEvent.VK_Y:
+				redoMove();
+				break;
+			case KeyEvent.VK_S:
+				toggleSolver();
+				break;
+			case KeyEvent.VK_H:
+				showHint();
 				break;
 			default:
 				return;
@@ -180,6 +191,20 @@ public class Board extends JPanel {
 			});
 			add(backButton, c2);
 
+			warningLabel = new JLabel();
+			warningLabel.setForeground(Color.RED);
+			c2.anchor = GridBagConstraints.WEST;
+			c2.gridx = 0;
+			c2.gridy = 2;
+			c2.gridwidth = 3;
+			c2.gridheight = 1;
+			c2.insets = new Insets(0, 5, 5, 5);
+			add(warningLabel, c2);
+
+			solverLabel = new JLabel();
+			c2.gridy = 3;
+			add(solverLabel, c2);
+
 			setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.BLACK));
 		}
 	}
@@ -209,15 +234,59 @@ public class Board extends JPanel {
 						(getPreferredSize().getHeight() - Resources.TILESIZE * boardHeight) / 2);
 				tr.scale(5.0, 5.0);
 				g2d.transform(tr);
-				for (GameObject proto : mapPrototypeInstances.keySet()) {
-					for (GameObject go : mapPrototypeInstances.get(proto)) {
-						go.draw((Graphics2D) g, mapPrototypeToImage.get(proto));
+				for (int y = 0; y < boardHeight; y++) {
+					for (int x = 0; x < boardWidth; x++) {
+						byte tile = state.getTile(x, y);
+						if ((tile & TileGrid.FLOOR) != 0) {
+							drawTile(g2d, Resources.getFloorImage(), x, y);
+						}
+						if ((tile & TileGrid.WALL) != 0) {
+							drawTile(g2d, Resources.getWallImage(), x, y);
+						}
+						if ((tile & TileGrid.GOAL) != 0) {
+							drawTile(g2d, Resources.getWinAreaImage(), x, y);
+						}
 					}
 				}
-				playerInstance.draw((Graphics2D) g, mapPrototypeToImage.get(playerInstance));
+				for (GameObject box : boxInstances.values()) {
+					box.draw((Graphics2D) g, mapPrototypeToImage.get(boxProto));
+				}
+				if (hintPush >= 0) {
+					drawHint(g2d);
+				}
+				playerInstance.draw((Graphics2D) g, mapPrototypeToImage.get(playerProto));
 				g2d.setTransform(oldTr);
 			}
 		}
+
+		/**
+		 * Zaznacza skrzynkę, którą należy przesunąć, oraz pole, na które ma trafić.
+		 * 
+		 * @param g Kontekst graficzny
+		 */
+		protected void drawHint(Graphics2D g) {
+			int box = hintPush >> 2;
+			Direction dir = Direction.getDirections()[hintPush & 3];
+			int x = box % boardWidth, y = box / boardWidth;
+			g.setColor(new Color(255, 255, 0, 120));
+			g.fillRect(Resources.TILESIZE * x, Resources.TILESIZE * y, Resources.TILESIZE, Resources.TILESIZE);
+			g.setColor(Color.YELLOW);
+			g.drawRect(Resources.TILESIZE * (x + dir.getOffsetX()), Resources.TILESIZE * (y + dir.getOffsetY()),
+					Resources.TILESIZE - 1, Resources.TILESIZE - 1);
+		}
+
+		/**
+		 * Rysuje statyczne pole planszy na danych współrzędnych.
+		 * 
+		 * @param g Kontekst graficzny
+		 * @param image Obraz pola
+		 * @param x Współrzędna X
+		 * @param y Współrzędna Y
+		 */
+		protected void drawTile(Graphics2D g, Image image, int x, int y) {
+			g.drawImage(image, Resources.TILESIZE * x, Resources.TILESIZE * y, Resources.TILESIZE, Resources.TILESIZE,
+					null);
+		}
 	}
 
 	/**
@@ -240,6 +309,7 @@ public class Board extends JPanel {
 				timeRemaining = 0.0;
 				acceptInput = false;
 				mapEnded = true;
+				stopSolver();
 				System.out.println("PRZEGRANA!");
 				stop();
 			}
@@ -280,9 +350,8 @@ public class Board extends JPanel {
 			c2.insets = new Insets(5, 5, 5, 5);
 			add(label, c2);
 
-			MapInfo mapInfo = new MapInfo(mapName, mapStructure);
-			LinkedList<Pair<String, Double>> highscores = (LinkedList<Pair<String, Double>>) Highscores
-					.getHighscoresForMap(mapInfo);
+			MapInfo mapInfo = new MapInfo(mapName, mapFingerprint);
+			List<Pair<String, Double>> highscores = Highscores.getHighscoresForMap(mapInfo);
 
 			NumberFormat format = new DecimalFormat("0.0");
 			int y = 1;
@@ -333,7 +402,7 @@ public class Board extends JPanel {
 				c2.gridwidth = 1;
 				add(yourScoreNumberLabel, c2);
 
-				if (highscores == null || highscores.size() < 10 || score < highscores.getLast().getValue()) {
+				if (Highscores.getRank(mapInfo, score) <= Highscores.getTopN()) {
 					JLabel resultLabel = new JLabel("Czy chcesz dodać swój wynik do listy wyników?");
 					c2.anchor = GridBagConstraints.SOUTHWEST;
 					c2.gridx = 0;
@@ -376,7 +445,7 @@ public class Board extends JPanel {
 							if (textField.getText() == null || textField.getText().isEmpty()) {
 								return;
 							}
-							MapInfo mapInfo = new MapInfo(mapName, mapStructure);
+							MapInfo mapInfo = new MapInfo(mapName, mapFingerprint);
 							Highscores.addHighscore(mapInfo, textField.getText(),
 									Math.round((timeLimit - timeRemaining) * 10.0) / 10.0);
 							popupWindow.dispatchEvent(new WindowEvent(popupWindow, WindowEvent.WINDOW_CLOSING));
@@ -457,25 +526,29 @@ public class Board extends JPanel {
 	}
 
 	protected JPanel infoPanel, centerPanel;
-	protected JLabel mapNameLabel, timeLeftLabel, pressEnterLabel;
+	protected JLabel mapNameLabel, timeLeftLabel, pressEnterLabel, warningLabel, solverLabel;
 	protected int boardWidth, boardHeight;
 	protected String mapName, fileName;
 	protected File file;
-	protected GameObject playerInstance, wallProto, boxProto, winAreaProto, floorProto;
-	protected Map<GameObject, List<GameObject>> mapPrototypeInstances;
+	protected Level level;
+	protected GameState state;
+	protected GameObject playerInstance, playerProto, boxProto;
+	protected Map<Integer, GameObject> boxInstances;
 	protected Map<GameObject, Image> mapPrototypeToImage;
 	protected double timeRemaining;
 	protected int timeLimit;
 	protected CustomTimer timer;
 	protected boolean mapStarted = false, mapEnded = false, acceptInput = false;
-	protected String mapStructure = "";
+	protected long mapFingerprint = 0;
 	protected JFrame popupWindow;
+	protected SolverTask solverTask;
+	protected HintService hints;
+	protected int hintPush = -1;
 
 	public Board(String fileName) throws InvalidMapFileException {
 		setupLayout();
 		createPrototypes();
 		initializeBoard(fileName);
-		mapPrototypeToImage.put(playerInstance, Resources.getPlayerImage());
 		setFocusable(true);
 		addKeyListener(new KeyboardListener());
 	}
@@ -484,7 +557,14 @@ public class Board extends JPanel {
 		setupLayout();
 		createPrototypes();
 		initializeBoard(file);
-		mapPrototypeToImage.put(playerInstance, Resources.getPlayerImage());
+		setFocusable(true);
+		addKeyListener(new KeyboardListener());
+	}
+
+	public Board(Level level) {
+		setupLayout();
+		createPrototypes();
+		initializeBoard(level);
 		setFocusable(true);
 		addKeyListener(new KeyboardListener());
 	}
@@ -556,106 +636,38 @@ public class Board extends JPanel {
 	 * @throws InvalidMapFileException Jeśli plik mapy ma nieprawidłowy format.
 	 */
 	protected void initializeBoard(Supplier<InputStream> inputStreamSupplier) throws InvalidMapFileException {
-		BufferedReader fin = null;
-		fin = new BufferedReader(new InputStreamReader(inputStreamSupplier.get()));
-
-		String s = null;
-		String[] tmp = null;
-		int mapX = -1, mapY = -1;
-		int iTmp;
-
-		try {
-			while (fin.ready()) {
-				s = fin.readLine();
-				if (mapX != -1 && mapY != -1) {
-					iTmp = s.length();
-					if (iTmp > mapX) {
-						mapX = iTmp;
-					}
-					mapY++;
-				}
-				tmp = s.split("=");
-				if (tmp[0].equals("map")) {
-					mapX = mapY = 0;
-				}
-			}
-		} catch (IOException e1) {
-			e1.printStackTrace();
-			try {
-				fin.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-			return;
-		}
-
-		if (mapX == -1 || mapY == -1) {
-			throw new InvalidMapFileException();
-		}
-
-		boardWidth = mapX;
-		boardHeight = mapY;
-		mapX = mapY = -1;
-		mapStructure = "";
-
-		fin = new BufferedReader(new InputStreamReader(inputStreamSupplier.get()));
-
-		try {
-			while (fin.ready()) {
-				s = fin.readLine();
-				if (s.isEmpty()) {
-					continue;
-				}
-				if (mapX != -1 && mapY != -1) {
-					iTmp = s.length();
-					System.out.println(s);
-					mapStructure = mapStructure.concat(s) + '\n';
-					for (int i = 0; i < iTmp; i++) {
-						if (s.charAt(i) == '#') {
-							placeObject(wallProto, i, mapY);
-						} else if (s.charAt(i) == 'p') {
-							playerInstance = GameObject.placeInstance(new GameObject(this, false, true), i, mapY);
-						} else if (s.charAt(i) == 'b') {
-							placeObject(boxProto, i, mapY);
-						} else if (s.charAt(i) == 'X') {
-							placeObject(winAreaProto, i, mapY);
-						} else if (s.charAt(i) == 'B') {
-							placeObject(boxProto, i, mapY);
-							placeObject(winAreaProto, i, mapY);
-						} else if (s.charAt(i) == 'P') {
-							placeObject(winAreaProto, i, mapY);
-							playerInstance = GameObject.placeInstance(new GameObject(this, false, true), i, mapY);
-						}
-					}
-					mapY++;
-				}
-				tmp = s.split("=");
-				switch (tmp[0]) {
-				case "name":
-					mapName = new String(tmp[1]);
-					mapNameLabel.setText("Nazwa mapy: " + mapName);
-					break;
-				case "timeLimit":
-					timeLimit = Integer.parseInt(tmp[1]);
-					timeRemaining = timeLimit;
-					timeLeftLabel.setText("Pozostały czas: " + (new DecimalFormat("0.0").format(timeRemaining)) + "s");
-					break;
-				case "map":
-					mapX = mapY = 0;
-					break;
-				}
-			}
-		} catch (Exception e1) {
-			e1.printStackTrace();
-		}
+		initializeBoard(LevelParser.parse(inputStreamSupplier));
+	}
 
-		floorfillFloor();
+	/**
+	 * Metoda inicjalizująca planszę wczytanym wcześniej poziomem (np. z zestawu poziomów).
+	 * 
+	 * @param level Poziom
+	 */
+	protected void initializeBoard(Level level) {
+		this.level = level;
+		hints = new HintService(level);
+		startLevel();
+	}
 
-		try {
-			fin.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	/**
+	 * Ustawia planszę w stanie początkowym wczytanego poziomu.
+	 */
+	protected void startLevel() {
+		mapName = level.getName();
+		mapNameLabel.setText("Nazwa mapy: " + mapName);
+		timeLimit = level.getTimeLimit();
+		timeRemaining = timeLimit;
+		timeLeftLabel.setText("Pozostały czas: " + (new DecimalFormat("0.0").format(timeRemaining)) + "s");
+		boardWidth = level.getWidth();
+		boardHeight = level.getHeight();
+		mapFingerprint = level.getFingerprint();
+		state = level.createGame();
+		warningLabel.setText("");
+		stopSolver();
+		hintPush = -1;
+		solverLabel.setText("Naciśnij S, aby wyszukać rozwiązanie, lub H, aby otrzymać podpowiedź.");
+		createSprites();
 	}
 
 	/**
@@ -677,25 +689,27 @@ public class Board extends JPanel {
 	}
 
 	/**
-	 * Tworzy prototypy podstawowych obiektów mapy.
+	 * Tworzy prototypy obiektów rysowanych na planszy.
 	 */
 	protected void createPrototypes() {
-		mapPrototypeInstances = new LinkedHashMap<>();
 		mapPrototypeToImage = new HashMap<>();
-		floorProto = new GameObject(this, true, false);
-		mapPrototypeInstances.put(floorProto, new ArrayList<>());
-		mapPrototypeToImage.put(floorProto, Resources.getFloorImage());
-		wallProto = new GameObject(this, false, false);
-		mapPrototypeInstances.put(wallProto, new ArrayList<>());
-		mapPrototypeToImage.put(wallProto, Resources.getWallImage());
-		winAreaProto = new GameObject(this, true, false);
-		mapPrototypeInstances.put(winAreaProto, new ArrayList<>());
-		mapPrototypeToImage.put(winAreaProto, Resources.getWinAreaImage());
-		boxProto = new GameObject(this, false, true);
-		mapPrototypeInstances.put(boxProto, new ArrayList<>());
+		playerProto = new GameObject(this);
+		mapPrototypeToImage.put(playerProto, Resources.getPlayerImage());
+		boxProto = new GameObject(this);
 		mapPrototypeToImage.put(boxProto, Resources.getBoxImage());
 	}
 
+	/**
+	 * Tworzy obiekty gracza i skrzynek odpowiadające aktualnemu stanowi gry.
+	 */
+	protected void createSprites() {
+		playerInstance = GameObject.placeInstance(playerProto, state.getPlayerX(), state.getPlayerY());
+		boxInstances = new HashMap<>();
+		for (int index : state.getBoxIndices()) {
+			boxInstances.put(index, GameObject.placeInstance(boxProto, index % boardWidth, index / boardWidth));
+		}
+	}
+
 	/**
 	 * Restartuje mapę po naciścięniu przycisku przez użytkownika.
 	 */
@@ -707,131 +721,207 @@ public class Board extends JPanel {
 		mapStarted = false;
 		mapEnded = false;
 		acceptInput = false;
-		createPrototypes();
-		try {
-			if (file != null) {
-				initializeBoard(file);
-			} else {
-				initializeBoard(fileName);
-			}
-		} catch (InvalidMapFileException e) {
-			JOptionPane.showConfirmDialog(this, e.getMessage(), "Błąd wczytywania mapy", JOptionPane.ERROR_MESSAGE);
-			Window.getInstance().changeScreen(MainMenu.getInstance());
-		}
-		mapPrototypeToImage.put(playerInstance, Resources.getPlayerImage());
+		startLevel();
 		pressEnterLabel.setVisible(true);
 		repaint();
 	}
 
 	/**
-	 * Przechodzi do ekranu menu głównego.
+	 * Wykonuje ruch gracza w danym kierunku, a następnie uruchamia animację przesunięcia gracza i ewentualnie przesuniętej skrzynki.
+	 * 
+	 * @param dir Kierunek ruchu
 	 */
-	protected void returnToMainMenu() {
-		if (timer != null) {
-			timer.stop();
-			timer = null;
+	protected void movePlayer(Direction dir) {
+		if (playerInstance.isMoving()) {
+			return;
 		}
-		Window.getInstance().changeScreen(MainMenu.getInstance());
+		animateMove(dir, state.move(dir));
 	}
 
 	/**
-	 * Metoda pomocnicza mająca na celu wypełnienie planszy obiektami podłogi korzystając z algorytmy floodfill zaczynając od obiektu gracza.
+	 * Cofa ostatni ruch gracza. Obiekty na planszy przenoszone są natychmiast, bez animacji.
 	 */
-	protected void floorfillFloor() {
-		if (playerInstance == null) {
+	protected void undoMove() {
+		if (playerInstance.isMoving()) {
 			return;
 		}
-		Queue<Pair<Integer, Integer>> remaining = new LinkedList<>();
-		List<Pair<Integer, Integer>> visited = new LinkedList<>();
-		remaining.add(playerInstance.getCoordinates());
-		Pair<Integer, Integer> current, newPair;
-		while (!remaining.isEmpty()) {
-			current = remaining.remove();
-			if (isOnTheList(visited, current)) {
-				continue;
-			}
-			visited.add(current);
-			if (isValidFloodfillTile(current)) {
-				try {
-					placeObject(floorProto, current.getKey(), current.getValue());
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-				for (Direction d : Direction.getDirections()) {
-					newPair = new Pair<Integer, Integer>(current.getKey() + d.getOffsetX(),
-							current.getValue() + d.getOffsetY());
-					if (!isOnTheList(visited, newPair)) {
-						remaining.add(newPair);
-					}
-				}
+		int oldX = state.getPlayerX(), oldY = state.getPlayerY();
+		int result = state.undo();
+		if (result == GameState.BLOCKED) {
+			return;
+		}
+		hintPush = -1;
+		playerInstance.setPosition(state.getPlayerX(), state.getPlayerY());
+		if (result == GameState.PUSHED) {
+			int boxX = 2 * oldX - state.getPlayerX(), boxY = 2 * oldY - state.getPlayerY();
+			GameObject box = boxInstances.remove(boxY * boardWidth + boxX);
+			box.setPosition(oldX, oldY);
+			boxInstances.put(oldY * boardWidth + oldX, box);
+		}
+		if (!state.isDeadlocked()) {
+			warningLabel.setText("");
+		}
+	}
+
+	/**
+	 * Ponawia ostatnio cofnięty ruch gracza.
+	 */
+	protected void redoMove() {
+		if (playerInstance.isMoving() || !state.canRedo()) {
+			return;
+		}
+		int oldX = state.getPlayerX(), oldY = state.getPlayerY();
+		int result = state.redo();
+		for (Direction dir : Direction.getDirections()) {
+			if (oldX + dir.getOffsetX() == state.getPlayerX() && oldY + dir.getOffsetY() == state.getPlayerY()) {
+				animateMove(dir, result);
 			}
 		}
 	}
 
 	/**
-	 * Metoda pomocnicza, która sprawdza czy dana para koordynatów znajduje się na liście.
+	 * Uruchamia animację przesunięcia gracza i ewentualnie przesuniętej skrzynki po wykonaniu ruchu przez silnik gry.
 	 * 
-	 * @param list Lista współrzędnych
-	 * @param coord Szukana współrzędna
-	 * @return True, jeśli współrzędna jest na liście.
+	 * @param dir Kierunek ruchu
+	 * @param result Wynik ruchu (BLOCKED, WALKED lub PUSHED)
 	 */
-	protected static boolean isOnTheList(List<Pair<Integer, Integer>> list, Pair<Integer, Integer> coord) {
-		for (Pair<Integer, Integer> i : list) {
-			if (i.getKey() == coord.getKey() && i.getValue() == coord.getValue()) {
-				return true;
-			}
+	protected void animateMove(Direction dir, int result) {
+		if (result == GameState.BLOCKED) {
+			return;
+		}
+		int boxX = playerInstance.getX() + dir.getOffsetX(), boxY = playerInstance.getY() + dir.getOffsetY();
+		hintPush = -1;
+		if (result == GameState.PUSHED) {
+			GameObject box = boxInstances.remove(boxY * boardWidth + boxX);
+			boxInstances.put((boxY + dir.getOffsetY()) * boardWidth + boxX + dir.getOffsetX(), box);
+			box.move(dir);
 		}
-		return false;
+		playerInstance.move(dir);
 	}
 
 	/**
-	 * Metoda pomocnicza w trakcie algorytmu floodfill. Ma na celu sprawdzenie, czy dana współrzędna mapy nadaje się do kontynuacji działania algorytmu (czyli jeśli współrzędne są prawidłowe i jeśli nie ma ściany na danej współrzędnej).
+	 * Metoda wywoływana po zakończeniu animacji ruchu obiektu.
 	 * 
-	 * @param coord Współrzędna mapy
-	 * @return True, jeśli współrzędna jest prawidłowa do kontynuacji wypełniania mapy.
+	 * @param obj Przesunięty obiekt
 	 */
-	protected boolean isValidFloodfillTile(Pair<Integer, Integer> coord) {
-		if (coord.getKey() < 0 || coord.getKey() >= boardWidth || coord.getValue() < 0
-				|| coord.getValue() >= boardHeight) {
-			return false;
-		}
-		for (GameObject wall : mapPrototypeInstances.get(wallProto)) {
-			if (wall.getX() == coord.getKey() && wall.getY() == coord.getValue()) {
-				return false;
-			}
+	protected void objectMoved(GameObject obj) {
+		if (obj == playerInstance) {
+			checkCompletion();
+		} else if (state.isDeadlocked()) {
+			warningLabel.setText("Skrzynki utknęły i poziomu nie da się ukończyć. Naciśnij R, aby zacząć od nowa.");
 		}
-		return true;
 	}
 
 	/**
-	 * Metoda sprawdzająca czy dany obiekt skrzynki znajduje się na dowolnym polu wygranej.
+	 * Uruchamia w tle wyszukiwanie rozwiązania od bieżącego stanu gry lub przerywa trwające wyszukiwanie.
+	 */
+	protected void toggleSolver() {
+		if (solverTask != null) {
+			stopSolver();
+			return;
+		}
+		solverTask = new SolverTask(state, AnytimeSolver.DEFAULT_TIME_BUDGET, this::solverFinished);
+		solverLabel.setText("Szukanie rozwiązania... (S - przerwij)");
+		solverTask.execute();
+	}
+
+	/**
+	 * Przerywa trwające wyszukiwanie rozwiązania.
+	 */
+	protected void stopSolver() {
+		if (solverTask != null) {
+			solverTask.stop();
+			solverTask = null;
+			solverLabel.setText("Przerwano wyszukiwanie rozwiązania.");
+		}
+	}
+
+	/**
+	 * Wyświetla wynik wyszukiwania rozwiązania. Metoda wywoływana jest w wątku obsługi zdarzeń. Wynik zadania, które nie jest już bieżącym zadaniem, jest pomijany.
 	 * 
-	 * @param obj Obiekt skrzynki
-	 * @return True, jeśli skrzynka jest na polu wygranej.
+	 * @param task Zakończone zadanie
+	 * @param result Wynik solvera
 	 */
-	protected boolean isBoxOnWinArea(GameObject obj) {
-		for (GameObject winArea : mapPrototypeInstances.get(winAreaProto)) {
-			if (winArea.getX() == obj.getX() && winArea.getY() == obj.getY()) {
-				return true;
-			}
+	protected void solverFinished(SolverTask task, AnytimeResult result) {
+		if (task != solverTask) {
+			return;
+		}
+		hints.store(task.getBoard(), result);
+		solverTask = null;
+		switch (result.getStatus()) {
+		case SolverResult.SOLVED:
+			solverLabel.setText("Rozwiązanie: " + result.getPushes() + " przesunięć, " + result.getMoves() + " ruchów"
+					+ (result.isOptimal() ? " (optymalne)." : " (co najmniej " + result.getLowerBound() + " przesunięć)."));
+			break;
+		case SolverResult.UNSOLVABLE:
+			solverLabel.setText("Z tego stanu nie da się ukończyć poziomu.");
+			break;
+		default:
+			solverLabel.setText("Nie znaleziono rozwiązania w limicie czasu (co najmniej " + result.getLowerBound()
+					+ " przesunięć).");
+		}
+	}
+
+	/**
+	 * Pokazuje następne przesunięcie z pamięci podręcznej podpowiedzi, a jeśli go tam nie ma - uruchamia wyszukiwanie rozwiązania w tle.
+	 */
+	protected void showHint() {
+		int push = hints.getHint(state);
+		if (push >= 0) {
+			hintPush = push;
+			solverLabel.setText(hints.isOptimal(state) ? "Podpowiedź: przesuń zaznaczoną skrzynkę."
+					: "Podpowiedź: przesuń zaznaczoną skrzynkę (rozwiązanie może nie być optymalne).");
+			repaint();
+		} else if (push == HintService.NO_SOLUTION) {
+			solverLabel.setText("Z tego stanu nie da się ukończyć poziomu.");
+		} else if (solverTask != null) {
+			solverLabel.setText("Trwa wyszukiwanie rozwiązania...");
+		} else {
+			solverTask = new SolverTask(state, AnytimeSolver.DEFAULT_TIME_BUDGET, this::hintSolved);
+			solverLabel.setText("Szukanie podpowiedzi...");
+			solverTask.execute();
+		}
+	}
+
+	/**
+	 * Zapamiętuje wynik wyszukiwania uruchomionego dla podpowiedzi i wyświetla podpowiedź, jeśli stan gry się nie zmienił. Wynik zadania, które nie jest już bieżącym zadaniem, jest pomijany.
+	 * 
+	 * @param task Zakończone zadanie
+	 * @param result Wynik solvera
+	 */
+	protected void hintSolved(SolverTask task, AnytimeResult result) {
+		if (task != solverTask) {
+			return;
+		}
+		hints.store(task.getBoard(), result);
+		solverTask = null;
+		if (hints.getHint(state) == HintService.MISS) {
+			solverLabel.setText("Nie znaleziono podpowiedzi w limicie czasu.");
+		} else {
+			showHint();
 		}
-		return false;
+	}
+
+	/**
+	 * Przechodzi do ekranu menu głównego.
+	 */
+	protected void returnToMainMenu() {
+		stopSolver();
+		if (timer != null) {
+			timer.stop();
+			timer = null;
+		}
+		Window.getInstance().changeScreen(MainMenu.getInstance());
 	}
 
 	/**
 	 * Metoda sprawdzająca, czy gracz wygrał grę poprzez ustawienie wszystkich skrzynek na pola wygranej. Jeśli tak się stało, to zostaje wyświetlony komunikat o najlepszych wynikach, a mapa zostaje zatrzymana.
 	 */
 	protected void checkCompletion() {
-		boolean hasGameBeenWon = true;
-		for (GameObject box : mapPrototypeInstances.get(boxProto)) {
-			if (!isBoxOnWinArea(box)) {
-				hasGameBeenWon = false;
-				break;
-			}
-		}
-		if (hasGameBeenWon) {
+		if (!mapEnded && state.isCompleted()) {
 			mapEnded = true;
 			acceptInput = false;
+			stopSolver();
 			System.out.println("WYGRANA!");
 			if (timer != null) {
 				timer.stop();
@@ -851,50 +941,6 @@ public class Board extends JPanel {
 		}
 	}
 
-	/**
-	 * Metoda umieszczająca obiekt o podanym prototypie na danych współrzędnych X i Y mapy.
-	 * 
-	 * @param obj Prototyp obiektu
-	 * @param x Współrzędna X
-	 * @param y Współrzędna Y
-	 * @return Instancja obiektu umieszczona na mapie.
-	 * @throws Exception Jeśli prototyp nie znajduje się w słowniku prototypów planszy.
-	 */
-	protected GameObject placeObject(GameObject obj, int x, int y) throws Exception {
-		if (x < 0 || y < 0 || x >= boardWidth || y >= boardHeight) {
-			return null;
-		}
-		if (!mapPrototypeInstances.containsKey(obj)) {
-			throw new Exception("Board::placeObject - Object is not in the dictionary!");
-		}
-		GameObject go = GameObject.placeInstance(obj, x, y);
-		mapPrototypeInstances.get(obj).add(go);
-		return go;
-	}
-
-	/**
-	 * Pobiera najbardziej pierwszoplanowy obiekt (kolejno: gracz, skrzynka, pole wygranej, ściana, podłoga) na danych współrzędnych na mapie.
-	 * 
-	 * @param x Współrzędna X
-	 * @param y Współrzędna Y
-	 * @return Instancja obiektu lub null, jeśli taki nie istnieje.
-	 */
-	public GameObject getObjectAt(int x, int y) {
-		if (playerInstance.getX() == x && playerInstance.getY() == y) {
-			return playerInstance;
-		}
-		LinkedList<GameObject> list = new LinkedList<>(mapPrototypeInstances.keySet());
-		Iterator<GameObject> it = list.descendingIterator();
-		while (it.hasNext()) {
-			for (GameObject go : mapPrototypeInstances.get(it.next())) {
-				if (go.getX() == x && go.getY() == y) {
-					return go;
-				}
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * Zwraca szerokość planszy w pikselach.
 	 * 
@@ -913,6 +959,15 @@ public class Board extends JPanel {
 		return boardHeight;
 	}
 
+	/**
+	 * Zwraca wczytany poziom.
+	 * 
+	 * @return Poziom wyświetlany na planszy.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
 	/**
 	 * Zwracza czy mapa się skończyła.
 	 * 
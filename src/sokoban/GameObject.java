@@ -12,7 +12,7 @@ import sokoban.util.Direction;
 import sokoban.util.Pair;
 
 /**
- * Klasa reprezentująca dowolny obiekt mapy tj. skrzynka, gracz czy ściana. Każdy z obiektów ma określone cechy tj. możliwość przesuwania oraz możliwość przesuwania innych obiektów przez ten obiekt.
+ * Klasa reprezentująca ruchomy obiekt rysowany na planszy tj. skrzynka czy gracz. Obiekt odpowiada wyłącznie za wyświetlanie i animację ruchu - zasady gry wykonywane są przez silnik gry (pakiet sokoban.engine).
  * 
  * @author Maciej Budrowski
  *
@@ -55,24 +55,21 @@ public class GameObject implements Cloneable {
 				GameObject.this.x = GameObject.this.x + moveDirection.getOffsetX();
 				GameObject.this.y = GameObject.this.y + moveDirection.getOffsetY();
 				GameObject.this.transform = null;
-				GameObject.this.parent.checkCompletion();
 				GameObject.this.isMoving = false;
+				GameObject.this.parent.objectMoved(GameObject.this);
 			}
 			GameObject.this.parent.repaint();
 		}
 
 	}
 
-	protected boolean canMoveThrough, canBeMoved;
 	protected int x, y;
 	protected Board parent;
 	protected AffineTransform transform;
 	protected boolean isMoving = false;
 
-	public GameObject(Board parent, boolean canMoveThrough, boolean canBeMoved) {
+	public GameObject(Board parent) {
 		this.parent = parent;
-		this.canMoveThrough = canMoveThrough;
-		this.canBeMoved = canBeMoved;
 	}
 
 	/**
@@ -82,8 +79,6 @@ public class GameObject implements Cloneable {
 	 */
 	protected GameObject(GameObject proto) {
 		this.parent = proto.parent;
-		this.canMoveThrough = proto.canMoveThrough;
-		this.canBeMoved = proto.canBeMoved;
 		this.x = proto.x;
 		this.y = proto.y;
 	}
@@ -117,62 +112,37 @@ public class GameObject implements Cloneable {
 	}
 
 	/**
-	 * Metoda inicjująca polecenie ruchu obiektu w danym kierunku.
+	 * Metoda rozpoczynająca animację ruchu obiektu w danym kierunku. Ruch musi zostać wcześniej zatwierdzony przez silnik gry.
 	 * 
 	 * @param dir Kierunek ruchu
 	 */
 	public void move(Direction dir) {
-		move(dir, true);
+		if (isMoving) {
+			return;
+		}
+		isMoving = true;
+		Mover mover = new Mover(dir);
+		mover.start();
 	}
 
 	/**
-	 * Metoda pomocnicza do inicjacji polecenie ruchu obiektu w danym kierunku.
+	 * Metoda przenosząca obiekt natychmiast (bez animacji) na podane współrzędne.
 	 * 
-	 * @param dir Kierunek ruchu
-	 * @param initiatedMove Jeśli true, to znaczy, że ruch został rozpoczęty w tym obiekcie (np. obiekt gracza przesunięty poprzez naciśnięcie klawisza); jeśli false, to znaczy, że nastąpiła próba przesunięcia obiektu przez inny obiekt (np. obiekt skrzynki przesuwany przez obiekt gracza).
+	 * @param x Współrzędna X na mapie
+	 * @param y Współrzędna Y na mapie
 	 */
-	protected synchronized void move(Direction dir, boolean initiatedMove) {
-		if (!canMove(dir, initiatedMove)) {
-			return;
-		}
-		int newX = x + dir.getOffsetX(), newY = y + dir.getOffsetY();
-		if (!isMoving) {
-			isMoving = true;
-			Mover mover = new Mover(dir);
-			mover.start();
-			if (initiatedMove) {
-				if (parent.getObjectAt(newX, newY) != null) {
-					parent.getObjectAt(newX, newY).move(dir, false);
-				}
-			}
-		}
+	public void setPosition(int x, int y) {
+		this.x = x;
+		this.y = y;
 	}
 
 	/**
-	 * Metoda pomocnicza informująca o tym, czy obiekt może poruszyć się w danym kierunku.
+	 * Metoda informująca o tym, czy obiekt jest w trakcie animacji ruchu.
 	 * 
-	 * @param dir Kierunek ruchu
-	 * @param initiatedMove Jeśli true, to znaczy, że ruch został rozpoczęty w tym obiekcie (np. obiekt gracza przesunięty poprzez naciśnięcie klawisza); jeśli false, to znaczy, że nastąpiła próba przesunięcia obiektu przez inny obiekt (np. obiekt skrzynki przesuwany przez obiekt gracza).
-	 * @return True, jeśli może się poruszyć, w przeciwieństwie - false.
+	 * @return True, jeśli obiekt się porusza.
 	 */
-	protected boolean canMove(Direction dir, boolean initiatedMove) {
-		if (!canBeMoved) {
-			return false;
-		}
-		int newX = x + dir.getOffsetX(), newY = y + dir.getOffsetY();
-		if (newX < 0 || newY < 0 || newX >= parent.getWidth() || newY >= parent.getHeight()) {
-			return false;
-		}
-		if (parent.getObjectAt(newX, newY) == null) {
-			return true;
-		}
-		if (parent.getObjectAt(newX, newY).canMoveThrough) {
-			return true;
-		}
-		if (initiatedMove) {
-			return parent.getObjectAt(newX, newY).canMove(dir, false);
-		}
-		return false;
+	public boolean isMoving() {
+		return isMoving;
 	}
 
 	/**
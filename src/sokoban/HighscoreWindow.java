@@ -18,6 +18,8 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
+import sokoban.engine.LevelIndex;
+import sokoban.engine.LevelMetadata;
 import sokoban.util.Highscores;
 import sokoban.util.Pair;
 
@@ -73,6 +75,16 @@ public class HighscoreWindow extends JFrame {
 				List<Pair<String, Double>> highscores = Highscores.getHighscoresForMap((MapInfo) mapsDropdownList.getSelectedItem());
 				NumberFormat format = new DecimalFormat("0.0");
 				int y = 0;
+				MapInfo selected = (MapInfo) mapsDropdownList.getSelectedItem();
+				LevelMetadata level = LevelIndex.getInstance().findByFingerprint(selected.getFingerprint());
+				if (level != null) {
+					JLabel levelLabel = new JLabel("Rozmiar mapy: " + level);
+					gc2.gridx = 0;
+					gc2.gridy = y++;
+					gc2.gridwidth = 2;
+					scoresPanel.add(levelLabel, gc2);
+					gc2.gridwidth = 1;
+				}
 				if (highscores == null) {
 					JLabel infoLabel = new JLabel("Brak najlepszych wyników.");
 					gc2.gridx = 0;
@@ -81,7 +93,8 @@ public class HighscoreWindow extends JFrame {
 					scoresPanel.add(infoLabel, gc2);
 				}
 				else {
-					JLabel infoLabel = new JLabel("Najlepsze wyniki dla tej mapy:");
+					JLabel infoLabel = new JLabel("Najlepsze wyniki dla tej mapy (wszystkich wyników: "
+							+ Highscores.getScoreCount(selected) + "):");
 					gc2.gridx = 0;
 					gc2.gridy = y++;
 					scoresPanel.add(infoLabel, gc2);
@@ -8,6 +8,10 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
@@ -16,8 +20,13 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
+import sokoban.engine.LevelIndex;
+import sokoban.engine.LevelMetadata;
 import sokoban.exceptions.InvalidMapFileException;
+import sokoban.util.Highscores;
 
 /**
  * Klasa reprezentująca zawartość ekranu wyboru poziomu.
@@ -165,11 +174,64 @@ public class LevelSelectScreen extends JPanel {
 		add(label, c);
 
 		setFocusable(true);
+
+		// rekordy mogą zostać zmienione przez inny uruchomiony program
+		Highscores.addChangeListener(() -> SwingUtilities.invokeLater(() -> {
+			if (isShowing()) {
+				refreshLevelInfo();
+			}
+		}));
+	}
+
+	/**
+	 * Pobiera w tle metadane poziomów z indeksu poziomów (wczytując mapy, których nie ma jeszcze w indeksie) i uaktualnia opisy przycisków (wymiary, liczba skrzynek i najlepszy czas).
+	 */
+	protected void refreshLevelInfo() {
+		new SwingWorker<LevelMetadata[], Void>() {
+			@Override
+			protected LevelMetadata[] doInBackground() {
+				LevelIndex index = LevelIndex.getInstance();
+				LevelMetadata[] levels = new LevelMetadata[buttons.length];
+				for (int i = 0; i < levels.length; i++) {
+					levels[i] = index.getResource("/maps/" + (i + 1) + ".map");
+				}
+				try {
+					index.save();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				return levels;
+			}
+
+			@Override
+			protected void done() {
+				try {
+					showLevelInfo(get());
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+		}.execute();
+	}
+
+	private void showLevelInfo(LevelMetadata[] levels) {
+		NumberFormat format = new DecimalFormat("0.0");
+		for (int i = 1; i <= buttons.length; i++) {
+			LevelMetadata level = levels[i - 1];
+			if (level == null) {
+				buttons[i - 1].setText("Poziom " + i);
+				continue;
+			}
+			Double best = Highscores.getBestTime(level.getFingerprint());
+			buttons[i - 1].setText("<html><center>Poziom " + i + "<br><small>" + level
+					+ (best == null ? "" : ", rekord: " + format.format(best) + " s") + "</small></center></html>");
+		}
 	}
 
 	@Override
 	public void requestFocus() {
 		super.requestFocus();
+		refreshLevelInfo();
 		buttons[0].requestFocus();
 	}
 }
@@ -1,6 +1,7 @@
 package sokoban;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
@@ -8,9 +9,14 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
@@ -18,8 +24,12 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import sokoban.engine.LevelIndex;
+import sokoban.engine.LevelMetadata;
+import sokoban.engine.LevelPack;
 import sokoban.exceptions.InvalidMapFileException;
 
 /**
@@ -42,6 +52,103 @@ public class MainMenu extends JPanel {
 		return instance;
 	}
 
+	/**
+	 * Panel dodatkowy okna wyboru pliku, wyświetlający informacje o zaznaczonej mapie lub zestawie poziomów z indeksu poziomów (LevelIndex). Po zmianie katalogu indeks jest w tle uaktualniany dla wszystkich plików katalogu, więc zaznaczanie kolejnych plików zwykle nie wymaga ich wczytywania.
+	 * 
+	 * @author Maciej Budrowski
+	 *
+	 */
+	private static class LevelFileInfo extends JLabel implements PropertyChangeListener {
+
+		private File selected;
+
+		public LevelFileInfo(JFileChooser chooser) {
+			setPreferredSize(new Dimension(180, 0));
+			setVerticalAlignment(JLabel.TOP);
+			setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+			chooser.addPropertyChangeListener(this);
+			refreshDirectory(chooser.getCurrentDirectory());
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent evt) {
+			if (JFileChooser.DIRECTORY_CHANGED_PROPERTY.equals(evt.getPropertyName())) {
+				refreshDirectory((File) evt.getNewValue());
+			} else if (JFileChooser.SELECTED_FILE_CHANGED_PROPERTY.equals(evt.getPropertyName())) {
+				showFile((File) evt.getNewValue());
+			}
+		}
+
+		private void refreshDirectory(File directory) {
+			if (directory == null) {
+				return;
+			}
+			new SwingWorker<Void, Void>() {
+				@Override
+				protected Void doInBackground() throws IOException {
+					LevelIndex index = LevelIndex.getInstance();
+					index.refreshDirectory(directory.toPath());
+					index.save();
+					return null;
+				}
+
+				@Override
+				protected void done() {
+					try {
+						get();
+					} catch (InterruptedException | ExecutionException e) {
+						e.printStackTrace();
+					}
+				}
+			}.execute();
+		}
+
+		private void showFile(File file) {
+			selected = file;
+			setText("");
+			if (file == null || !file.isFile()) {
+				return;
+			}
+			new SwingWorker<LevelMetadata[], Void>() {
+				@Override
+				protected LevelMetadata[] doInBackground() throws IOException {
+					return LevelIndex.getInstance().getFile(file.toPath());
+				}
+
+				@Override
+				protected void done() {
+					if (file != selected) {
+						return;
+					}
+					try {
+						setText(describe(file, get()));
+					} catch (InterruptedException | ExecutionException e) {
+						setText("Nie udało się odczytać pliku.");
+					}
+				}
+			}.execute();
+		}
+
+		private static String describe(File file, LevelMetadata[] levels) {
+			if (file.getName().toLowerCase().endsWith(".map")) {
+				LevelMetadata level = levels.length == 0 ? null : levels[0];
+				if (level == null) {
+					return "Nieprawidłowy plik mapy.";
+				}
+				String name = level.getName() == null || level.getName().isEmpty() ? file.getName() : level.getName();
+				return "<html><b>" + name + "</b><br>" + level + "</html>";
+			}
+			int valid = 0;
+			for (LevelMetadata level : levels) {
+				if (level != null) {
+					valid++;
+				}
+			}
+			return "<html><b>Zestaw poziomów</b><br>poziomów: " + valid
+					+ (valid < levels.length ? "<br>nieprawidłowych: " + (levels.length - valid) : "") + "</html>";
+		}
+	}
+
 	JButton newGameButton;
 
 	private MainMenu() {
@@ -81,13 +188,26 @@ public class MainMenu extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				JFileChooser fc = new JFileChooser(".");
 				FileNameExtensionFilter filter = new FileNameExtensionFilter("Pliki mapy Sokoban (*.map)", "map");
+				fc.addChoosableFileFilter(new FileNameExtensionFilter(
+						"Zestawy poziomów (*." + String.join(", *.", LevelPack.EXTENSIONS) + ")", LevelPack.EXTENSIONS));
 				fc.setFileFilter(filter);
+				fc.setAccessory(new LevelFileInfo(fc));
 				int returnVal = fc.showOpenDialog(MainMenu.this);
 
 		        if (returnVal == JFileChooser.APPROVE_OPTION) {
 		            File file = fc.getSelectedFile();
 		            try {
-		            	Window.getInstance().changeScreen(new Board(file));
+		            	if (file.getName().toLowerCase().endsWith(".map")) {
+		            		Window.getInstance().changeScreen(new Board(file));
+		            	} else {
+		            		Window.getInstance().changeScreen(new PackSelectScreen(LevelPack.open(file.toPath())));
+		            	}
+		            }
+		            catch (IOException ex) {
+						JOptionPane.showMessageDialog(null,
+							    ex.getMessage(),
+							    "Błąd wczytywania zestawu poziomów",
+							    JOptionPane.ERROR_MESSAGE);
 		            }
 		            catch (InvalidMapFileException ex) {
 						JOptionPane.showMessageDialog(null,
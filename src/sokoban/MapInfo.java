@@ -1,21 +1,28 @@
 package sokoban;
 
+import sokoban.util.Fingerprint;
+
 /**
- * Struktura przechowująca informacje o mapie tj. nazwa i jej struktura.
+ * Struktura przechowująca informacje o mapie tj. nazwa i odcisk jej struktury. Tożsamość mapy wyznacza wyłącznie 64-bitowy odcisk (Fingerprint), obliczany raz przy wczytywaniu poziomu, dzięki czemu porównywanie i haszowanie nie przegląda całej struktury mapy.
  * 
  * @author Maciej Budrowski
  *
  */
 public class MapInfo {
-	private String mapStructure, mapName;
+	private String mapName;
+	private long fingerprint;
 	
 	public MapInfo() {
 		
 	}
 	
-	public MapInfo(String mapName, String mapStructure) {
+	public MapInfo(String mapName, long fingerprint) {
 		this.mapName = mapName;
-		this.mapStructure = mapStructure;
+		this.fingerprint = fingerprint;
+	}
+	
+	public MapInfo(String mapName, String mapStructure) {
+		this(mapName, Fingerprint.of(mapStructure));
 	}
 	
 	/**
@@ -37,52 +44,38 @@ public class MapInfo {
 	}
 	
 	/**
-	 * Zwraca strukturę mapy
+	 * Zwraca odcisk struktury mapy
 	 * 
-	 * @return Struktura mapy
+	 * @return Odcisk struktury mapy
 	 */
-	public String getMapStructure() {
-		return mapStructure;
+	public long getFingerprint() {
+		return fingerprint;
 	}
 	
 	/**
-	 * Ustawia strukturę mapy
+	 * Ustawia odcisk struktury mapy
 	 * 
-	 * @param mapStructure Struktura mapy
+	 * @param fingerprint Odcisk struktury mapy
 	 */
-	public void setMapStructure(String mapStructure) {
-		this.mapStructure = mapStructure;
+	public void setFingerprint(long fingerprint) {
+		this.fingerprint = fingerprint;
 	}
 	
 	@Override
 	public boolean equals(Object obj) {
-		try {
-			MapInfo oth = (MapInfo) obj;
-			if (getMapName().equals(oth.getMapName()) && getMapStructure().equals(oth.getMapStructure())) {
-				return true;
-			}
-		}
-		catch (ClassCastException e) {
+		if (!(obj instanceof MapInfo)) {
 			return false;
 		}
-		return false;
+		return fingerprint == ((MapInfo) obj).fingerprint;
 	}
 	
 	@Override
 	public int hashCode() {
-		int hash = 7;
-		for (int i = 0; i < getMapName().length(); i++) {
-		    hash = hash * 31 + getMapName().charAt(i);
-		}
-		for (int i = 0; i < getMapStructure().length(); i++) {
-			hash = hash * 47 + getMapStructure().charAt(i);
-		}
-		return hash;
+		return Long.hashCode(fingerprint);
 	}
 	
 	@Override
 	public String toString() {
-		// TODO Auto-generated method stub
 		return getMapName();
 	}
 }
@@ -0,0 +1,192 @@
+package sokoban;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+
+import sokoban.engine.LevelIndex;
+import sokoban.engine.LevelMetadata;
+import sokoban.engine.LevelPack;
+import sokoban.exceptions.InvalidMapFileException;
+
+/**
+ * Klasa reprezentująca ekran wyboru poziomu z zestawu poziomów. Lista pobiera tytuły z zestawu dopiero przy wyświetlaniu wierszy, a poziom wczytywany jest dopiero po jego wybraniu. Wymiary i liczba skrzynek poziomów pobierane są w tle z indeksu poziomów (LevelIndex), który wczytuje poziomy zestawu tylko wtedy, gdy plik zestawu się zmienił.
+ * 
+ * @author Maciej Budrowski
+ *
+ */
+@SuppressWarnings("serial")
+public class PackSelectScreen extends JPanel {
+
+	/**
+	 * Model listy poziomów odczytujący tytuły z zestawu na żądanie.
+	 * 
+	 * @author Maciej Budrowski
+	 *
+	 */
+	protected class PackListModel extends AbstractListModel<String> {
+
+		@Override
+		public int getSize() {
+			return pack.size();
+		}
+
+		@Override
+		public String getElementAt(int index) {
+			String title = (index + 1) + ". " + pack.getTitle(index);
+			if (levels != null && index < levels.length && levels[index] != null) {
+				title += " (" + levels[index] + ")";
+			}
+			return title;
+		}
+
+		void metadataLoaded() {
+			fireContentsChanged(this, 0, getSize() - 1);
+		}
+	}
+
+	protected final LevelPack pack;
+	protected JList<String> list;
+	protected volatile LevelMetadata[] levels;
+
+	public PackSelectScreen(LevelPack pack) {
+		this.pack = pack;
+		setBackground(Color.cyan);
+		setLayout(new GridBagLayout());
+		GridBagConstraints c = new GridBagConstraints();
+		c.fill = GridBagConstraints.HORIZONTAL;
+
+		JLabel label = new JLabel(pack.getPath().getFileName() + " (" + pack.size() + " poziomów)");
+		label.setHorizontalAlignment(JLabel.CENTER);
+		Font font = label.getFont();
+		label.setFont(new Font(font.getName(), Font.BOLD, 24));
+		c.gridx = 0;
+		c.gridy = 0;
+		c.gridwidth = 2;
+		c.insets = new Insets(10, 10, 10, 10);
+		add(label, c);
+
+		PackListModel model = new PackListModel();
+		list = new JList<>(model);
+		list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		list.setPrototypeCellValue("0000. Nazwa poziomu o typowej długości (00x00, skrzynek: 00)");
+		list.setSelectedIndex(0);
+		list.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "enter");
+		list.getActionMap().put("enter", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedLevel();
+			}
+		});
+		list.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					openSelectedLevel();
+				}
+			}
+		});
+		JScrollPane scrollPane = new JScrollPane(list);
+		scrollPane.setPreferredSize(new Dimension(400, 300));
+		c.gridy = 1;
+		add(scrollPane, c);
+
+		JButton playButton = new JButton("Graj");
+		playButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedLevel();
+			}
+		});
+		c.gridy = 2;
+		c.gridwidth = 1;
+		add(playButton, c);
+
+		JButton returnButton = new JButton("Powrót do menu głównego");
+		returnButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				Window.getInstance().changeScreen(MainMenu.getInstance());
+			}
+		});
+		c.gridx = 1;
+		add(returnButton, c);
+
+		setFocusable(true);
+		loadMetadata(model);
+	}
+
+	/**
+	 * Pobiera w tle metadane poziomów zestawu z indeksu poziomów i odświeża listę.
+	 *
+	 * @param model Model listy poziomów
+	 */
+	protected void loadMetadata(PackListModel model) {
+		new SwingWorker<LevelMetadata[], Void>() {
+			@Override
+			protected LevelMetadata[] doInBackground() throws IOException {
+				LevelIndex index = LevelIndex.getInstance();
+				LevelMetadata[] result = index.getPack(pack);
+				index.save();
+				return result;
+			}
+
+			@Override
+			protected void done() {
+				try {
+					levels = get();
+					model.metadataLoaded();
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Wczytuje zaznaczony poziom z zestawu i przechodzi do widoku gry.
+	 */
+	protected void openSelectedLevel() {
+		int index = list.getSelectedIndex();
+		if (index < 0) {
+			return;
+		}
+		try {
+			Window.getInstance().changeScreen(new Board(pack.getLevel(index)));
+		} catch (InvalidMapFileException ex) {
+			JOptionPane.showMessageDialog(null,
+				    ex.getMessage(),
+				    "Błąd wczytywania mapy",
+				    JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	@Override
+	public void requestFocus() {
+		super.requestFocus();
+		list.requestFocus();
+	}
+}
@@ -0,0 +1,68 @@
+package sokoban;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import javax.swing.SwingWorker;
+
+import sokoban.engine.GameState;
+import sokoban.solver.AnytimeResult;
+import sokoban.solver.AnytimeSolver;
+import sokoban.solver.SolverBoard;
+
+/**
+ * Zadanie uruchamiające solver w tle, tak aby nie blokować wątku obsługi zdarzeń Swing. Stan gry kopiowany jest w chwili utworzenia zadania, a wynik przekazywany jest do wątku obsługi zdarzeń po zakończeniu przeszukiwania - razem z samym zadaniem, aby odbiorca mógł pominąć wynik zadania, które zdążył już zastąpić innym.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class SolverTask extends SwingWorker<AnytimeResult, Void> {
+
+	protected final SolverBoard board;
+	protected final AnytimeSolver solver;
+	protected final BiConsumer<SolverTask, AnytimeResult> onDone;
+	protected volatile boolean stopped = false;
+
+	public SolverTask(GameState state, long timeBudget, BiConsumer<SolverTask, AnytimeResult> onDone) {
+		this.board = new SolverBoard(state);
+		this.solver = new AnytimeSolver(board);
+		this.solver.setTimeBudget(timeBudget);
+		this.onDone = onDone;
+	}
+
+	@Override
+	protected AnytimeResult doInBackground() {
+		return solver.solve();
+	}
+
+	@Override
+	protected void done() {
+		// cancel(false) nie zmienia stanu zadania, które zdążyło się już zakończyć, więc sam isCancelled() nie wystarcza
+		if (stopped || isCancelled()) {
+			return;
+		}
+		try {
+			onDone.accept(this, get());
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Zwraca dane poziomu ze stanem, od którego uruchomiono przeszukiwanie.
+	 *
+	 * @return Dane poziomu.
+	 */
+	public SolverBoard getBoard() {
+		return board;
+	}
+
+	/**
+	 * Przerywa przeszukiwanie bez wywoływania funkcji obsługi wyniku - także wtedy, gdy przeszukiwanie już się zakończyło, a wynik czeka na przekazanie do wątku obsługi zdarzeń.
+	 */
+	public void stop() {
+		stopped = true;
+		solver.cancel();
+		cancel(false);
+	}
+}
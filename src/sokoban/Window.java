@@ -1,6 +1,6 @@
 package sokoban;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -51,16 +51,17 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Główna metoda rozpoczynąca działanie programu. Wczytuje najlepsze wyniki z pliku, a następnie tworzy okno aplikacji.
+	 * Główna metoda rozpoczynąca działanie programu. Wczytuje najlepsze wyniki z pliku, rejestruje zapisanie oczekujących wyników przy zamykaniu programu, a następnie tworzy okno aplikacji.
 	 * 
 	 * @param args Argumenty przekazywane przy uruchamianiu programu (niewykorzystywane).
 	 */
 	public static void main(String[] args) {
 		try {
 			Highscores.loadHighscores();
-		} catch (FileNotFoundException|JSONException e) {
+		} catch (IOException|JSONException e) {
 			e.printStackTrace();
 		}
+		Runtime.getRuntime().addShutdownHook(new Thread(Highscores::flush, "highscores-flush"));
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
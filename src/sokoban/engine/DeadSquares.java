@@ -0,0 +1,63 @@
+package sokoban.engine;
+
+import sokoban.util.TileGrid;
+
+/**
+ * Tablica martwych pól poziomu, czyli pól podłogi, z których żadna skrzynka nie może zostać doprowadzona do pola wygranej. Tablica wyznaczana jest raz dla każdego poziomu przez odwrotne przeciąganie skrzynek z pól wygranej i przechowywana w obiekcie poziomu (Level.getDeadSquares()), więc sprawdzenie pojedynczego pola kosztuje O(1), a tablica jest zwalniana razem z poziomem.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class DeadSquares {
+
+	protected final long[] dead;
+
+	protected DeadSquares(Level level) {
+		int width = level.getWidth(), height = level.getHeight(), cells = width * height;
+		boolean[] alive = new boolean[cells];
+		int[] queue = new int[cells];
+		int tail = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			if ((level.getTile(cell) & (TileGrid.GOAL | TileGrid.FLOOR)) == (TileGrid.GOAL | TileGrid.FLOOR)) {
+				alive[cell] = true;
+				queue[tail++] = cell;
+			}
+		}
+		int[] dx = { 0, 1, 0, -1 }, dy = { -1, 0, 1, 0 };
+		for (int head = 0; head < tail; head++) {
+			int cell = queue[head], x = cell % width, y = cell / width;
+			for (int dir = 0; dir < 4; dir++) {
+				int x1 = x + dx[dir], y1 = y + dy[dir], x2 = x1 + dx[dir], y2 = y1 + dy[dir];
+				if (x2 < 0 || y2 < 0 || x2 >= width || y2 >= height) {
+					continue;
+				}
+				int previous = y1 * width + x1;
+				if (alive[previous] || !isFloor(level, previous) || !isFloor(level, y2 * width + x2)) {
+					continue;
+				}
+				alive[previous] = true;
+				queue[tail++] = previous;
+			}
+		}
+		dead = new long[(cells + 63) >>> 6];
+		for (int cell = 0; cell < cells; cell++) {
+			if (isFloor(level, cell) && !alive[cell]) {
+				dead[cell >>> 6] |= 1L << cell;
+			}
+		}
+	}
+
+	private static boolean isFloor(Level level, int cell) {
+		return (level.getTile(cell) & TileGrid.FLOOR) != 0;
+	}
+
+	/**
+	 * Sprawdza, czy pole jest martwe, tzn. czy skrzynka stojąca na nim nigdy nie dotrze do pola wygranej.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli pole jest martwe.
+	 */
+	public boolean isDead(int index) {
+		return (dead[index >>> 6] & (1L << index)) != 0;
+	}
+}
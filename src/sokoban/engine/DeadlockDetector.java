@@ -0,0 +1,197 @@
+package sokoban.engine;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import sokoban.util.TileGrid;
+
+/**
+ * Klasa wykrywająca zakleszczenia powstałe po przesunięciu skrzynki. Sprawdzane jest wyłącznie otoczenie przesuniętej skrzynki: czy trafiła na martwe pole, czy wraz z sąsiednimi skrzynkami tworzy zamrożoną grupę (żadna ze skrzynek nie może się już ruszyć, a któraś nie stoi na polu wygranej) oraz czy nie zamknęła niewielkiego obszaru (korala), do którego gracz nie ma dostępu, a który zawiera puste pole wygranej otoczone wyłącznie zamrożonymi skrzynkami. Obiekt przechowuje tablice robocze, więc każdy wątek powinien mieć własną instancję.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class DeadlockDetector {
+
+	public static final int MAX_CORRAL_SIZE = 64;
+
+	protected final Level level;
+	protected final DeadSquares deadSquares;
+	protected final int[] neighbors;
+	protected final boolean[] goal;
+	protected final boolean allGoalsRequired;
+	protected final int[] stamp, queue;
+	protected int current = 0;
+	protected int[] frozen = new int[16];
+	protected int frozenCount;
+
+	public DeadlockDetector(Level level) {
+		this.level = level;
+		this.deadSquares = level.getDeadSquares();
+		int width = level.getWidth(), height = level.getHeight(), cells = width * height;
+		this.neighbors = new int[cells * 4];
+		this.goal = new boolean[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			int x = cell % width, y = cell / width;
+			neighbors[cell * 4] = floorAt(x, y - 1);
+			neighbors[cell * 4 + 1] = floorAt(x + 1, y);
+			neighbors[cell * 4 + 2] = floorAt(x, y + 1);
+			neighbors[cell * 4 + 3] = floorAt(x - 1, y);
+			goal[cell] = (level.getTile(cell) & TileGrid.GOAL) != 0;
+		}
+		this.allGoalsRequired = level.getBoxCount() >= level.getGoalCount();
+		this.stamp = new int[cells];
+		this.queue = new int[cells];
+	}
+
+	private int floorAt(int x, int y) {
+		if (x < 0 || y < 0 || x >= level.getWidth() || y >= level.getHeight()) {
+			return -1;
+		}
+		int cell = y * level.getWidth() + x;
+		return (level.getTile(cell) & TileGrid.FLOOR) != 0 ? cell : -1;
+	}
+
+	/**
+	 * Sprawdza, czy przesunięcie skrzynki na dane pole spowodowało zakleszczenie.
+	 *
+	 * @param box Pole, na które przesunięto skrzynkę
+	 * @param player Pole, na którym stoi gracz po przesunięciu
+	 * @param hasBox Funkcja sprawdzająca, czy na danym polu stoi skrzynka
+	 * @return True, jeśli poziom nie może już zostać ukończony.
+	 */
+	public boolean isDeadlockAfterPush(int box, int player, IntPredicate hasBox) {
+		if (deadSquares.isDead(box)) {
+			return true;
+		}
+		if (isFrozenDeadlock(box, hasBox)) {
+			return true;
+		}
+		for (int dir = 0; dir < 4; dir++) {
+			int cell = neighbors[box * 4 + dir];
+			if (cell >= 0 && cell != player && !hasBox.test(cell) && isCorralDeadlock(cell, player, hasBox)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sprawdza, czy skrzynka należy do zamrożonej grupy skrzynek, w której przynajmniej jedna skrzynka nie stoi na polu wygranej.
+	 *
+	 * @param box Pole skrzynki
+	 * @param hasBox Funkcja sprawdzająca, czy na danym polu stoi skrzynka
+	 * @return True, jeśli grupa jest zakleszczona.
+	 */
+	public boolean isFrozenDeadlock(int box, IntPredicate hasBox) {
+		nextStamp();
+		frozenCount = 0;
+		if (!isFrozen(box, hasBox)) {
+			return false;
+		}
+		for (int i = 0; i < frozenCount; i++) {
+			if (!goal[frozen[i]]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sprawdza rekurencyjnie, czy skrzynka nie może poruszyć się w żadnej osi. Skrzynki już odwiedzone traktowane są jak ściany.
+	 *
+	 * @param box Pole skrzynki
+	 * @param hasBox Funkcja sprawdzająca, czy na danym polu stoi skrzynka
+	 * @return True, jeśli skrzynka jest zamrożona.
+	 */
+	protected boolean isFrozen(int box, IntPredicate hasBox) {
+		stamp[box] = current;
+		if (!isBlocked(box, 1, 3, hasBox) || !isBlocked(box, 0, 2, hasBox)) {
+			return false;
+		}
+		if (frozenCount == frozen.length) {
+			frozen = Arrays.copyOf(frozen, frozenCount * 2);
+		}
+		frozen[frozenCount++] = box;
+		return true;
+	}
+
+	private boolean isBlocked(int box, int dirA, int dirB, IntPredicate hasBox) {
+		int a = neighbors[box * 4 + dirA], b = neighbors[box * 4 + dirB];
+		if (a < 0 || b < 0) {
+			return true;
+		}
+		if (deadSquares.isDead(a) && deadSquares.isDead(b)) {
+			return true;
+		}
+		return isBlockingBox(a, hasBox) || isBlockingBox(b, hasBox);
+	}
+
+	private boolean isBlockingBox(int cell, IntPredicate hasBox) {
+		if (!hasBox.test(cell)) {
+			return false;
+		}
+		return stamp[cell] == current || isFrozen(cell, hasBox);
+	}
+
+	/**
+	 * Sprawdza, czy obszar zawierający dane pole jest niewielkim koralem niedostępnym dla gracza, otoczonym wyłącznie zamrożonymi skrzynkami i zawierającym puste pole wygranej.
+	 *
+	 * @param start Pole należące do obszaru
+	 * @param player Pole gracza
+	 * @param hasBox Funkcja sprawdzająca, czy na danym polu stoi skrzynka
+	 * @return True, jeśli koral jest zakleszczony.
+	 */
+	protected boolean isCorralDeadlock(int start, int player, IntPredicate hasBox) {
+		nextStamp();
+		int region = current;
+		int head = 0, tail = 0;
+		boolean emptyGoal = false;
+		stamp[start] = region;
+		queue[tail++] = start;
+		while (head < tail) {
+			int cell = queue[head++];
+			if (cell == player || tail > MAX_CORRAL_SIZE) {
+				return false;
+			}
+			emptyGoal |= goal[cell];
+			for (int dir = 0; dir < 4; dir++) {
+				int next = neighbors[cell * 4 + dir];
+				if (next < 0 || stamp[next] == region || hasBox.test(next)) {
+					continue;
+				}
+				stamp[next] = region;
+				queue[tail++] = next;
+			}
+		}
+		if (!emptyGoal || !allGoalsRequired) {
+			return false;
+		}
+		int size = tail;
+		int[] border = new int[size * 4];
+		int borderCount = 0;
+		for (int i = 0; i < size; i++) {
+			for (int dir = 0; dir < 4; dir++) {
+				int next = neighbors[queue[i] * 4 + dir];
+				if (next >= 0 && hasBox.test(next)) {
+					border[borderCount++] = next;
+				}
+			}
+		}
+		for (int i = 0; i < borderCount; i++) {
+			nextStamp();
+			frozenCount = 0;
+			if (!isFrozen(border[i], hasBox)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void nextStamp() {
+		if (++current == 0) {
+			Arrays.fill(stamp, 0);
+			current = 1;
+		}
+	}
+}
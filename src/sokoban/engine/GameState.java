@@ -0,0 +1,290 @@
+package sokoban.engine;
+
+import java.util.function.IntPredicate;
+
+import sokoban.util.Direction;
+import sokoban.util.TileGrid;
+
+/**
+ * Klasa reprezentująca stan rozgrywki: położenie gracza i skrzynek. Wszystkie zasady gry wykonywane są synchronicznie i nie zależą od biblioteki Swing, dzięki czemu poziom może być symulowany bez interfejsu graficznego.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class GameState {
+
+	/**
+	 * Ruch jest niemożliwy (ściana, krawędź planszy lub zablokowana skrzynka).
+	 */
+	public static final int BLOCKED = 0;
+	/**
+	 * Gracz przeszedł na sąsiednie pole.
+	 */
+	public static final int WALKED = 1;
+	/**
+	 * Gracz przeszedł na sąsiednie pole przesuwając skrzynkę.
+	 */
+	public static final int PUSHED = 2;
+
+	protected final Level level;
+	protected final TileGrid grid;
+	protected int playerX, playerY;
+	protected int moveCount = 0, pushCount = 0;
+	protected DeadlockDetector deadlockDetector;
+	protected final IntPredicate boxTest;
+	protected boolean deadlocked = false;
+	protected int deadlockMove = 0;
+	protected final MoveLog log = new MoveLog();
+
+	public GameState(Level level) {
+		this.level = level;
+		this.grid = level.copyGrid();
+		this.playerX = level.getPlayerX();
+		this.playerY = level.getPlayerY();
+		this.boxTest = grid::hasBox;
+		this.deadlockDetector = new DeadlockDetector(level);
+	}
+
+	/**
+	 * Włącza lub wyłącza wykrywanie zakleszczeń po każdym przesunięciu skrzynki.
+	 *
+	 * @param enabled True, aby włączyć wykrywanie zakleszczeń
+	 */
+	public void setDeadlockDetection(boolean enabled) {
+		deadlockDetector = enabled ? new DeadlockDetector(level) : null;
+	}
+
+	/**
+	 * Wykonuje ruch gracza w danym kierunku i zapisuje go w dzienniku ruchów. Wykonanie ruchu porzuca cofnięte wcześniej ruchy.
+	 *
+	 * @param dir Kierunek ruchu
+	 * @return BLOCKED, WALKED lub PUSHED w zależności od wyniku ruchu.
+	 */
+	public int move(Direction dir) {
+		int result = step(dir);
+		if (result != BLOCKED) {
+			log.record(directionIndex(dir), result == PUSHED);
+		}
+		return result;
+	}
+
+	/**
+	 * Cofa ostatni ruch gracza (wraz z ewentualnym przesunięciem skrzynki).
+	 *
+	 * @return BLOCKED, jeśli nie ma ruchu do cofnięcia, w przeciwnym wypadku WALKED lub PUSHED w zależności od cofniętego ruchu.
+	 */
+	public int undo() {
+		if (!log.canUndo()) {
+			return BLOCKED;
+		}
+		byte move = log.undo();
+		Direction dir = Direction.getDirections()[MoveLog.getDirection(move)];
+		int oldX = playerX, oldY = playerY;
+		playerX -= dir.getOffsetX();
+		playerY -= dir.getOffsetY();
+		moveCount--;
+		if (deadlocked && moveCount < deadlockMove) {
+			deadlocked = false;
+		}
+		if (!MoveLog.isPush(move)) {
+			return WALKED;
+		}
+		grid.moveBox(grid.index(oldX + dir.getOffsetX(), oldY + dir.getOffsetY()), grid.index(oldX, oldY));
+		pushCount--;
+		return PUSHED;
+	}
+
+	/**
+	 * Ponawia ostatnio cofnięty ruch gracza.
+	 *
+	 * @return BLOCKED, jeśli nie ma ruchu do ponowienia, w przeciwnym wypadku WALKED lub PUSHED.
+	 */
+	public int redo() {
+		if (!log.canRedo()) {
+			return BLOCKED;
+		}
+		return step(Direction.getDirections()[MoveLog.getDirection(log.redo())]);
+	}
+
+	/**
+	 * Sprawdza, czy jest ruch do cofnięcia.
+	 *
+	 * @return True, jeśli można cofnąć ruch.
+	 */
+	public boolean canUndo() {
+		return log.canUndo();
+	}
+
+	/**
+	 * Sprawdza, czy jest ruch do ponowienia.
+	 *
+	 * @return True, jeśli można ponowić ruch.
+	 */
+	public boolean canRedo() {
+		return log.canRedo();
+	}
+
+	/**
+	 * Wykonuje ruch gracza bez zapisywania go w dzienniku ruchów.
+	 *
+	 * @param dir Kierunek ruchu
+	 * @return BLOCKED, WALKED lub PUSHED w zależności od wyniku ruchu.
+	 */
+	protected int step(Direction dir) {
+		int newX = playerX + dir.getOffsetX(), newY = playerY + dir.getOffsetY();
+		if (!isWalkable(newX, newY)) {
+			return BLOCKED;
+		}
+		int target = grid.index(newX, newY);
+		int result = WALKED;
+		if (grid.hasBox(target)) {
+			int boxX = newX + dir.getOffsetX(), boxY = newY + dir.getOffsetY();
+			if (!isWalkable(boxX, boxY) || grid.hasBox(grid.index(boxX, boxY))) {
+				return BLOCKED;
+			}
+			grid.moveBox(target, grid.index(boxX, boxY));
+			pushCount++;
+			result = PUSHED;
+			if (deadlockDetector != null && !deadlocked) {
+				deadlocked = deadlockDetector.isDeadlockAfterPush(grid.index(boxX, boxY), target, boxTest);
+				deadlockMove = moveCount + 1;
+			}
+		}
+		playerX = newX;
+		playerY = newY;
+		moveCount++;
+		return result;
+	}
+
+	/**
+	 * Zwraca indeks kierunku w tablicy Direction.getDirections().
+	 *
+	 * @param dir Kierunek
+	 * @return Indeks kierunku.
+	 */
+	protected static int directionIndex(Direction dir) {
+		Direction[] directions = Direction.getDirections();
+		for (int i = 0; i < directions.length; i++) {
+			if (directions[i] == dir) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("GameState - Unknown direction");
+	}
+
+	/**
+	 * Sprawdza, czy gracz lub skrzynka może stanąć na danym polu, pomijając inne skrzynki.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return True, jeśli pole leży na planszy i nie jest ścianą.
+	 */
+	protected boolean isWalkable(int x, int y) {
+		return grid.isInside(x, y) && !grid.isWall(grid.index(x, y));
+	}
+
+	/**
+	 * Sprawdza, czy wszystkie skrzynki stoją na polach wygranej.
+	 *
+	 * @return True, jeśli poziom został ukończony.
+	 */
+	public boolean isCompleted() {
+		return grid.areAllBoxesOnGoals();
+	}
+
+	/**
+	 * Sprawdza, czy któreś z dotychczasowych przesunięć doprowadziło do zakleszczenia, po którym poziomu nie da się już ukończyć.
+	 *
+	 * @return True, jeśli wykryto zakleszczenie.
+	 */
+	public boolean isDeadlocked() {
+		return deadlocked;
+	}
+
+	/**
+	 * Sprawdza, czy na danym polu stoi skrzynka.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return True, jeśli na polu stoi skrzynka.
+	 */
+	public boolean hasBox(int x, int y) {
+		return grid.isInside(x, y) && grid.hasBox(grid.index(x, y));
+	}
+
+	/**
+	 * Sprawdza, czy pole jest martwe, tzn. czy skrzynka postawiona na nim nie może już dotrzeć do żadnego pola wygranej.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return True, jeśli pole jest martwe.
+	 */
+	public boolean isDeadSquare(int x, int y) {
+		return grid.isInside(x, y) && level.getDeadSquares().isDead(grid.index(x, y));
+	}
+
+	/**
+	 * Zwraca flagi statyczne pola (kombinacja TileGrid.WALL, TileGrid.FLOOR i TileGrid.GOAL).
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return Flagi pola lub 0, jeśli współrzędne leżą poza planszą.
+	 */
+	public byte getTile(int x, int y) {
+		return grid.isInside(x, y) ? grid.getTile(grid.index(x, y)) : 0;
+	}
+
+	/**
+	 * Zwraca indeksy pól zajętych przez skrzynki.
+	 *
+	 * @return Tablica indeksów pól.
+	 */
+	public int[] getBoxIndices() {
+		return grid.getBoxIndices();
+	}
+
+	/**
+	 * Zwraca poziom, którego dotyczy stan gry.
+	 *
+	 * @return Poziom gry.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Zwraca współrzędną X gracza.
+	 *
+	 * @return Współrzędna X.
+	 */
+	public int getPlayerX() {
+		return playerX;
+	}
+
+	/**
+	 * Zwraca współrzędną Y gracza.
+	 *
+	 * @return Współrzędna Y.
+	 */
+	public int getPlayerY() {
+		return playerY;
+	}
+
+	/**
+	 * Zwraca liczbę wykonanych ruchów.
+	 *
+	 * @return Liczba ruchów.
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * Zwraca liczbę przesunięć skrzynek.
+	 *
+	 * @return Liczba przesunięć.
+	 */
+	public int getPushCount() {
+		return pushCount;
+	}
+}
@@ -0,0 +1,181 @@
+package sokoban.engine;
+
+import sokoban.util.Fingerprint;
+import sokoban.util.TileGrid;
+
+/**
+ * Klasa reprezentująca wczytany poziom gry: nazwę, limit czasu, strukturę mapy oraz stan początkowy planszy. Obiekt jest niezmienny, a każda rozgrywka otrzymuje własną kopię stanu poprzez metodę createGame().
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class Level {
+
+	protected final String name, structure;
+	protected final int timeLimit;
+	protected final TileGrid grid;
+	protected final int playerX, playerY;
+	protected final long fingerprint;
+	private volatile DeadSquares deadSquares;
+
+	public Level(String name, int timeLimit, String structure, TileGrid grid, int playerX, int playerY) {
+		this.name = name;
+		this.timeLimit = timeLimit;
+		this.structure = structure;
+		this.grid = grid;
+		this.playerX = playerX;
+		this.playerY = playerY;
+		this.fingerprint = Fingerprint.of(structure);
+	}
+
+	/**
+	 * Tworzy nowy stan gry ustawiony na początek poziomu.
+	 *
+	 * @return Nowy stan gry.
+	 */
+	public GameState createGame() {
+		return new GameState(this);
+	}
+
+	/**
+	 * Zwraca nazwę poziomu.
+	 *
+	 * @return Nazwa poziomu.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Zwraca strukturę mapy w postaci tekstowej.
+	 *
+	 * @return Struktura mapy.
+	 */
+	public String getStructure() {
+		return structure;
+	}
+
+	/**
+	 * Zwraca odcisk treści poziomu wyznaczony ze struktury mapy.
+	 *
+	 * @return 64-bitowy odcisk poziomu.
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Zwraca tablicę martwych pól poziomu, wyznaczając ją przy pierwszym wywołaniu.
+	 *
+	 * @return Tablica martwych pól.
+	 */
+	public DeadSquares getDeadSquares() {
+		DeadSquares result = deadSquares;
+		if (result == null) {
+			// wyznaczenie tablicy jest deterministyczne, więc równoległe wywołania mogą ją co najwyżej policzyć dwukrotnie
+			deadSquares = result = new DeadSquares(this);
+		}
+		return result;
+	}
+
+	/**
+	 * Zwraca limit czasu poziomu w sekundach.
+	 *
+	 * @return Limit czasu.
+	 */
+	public int getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * Zwraca szerokość planszy w polach.
+	 *
+	 * @return Szerokość planszy.
+	 */
+	public int getWidth() {
+		return grid.getWidth();
+	}
+
+	/**
+	 * Zwraca wysokość planszy w polach.
+	 *
+	 * @return Wysokość planszy.
+	 */
+	public int getHeight() {
+		return grid.getHeight();
+	}
+
+	/**
+	 * Zwraca flagi statyczne pola (kombinacja TileGrid.WALL, TileGrid.FLOOR i TileGrid.GOAL).
+	 *
+	 * @param index Indeks pola
+	 * @return Flagi pola.
+	 */
+	public byte getTile(int index) {
+		return grid.getTile(index);
+	}
+
+	/**
+	 * Sprawdza, czy w stanie początkowym na danym polu stoi skrzynka.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli na polu stoi skrzynka.
+	 */
+	public boolean hasInitialBox(int index) {
+		return grid.hasBox(index);
+	}
+
+	/**
+	 * Zwraca indeksy pól ze skrzynkami w stanie początkowym.
+	 *
+	 * @return Tablica indeksów pól.
+	 */
+	public int[] getInitialBoxes() {
+		return grid.getBoxIndices();
+	}
+
+	/**
+	 * Zwraca liczbę skrzynek na poziomie.
+	 *
+	 * @return Liczba skrzynek.
+	 */
+	public int getBoxCount() {
+		return grid.getBoxCount();
+	}
+
+	/**
+	 * Zwraca liczbę pól wygranej na poziomie.
+	 *
+	 * @return Liczba pól wygranej.
+	 */
+	public int getGoalCount() {
+		return grid.getGoalCount();
+	}
+
+	/**
+	 * Zwraca początkową współrzędną X gracza.
+	 *
+	 * @return Współrzędna X.
+	 */
+	public int getPlayerX() {
+		return playerX;
+	}
+
+	/**
+	 * Zwraca początkową współrzędną Y gracza.
+	 *
+	 * @return Współrzędna Y.
+	 */
+	public int getPlayerY() {
+		return playerY;
+	}
+
+	/**
+	 * Zwraca kopię siatki planszy w stanie początkowym.
+	 *
+	 * @return Kopia siatki planszy.
+	 */
+	public TileGrid copyGrid() {
+		return new TileGrid(grid);
+	}
+}
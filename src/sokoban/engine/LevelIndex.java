@@ -0,0 +1,377 @@
+package sokoban.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import sokoban.exceptions.InvalidMapFileException;
+
+/**
+ * Trwały indeks metadanych poziomów (wymiary, liczba skrzynek i pól wygranej, odcisk treści) zapisywany w pliku binarnym. Dla każdego pliku źródłowego (pliku mapy, zestawu poziomów lub zasobu aplikacji) zapamiętywany jest czas modyfikacji i rozmiar - plik jest wczytywany ponownie tylko wtedy, gdy się zmienił. Dzięki temu listy poziomów mogą wyświetlać informacje o poziomach bez wczytywania map.
+ *
+ * Indeks jest bezpieczny wątkowo. Pliki wczytywane są bez blokady indeksu, a pod blokadą odbywa się jedynie sprawdzenie i podmiana wpisów, więc wywołania z wątku obsługi zdarzeń (np. findByFingerprint) nie czekają na wczytywanie zestawu poziomów w tle.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelIndex {
+
+	public static final String FILENAME = "levelindex.dat";
+
+	private static final int MAGIC = 0x534b4c49;
+	private static final int VERSION = 1;
+	private static final String RESOURCE_PREFIX = "resource:";
+	private static final String LEVEL_FILES = "*.{map," + String.join(",", LevelPack.EXTENSIONS) + "}";
+
+	/**
+	 * Wpis indeksu dla jednego pliku źródłowego.
+	 */
+	protected static final class Source {
+		final long modified, length;
+		final LevelMetadata[] levels;
+
+		Source(long modified, long length, LevelMetadata[] levels) {
+			this.modified = modified;
+			this.length = length;
+			this.levels = levels;
+		}
+	}
+
+	private static LevelIndex instance;
+
+	protected final Path file;
+	protected final Map<String, Source> sources = new HashMap<>();
+	/**
+	 * Poziomy o danym odcisku - ten sam poziom może występować w kilku plikach źródłowych (np. mapa z zasobów aplikacji i jej kopia w katalogu), więc usunięcie jednego z nich nie może usunąć odcisku z indeksu.
+	 */
+	protected final Map<Long, List<LevelMetadata>> byFingerprint = new HashMap<>();
+	protected boolean dirty = false;
+	private final Object saveLock = new Object();
+
+	protected LevelIndex(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Zwraca indeks zapisany w domyślnym pliku, wczytując go przy pierwszym wywołaniu.
+	 *
+	 * @return Indeks poziomów.
+	 */
+	public static synchronized LevelIndex getInstance() {
+		if (instance == null) {
+			instance = load(Paths.get(FILENAME));
+		}
+		return instance;
+	}
+
+	/**
+	 * Wczytuje indeks z pliku. Jeśli plik nie istnieje lub jest uszkodzony, zwracany jest pusty indeks.
+	 *
+	 * @param file Plik indeksu
+	 * @return Indeks poziomów.
+	 */
+	public static LevelIndex load(Path file) {
+		LevelIndex index = new LevelIndex(file);
+		if (!Files.exists(file)) {
+			return index;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return index;
+			}
+			int sourceCount = in.readInt();
+			for (int i = 0; i < sourceCount; i++) {
+				String key = in.readUTF();
+				long modified = in.readLong(), length = in.readLong();
+				LevelMetadata[] levels = new LevelMetadata[in.readInt()];
+				for (int j = 0; j < levels.length; j++) {
+					if (in.readBoolean()) {
+						levels[j] = new LevelMetadata(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+								in.readLong());
+					}
+				}
+				index.put(key, new Source(modified, length, levels));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			index.sources.clear();
+			index.byFingerprint.clear();
+		}
+		index.dirty = false;
+		return index;
+	}
+
+	/**
+	 * Zapisuje indeks do pliku, jeśli od wczytania lub ostatniego zapisu został zmieniony. Zapis odbywa się do pliku tymczasowego, który następnie zastępuje plik indeksu.
+	 *
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public void save() throws IOException {
+		synchronized (saveLock) {
+			List<Map.Entry<String, Source>> snapshot;
+			synchronized (this) {
+				if (!dirty) {
+					return;
+				}
+				snapshot = new ArrayList<>(sources.entrySet());
+				dirty = false;
+			}
+			try {
+				write(snapshot);
+			} catch (IOException e) {
+				synchronized (this) {
+					dirty = true;
+				}
+				throw e;
+			}
+		}
+	}
+
+	private void write(List<Map.Entry<String, Source>> snapshot) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(snapshot.size());
+			for (Map.Entry<String, Source> entry : snapshot) {
+				Source source = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeLong(source.modified);
+				out.writeLong(source.length);
+				out.writeInt(source.levels.length);
+				for (LevelMetadata level : source.levels) {
+					out.writeBoolean(level != null);
+					if (level != null) {
+						out.writeUTF(level.getName() == null ? "" : level.getName());
+						out.writeInt(level.getWidth());
+						out.writeInt(level.getHeight());
+						out.writeInt(level.getBoxCount());
+						out.writeInt(level.getGoalCount());
+						out.writeLong(level.getFingerprint());
+					}
+				}
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Zwraca metadane poziomów z pliku mapy (.map) lub zestawu poziomów. Plik jest wczytywany tylko wtedy, gdy nie ma go w indeksie albo zmienił się jego czas modyfikacji lub rozmiar.
+	 *
+	 * @param path Ścieżka do pliku
+	 * @return Metadane kolejnych poziomów (null dla poziomów, których nie udało się wczytać).
+	 * @throws IOException Jeśli nie udało się odczytać atrybutów pliku.
+	 */
+	public LevelMetadata[] getFile(Path path) throws IOException {
+		String key = key(path);
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		long modified = attrs.lastModifiedTime().toMillis(), length = attrs.size();
+		LevelMetadata[] levels = cached(key, modified, length);
+		if (levels != null) {
+			return levels;
+		}
+		if (isMapFile(path)) {
+			levels = new LevelMetadata[] { parseMapFile(path) };
+		} else {
+			try {
+				levels = scanPack(LevelPack.open(path));
+			} catch (InvalidMapFileException e) {
+				levels = new LevelMetadata[0];
+			}
+		}
+		put(key, new Source(modified, length, levels));
+		return levels;
+	}
+
+	/**
+	 * Zwraca metadane poziomów z otwartego już zestawu poziomów, wczytując poziomy tylko wtedy, gdy plik zestawu się zmienił.
+	 *
+	 * @param pack Zestaw poziomów
+	 * @return Metadane kolejnych poziomów (null dla poziomów, których nie udało się wczytać).
+	 * @throws IOException Jeśli nie udało się odczytać atrybutów pliku.
+	 */
+	public LevelMetadata[] getPack(LevelPack pack) throws IOException {
+		String key = key(pack.getPath());
+		BasicFileAttributes attrs = Files.readAttributes(pack.getPath(), BasicFileAttributes.class);
+		long modified = attrs.lastModifiedTime().toMillis(), length = attrs.size();
+		LevelMetadata[] levels = cached(key, modified, length);
+		if (levels != null) {
+			return levels;
+		}
+		levels = scanPack(pack);
+		put(key, new Source(modified, length, levels));
+		return levels;
+	}
+
+	/**
+	 * Zwraca metadane poziomu zapisanego w zasobach aplikacji (np. /maps/1.map).
+	 *
+	 * @param name Nazwa zasobu
+	 * @return Metadane poziomu lub null, jeśli zasobu nie ma lub nie jest poprawną mapą.
+	 */
+	public LevelMetadata getResource(String name) {
+		URL url = LevelIndex.class.getResource(name);
+		if (url == null) {
+			return null;
+		}
+		long modified, length;
+		try {
+			URLConnection connection = url.openConnection();
+			modified = connection.getLastModified();
+			length = connection.getContentLengthLong();
+			connection.getInputStream().close();
+		} catch (IOException e) {
+			return null;
+		}
+		String key = RESOURCE_PREFIX + name;
+		LevelMetadata[] levels = cached(key, modified, length);
+		if (levels == null) {
+			LevelMetadata level;
+			try {
+				level = new LevelMetadata(LevelParser.parse(() -> LevelIndex.class.getResourceAsStream(name)));
+			} catch (InvalidMapFileException e) {
+				level = null;
+			}
+			levels = new LevelMetadata[] { level };
+			put(key, new Source(modified, length, levels));
+		}
+		return levels[0];
+	}
+
+	/**
+	 * Aktualizuje indeks dla wszystkich plików map i zestawów poziomów w katalogu, a wpisy plików usuniętych z katalogu usuwa z indeksu. Wczytywane są tylko pliki nowe i zmienione.
+	 *
+	 * @param directory Katalog
+	 * @return Liczba poziomów w katalogu.
+	 * @throws IOException Jeśli nie udało się odczytać katalogu.
+	 */
+	public int refreshDirectory(Path directory) throws IOException {
+		Set<String> present = new HashSet<>();
+		int count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LEVEL_FILES)) {
+			for (Path path : files) {
+				present.add(key(path));
+				count += getFile(path).length;
+			}
+		}
+		String prefix = key(directory);
+		synchronized (this) {
+			removeMissing(prefix, present);
+		}
+		return count;
+	}
+
+	private void removeMissing(String prefix, Set<String> present) {
+		for (Iterator<Map.Entry<String, Source>> it = sources.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Source> entry = it.next();
+			Path parent = Paths.get(entry.getKey()).getParent();
+			if (!entry.getKey().startsWith(RESOURCE_PREFIX) && parent != null && parent.toString().equals(prefix)
+					&& !present.contains(entry.getKey())) {
+				unindex(entry.getValue().levels);
+				it.remove();
+				dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Wyszukuje w indeksie poziom o podanym odcisku treści.
+	 *
+	 * @param fingerprint Odcisk treści poziomu
+	 * @return Metadane poziomu lub null, jeśli poziomu nie ma w indeksie.
+	 */
+	public synchronized LevelMetadata findByFingerprint(long fingerprint) {
+		List<LevelMetadata> levels = byFingerprint.get(fingerprint);
+		return levels == null ? null : levels.get(0);
+	}
+
+	/**
+	 * Zwraca metadane z wpisu indeksu, jeśli plik źródłowy nie zmienił się od jego utworzenia.
+	 *
+	 * @param key Klucz pliku źródłowego
+	 * @param modified Bieżący czas modyfikacji pliku
+	 * @param length Bieżący rozmiar pliku
+	 * @return Metadane poziomów lub null, jeśli plik trzeba wczytać.
+	 */
+	private synchronized LevelMetadata[] cached(String key, long modified, long length) {
+		Source source = sources.get(key);
+		return source != null && source.modified == modified && source.length == length ? source.levels : null;
+	}
+
+	private synchronized void put(String key, Source source) {
+		Source old = sources.put(key, source);
+		if (old != null) {
+			unindex(old.levels);
+		}
+		for (LevelMetadata level : source.levels) {
+			if (level != null) {
+				byFingerprint.computeIfAbsent(level.getFingerprint(), fingerprint -> new ArrayList<>(1)).add(level);
+			}
+		}
+		dirty = true;
+	}
+
+	private void unindex(LevelMetadata[] levels) {
+		for (LevelMetadata level : levels) {
+			if (level == null) {
+				continue;
+			}
+			List<LevelMetadata> same = byFingerprint.get(level.getFingerprint());
+			if (same != null && same.remove(level) && same.isEmpty()) {
+				byFingerprint.remove(level.getFingerprint());
+			}
+		}
+	}
+
+	private static LevelMetadata[] scanPack(LevelPack pack) {
+		LevelMetadata[] levels = new LevelMetadata[pack.size()];
+		for (int i = 0; i < levels.length; i++) {
+			try {
+				levels[i] = new LevelMetadata(pack.getLevel(i));
+			} catch (InvalidMapFileException e) {
+				levels[i] = null;
+			}
+		}
+		return levels;
+	}
+
+	private static LevelMetadata parseMapFile(Path path) {
+		try {
+			return new LevelMetadata(LevelParser.parse(() -> {
+				try {
+					return Files.newInputStream(path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		} catch (InvalidMapFileException | UncheckedIOException e) {
+			return null;
+		}
+	}
+
+	private static boolean isMapFile(Path path) {
+		return path.getFileName().toString().toLowerCase().endsWith(".map");
+	}
+
+	private static String key(Path path) {
+		return path.toAbsolutePath().normalize().toString();
+	}
+}
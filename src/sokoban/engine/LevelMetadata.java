@@ -0,0 +1,87 @@
+package sokoban.engine;
+
+/**
+ * Niezmienna struktura z podstawowymi informacjami o poziomie (nazwa, wymiary, liczba skrzynek i pól wygranej, odcisk treści), które można wyświetlić bez wczytywania poziomu.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelMetadata {
+
+	protected final String name;
+	protected final int width, height, boxCount, goalCount;
+	protected final long fingerprint;
+
+	public LevelMetadata(String name, int width, int height, int boxCount, int goalCount, long fingerprint) {
+		this.name = name;
+		this.width = width;
+		this.height = height;
+		this.boxCount = boxCount;
+		this.goalCount = goalCount;
+		this.fingerprint = fingerprint;
+	}
+
+	public LevelMetadata(Level level) {
+		this(level.getName(), level.getWidth(), level.getHeight(), level.getBoxCount(), level.getGoalCount(),
+				level.getFingerprint());
+	}
+
+	/**
+	 * Zwraca nazwę poziomu.
+	 *
+	 * @return Nazwa poziomu.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Zwraca szerokość poziomu w polach.
+	 *
+	 * @return Szerokość poziomu.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Zwraca wysokość poziomu w polach.
+	 *
+	 * @return Wysokość poziomu.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Zwraca liczbę skrzynek.
+	 *
+	 * @return Liczba skrzynek.
+	 */
+	public int getBoxCount() {
+		return boxCount;
+	}
+
+	/**
+	 * Zwraca liczbę pól wygranej.
+	 *
+	 * @return Liczba pól wygranej.
+	 */
+	public int getGoalCount() {
+		return goalCount;
+	}
+
+	/**
+	 * Zwraca odcisk treści poziomu.
+	 *
+	 * @return 64-bitowy odcisk poziomu.
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	@Override
+	public String toString() {
+		return width + "x" + height + ", skrzynek: " + boxCount;
+	}
+}
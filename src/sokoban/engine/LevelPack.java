@@ -0,0 +1,270 @@
+package sokoban.engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sokoban.exceptions.InvalidMapFileException;
+
+/**
+ * Zestaw poziomów zapisany w jednym pliku w formacie XSB/SOK (# - ściana, spacja, '-' lub '_' - podłoga, . - pole wygranej, $ - skrzynka, * - skrzynka na polu wygranej, @ - gracz, + - gracz na polu wygranej). Plik jest mapowany do pamięci i przeglądany jednokrotnie w celu zbudowania indeksu przesunięć (początek i koniec każdego poziomu oraz jego tytułu). Poziom wczytywany jest dopiero przy wywołaniu getLevel(), więc koszt otwarcia zestawu nie zależy od liczby poziomów, a tylko od rozmiaru pliku. Obsługiwane są pliki mniejsze niż 2 GB.
+ *
+ * Tytułem poziomu jest wiersz "Title: ..." występujący po mapie, a w jego braku - ostatni wiersz tekstu (np. komentarz "; 12") poprzedzający mapę.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelPack {
+
+	/**
+	 * Limit czasu (w sekundach) nadawany poziomom z zestawu - format XSB nie przechowuje limitu czasu.
+	 */
+	public static final int DEFAULT_TIME_LIMIT = 600;
+	/**
+	 * Rozszerzenia plików zestawów poziomów (bez kropki) - wspólne dla okna wyboru pliku i indeksu poziomów.
+	 */
+	public static final String[] EXTENSIONS = { "xsb", "sok", "txt" };
+
+	private static final String TITLE_PREFIX = "Title:";
+	private static final int BLANK = 0, MAP_ROW = 1, TEXT = 2;
+	private static final int INITIAL_CAPACITY = 64;
+
+	protected final Path path;
+	protected final MappedByteBuffer buffer;
+	protected int size = 0;
+	protected int[] starts = new int[INITIAL_CAPACITY], ends = new int[INITIAL_CAPACITY];
+	protected int[] lines = new int[INITIAL_CAPACITY];
+	protected int[] titleStarts = new int[INITIAL_CAPACITY], titleEnds = new int[INITIAL_CAPACITY];
+
+	protected LevelPack(Path path, MappedByteBuffer buffer) {
+		this.path = path;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Otwiera plik zestawu poziomów i buduje indeks poziomów.
+	 *
+	 * @param path Ścieżka do pliku zestawu
+	 * @return Zestaw poziomów.
+	 * @throws IOException Jeśli nie udało się odczytać pliku.
+	 * @throws InvalidMapFileException Jeśli plik nie zawiera żadnego poziomu.
+	 */
+	public static LevelPack open(Path path) throws IOException, InvalidMapFileException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("LevelPack - File too large: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		LevelPack pack = new LevelPack(path, buffer);
+		pack.buildIndex();
+		if (pack.size == 0) {
+			throw new InvalidMapFileException("Plik " + path.getFileName() + " nie zawiera żadnego poziomu Sokoban");
+		}
+		return pack;
+	}
+
+	/**
+	 * Przegląda plik jednokrotnie, zapisując przesunięcia poziomów i ich tytułów.
+	 */
+	protected void buildIndex() {
+		int limit = buffer.limit();
+		int textStart = -1, textEnd = -1;
+		boolean inLevel = false, titled = false;
+		int line = 0;
+		for (int pos = 0; pos < limit;) {
+			int end = pos;
+			while (end < limit && buffer.get(end) != '\n') {
+				end++;
+			}
+			int contentEnd = end > pos && buffer.get(end - 1) == '\r' ? end - 1 : end;
+			line++;
+			int kind = classify(pos, contentEnd);
+			if (kind == MAP_ROW) {
+				if (!inLevel) {
+					add(pos, line, textStart, textEnd);
+					inLevel = true;
+					titled = false;
+					textStart = -1;
+				}
+				ends[size - 1] = end;
+			} else {
+				inLevel = false;
+				if (kind == TEXT) {
+					int from = pos;
+					while (from < contentEnd && (buffer.get(from) == ';' || buffer.get(from) == ' ')) {
+						from++;
+					}
+					boolean prefixed = startsWith(from, contentEnd, TITLE_PREFIX);
+					if (prefixed) {
+						from += TITLE_PREFIX.length();
+					}
+					if (prefixed && size > 0 && !titled && textStart == -1) {
+						titleStarts[size - 1] = from;
+						titleEnds[size - 1] = contentEnd;
+						titled = true;
+					} else {
+						textStart = from;
+						textEnd = contentEnd;
+					}
+				}
+			}
+			pos = end + 1;
+		}
+	}
+
+	private int classify(int from, int to) {
+		boolean wall = false, blank = true;
+		for (int i = from; i < to; i++) {
+			switch (buffer.get(i)) {
+			case '#':
+				wall = true;
+				blank = false;
+				break;
+			case ' ':
+			case '\t':
+				break;
+			case '-':
+			case '_':
+			case '.':
+			case '$':
+			case '*':
+			case '@':
+			case '+':
+				blank = false;
+				break;
+			default:
+				return TEXT;
+			}
+		}
+		if (blank) {
+			return BLANK;
+		}
+		return wall ? MAP_ROW : TEXT;
+	}
+
+	private boolean startsWith(int from, int to, String prefix) {
+		if (to - from < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (buffer.get(from + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void add(int start, int line, int titleStart, int titleEnd) {
+		if (size == starts.length) {
+			int capacity = size * 2;
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			lines = Arrays.copyOf(lines, capacity);
+			titleStarts = Arrays.copyOf(titleStarts, capacity);
+			titleEnds = Arrays.copyOf(titleEnds, capacity);
+		}
+		starts[size] = start;
+		ends[size] = start;
+		lines[size] = line;
+		titleStarts[size] = titleStart;
+		titleEnds[size] = titleEnd;
+		size++;
+	}
+
+	/**
+	 * Zwraca liczbę poziomów w zestawie.
+	 *
+	 * @return Liczba poziomów.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Zwraca ścieżkę do pliku zestawu.
+	 *
+	 * @return Ścieżka do pliku.
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Zwraca tytuł poziomu. Tytuł dekodowany jest z zamapowanego pliku przy każdym wywołaniu.
+	 *
+	 * @param index Indeks poziomu (od 0)
+	 * @return Tytuł poziomu lub "Poziom N", jeśli plik nie zawiera tytułu.
+	 */
+	public String getTitle(int index) {
+		String title = titleStarts[index] == -1 ? "" : decode(titleStarts[index], titleEnds[index]).trim();
+		return title.isEmpty() ? "Poziom " + (index + 1) : title;
+	}
+
+	/**
+	 * Wczytuje poziom o podanym indeksie.
+	 *
+	 * @param index Indeks poziomu (od 0)
+	 * @return Wczytany poziom.
+	 * @throws InvalidMapFileException Jeśli mapa poziomu jest nieprawidłowa.
+	 */
+	public Level getLevel(int index) throws InvalidMapFileException {
+		List<String> rows = new ArrayList<>();
+		StringBuilder row = new StringBuilder();
+		for (int i = starts[index], end = ends[index]; i < end; i++) {
+			char c = (char) buffer.get(i);
+			if (c == '\n') {
+				rows.add(row.toString());
+				row.setLength(0);
+			} else if (c != '\r') {
+				row.append(toMapChar(c));
+			}
+		}
+		if (row.length() > 0) {
+			rows.add(row.toString());
+		}
+		return LevelParser.fromRows(getTitle(index), DEFAULT_TIME_LIMIT, rows, lines[index]);
+	}
+
+	/**
+	 * Zamienia znak formatu XSB na znak formatu plików .map.
+	 *
+	 * @param c Znak formatu XSB
+	 * @return Znak formatu .map.
+	 */
+	protected static char toMapChar(char c) {
+		switch (c) {
+		case '-':
+		case '_':
+		case '\t':
+			return ' ';
+		case '.':
+			return 'X';
+		case '$':
+			return 'b';
+		case '*':
+			return 'B';
+		case '@':
+			return 'p';
+		case '+':
+			return 'P';
+		default:
+			return c;
+		}
+	}
+
+	private String decode(int from, int to) {
+		byte[] bytes = new byte[to - from];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(from + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,208 @@
+package sokoban.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import sokoban.exceptions.InvalidMapFileException;
+import sokoban.util.Direction;
+import sokoban.util.TileGrid;
+
+/**
+ * Klasa odpowiadająca za wczytywanie poziomów z plików map.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class LevelParser {
+
+	/**
+	 * Metoda wczytująca poziom. Plik odczytywany jest jednokrotnie: nagłówek (pary klucz=wartość) przetwarzany jest na bieżąco, a wiersze mapy buforowane, aby po poznaniu wymiarów zbudować siatkę w jednym przebiegu.
+	 *
+	 * @param inputStreamSupplier Dostawca strumienia wejścia dla pliku mapy.
+	 * @return Wczytany poziom.
+	 * @throws InvalidMapFileException Jeśli plik mapy ma nieprawidłowy format (wraz z numerem linii i kolumny błędu, o ile da się go wskazać).
+	 */
+	public static Level parse(Supplier<InputStream> inputStreamSupplier) throws InvalidMapFileException {
+		InputStream stream = inputStreamSupplier.get();
+		if (stream == null) {
+			throw new InvalidMapFileException();
+		}
+
+		String name = null;
+		int timeLimit = 0;
+		int mapLine = -1;
+		List<String> rows = new ArrayList<>();
+		try (BufferedReader fin = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String s;
+			int line = 0;
+			while ((s = fin.readLine()) != null) {
+				line++;
+				if (mapLine != -1) {
+					rows.add(s);
+					continue;
+				}
+				int separator = s.indexOf('=');
+				if (separator == -1) {
+					continue;
+				}
+				String key = s.substring(0, separator), value = s.substring(separator + 1);
+				switch (key) {
+				case "name":
+					name = value;
+					break;
+				case "timeLimit":
+					try {
+						timeLimit = Integer.parseInt(value.trim());
+					} catch (NumberFormatException e) {
+						throw new InvalidMapFileException(line, separator + 2, "nieprawidłowy limit czasu \"" + value + "\"");
+					}
+					break;
+				case "map":
+					mapLine = line;
+					break;
+				}
+			}
+		} catch (IOException e) {
+			throw new InvalidMapFileException("Błąd odczytu pliku mapy: " + e.getMessage());
+		}
+
+		if (mapLine == -1) {
+			throw new InvalidMapFileException("Plik mapy nie zawiera sekcji \"map=\"");
+		}
+		return fromRows(name, timeLimit, rows, mapLine + 1);
+	}
+
+	/**
+	 * Buduje poziom z wierszy mapy zapisanych w formacie plików .map. Puste wiersze są pomijane.
+	 *
+	 * @param name Nazwa poziomu
+	 * @param timeLimit Limit czasu w sekundach
+	 * @param rows Wiersze mapy
+	 * @param firstLine Numer linii pliku, w której znajduje się pierwszy wiersz (do komunikatów o błędach)
+	 * @return Zbudowany poziom.
+	 * @throws InvalidMapFileException Jeśli mapa jest nieprawidłowa.
+	 */
+	public static Level fromRows(String name, int timeLimit, List<String> rows, int firstLine)
+			throws InvalidMapFileException {
+		int width = 0, height = 0;
+		for (String row : rows) {
+			if (!row.isEmpty()) {
+				width = Math.max(width, row.length());
+				height++;
+			}
+		}
+		if (height == 0) {
+			throw new InvalidMapFileException(firstLine, 1, "sekcja mapy jest pusta");
+		}
+
+		TileGrid grid = new TileGrid(width, height);
+		StringBuilder mapStructure = new StringBuilder(height * (width + 1));
+		int playerX = -1, playerY = -1, playerLine = -1;
+		int y = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			String row = rows.get(i);
+			if (row.isEmpty()) {
+				continue;
+			}
+			int line = firstLine + i;
+			mapStructure.append(row).append('\n');
+			for (int x = 0; x < row.length(); x++) {
+				int index = grid.index(x, y);
+				char c = row.charAt(x);
+				switch (c) {
+				case ' ':
+				case '.':
+					break;
+				case '#':
+					grid.addFlag(index, TileGrid.WALL);
+					break;
+				case 'b':
+					grid.placeBox(index);
+					break;
+				case 'X':
+					grid.addFlag(index, TileGrid.GOAL);
+					break;
+				case 'B':
+					grid.placeBox(index);
+					grid.addFlag(index, TileGrid.GOAL);
+					break;
+				case 'P':
+				case 'p':
+					if (c == 'P') {
+						// gracz na polu wygranej
+						grid.addFlag(index, TileGrid.GOAL);
+					}
+					if (playerX != -1) {
+						throw new InvalidMapFileException(line, x + 1,
+								"drugi gracz na mapie (pierwszy w linii " + playerLine + ")");
+					}
+					playerX = x;
+					playerY = y;
+					playerLine = line;
+					break;
+				default:
+					throw new InvalidMapFileException(line, x + 1, "nieznany znak '" + c + "'");
+				}
+			}
+			y++;
+		}
+
+		if (playerX == -1) {
+			throw new InvalidMapFileException(firstLine, 1, "mapa nie zawiera gracza");
+		}
+		floorfillFloor(grid, playerX, playerY);
+
+		return new Level(name, timeLimit, mapStructure.toString(), grid, playerX, playerY);
+	}
+
+	/**
+	 * Metoda pomocnicza mająca na celu wypełnienie planszy podłogą korzystając z algorytmu floodfill zaczynając od pozycji gracza.
+	 *
+	 * @param grid Siatka planszy
+	 * @param startX Współrzędna X gracza
+	 * @param startY Współrzędna Y gracza
+	 */
+	public static void floorfillFloor(TileGrid grid, int startX, int startY) {
+		if (!isValidFloodfillTile(grid, startX, startY)) {
+			return;
+		}
+		int[] remaining = new int[grid.getWidth() * grid.getHeight()];
+		int head = 0, tail = 0;
+		int start = grid.index(startX, startY);
+		grid.addFlag(start, TileGrid.FLOOR);
+		remaining[tail++] = start;
+		while (head < tail) {
+			int current = remaining[head++];
+			int x = current % grid.getWidth(), y = current / grid.getWidth();
+			for (Direction d : Direction.getDirections()) {
+				int newX = x + d.getOffsetX(), newY = y + d.getOffsetY();
+				if (!isValidFloodfillTile(grid, newX, newY)) {
+					continue;
+				}
+				int next = grid.index(newX, newY);
+				if (!grid.isFloor(next)) {
+					grid.addFlag(next, TileGrid.FLOOR);
+					remaining[tail++] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Metoda pomocnicza w trakcie algorytmu floodfill. Ma na celu sprawdzenie, czy dana współrzędna mapy nadaje się do kontynuacji działania algorytmu (czyli jeśli współrzędne są prawidłowe i jeśli nie ma ściany na danej współrzędnej).
+	 *
+	 * @param grid Siatka planszy
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return True, jeśli współrzędna jest prawidłowa do kontynuacji wypełniania mapy.
+	 */
+	public static boolean isValidFloodfillTile(TileGrid grid, int x, int y) {
+		return grid.isInside(x, y) && !grid.isWall(grid.index(x, y));
+	}
+}
@@ -0,0 +1,105 @@
+package sokoban.engine;
+
+import java.util.Arrays;
+
+/**
+ * Dziennik ruchów gracza służący do cofania i ponawiania ruchów. Każdy ruch zajmuje jeden bajt: dwa najmłodsze bity to indeks kierunku (0 - góra, 1 - prawo, 2 - dół, 3 - lewo), a bit PUSH oznacza przesunięcie skrzynki. Ruchy cofnięte pozostają w tablicy powyżej bieżącej pozycji, dopóki nie zostanie wykonany nowy ruch, więc cofnięcie i ponowienie ruchu kosztują O(1) i nie tworzą żadnych obiektów.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class MoveLog {
+
+	/**
+	 * Bit oznaczający, że ruch przesunął skrzynkę.
+	 */
+	public static final byte PUSH = 4;
+	/**
+	 * Maska indeksu kierunku.
+	 */
+	public static final byte DIRECTION_MASK = 3;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	protected byte[] moves = new byte[INITIAL_CAPACITY];
+	protected int size = 0, top = 0;
+
+	/**
+	 * Dopisuje ruch na bieżącej pozycji dziennika i porzuca ruchy, które można było ponowić.
+	 *
+	 * @param direction Indeks kierunku ruchu
+	 * @param pushed True, jeśli ruch przesunął skrzynkę
+	 */
+	public void record(int direction, boolean pushed) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, moves.length * 2);
+		}
+		moves[size++] = (byte) (pushed ? direction | PUSH : direction);
+		top = size;
+	}
+
+	/**
+	 * Sprawdza, czy jest ruch do cofnięcia.
+	 *
+	 * @return True, jeśli dziennik zawiera ruch do cofnięcia.
+	 */
+	public boolean canUndo() {
+		return size > 0;
+	}
+
+	/**
+	 * Sprawdza, czy jest ruch do ponowienia.
+	 *
+	 * @return True, jeśli wcześniej cofnięto ruch, a od tego czasu nie wykonano nowego.
+	 */
+	public boolean canRedo() {
+		return size < top;
+	}
+
+	/**
+	 * Cofa bieżącą pozycję dziennika o jeden ruch.
+	 *
+	 * @return Zapis cofniętego ruchu.
+	 */
+	public byte undo() {
+		return moves[--size];
+	}
+
+	/**
+	 * Przesuwa bieżącą pozycję dziennika o jeden ruch do przodu.
+	 *
+	 * @return Zapis ponowionego ruchu.
+	 */
+	public byte redo() {
+		return moves[size++];
+	}
+
+	/**
+	 * Zwraca liczbę ruchów przed bieżącą pozycją dziennika.
+	 *
+	 * @return Liczba ruchów.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Zwraca indeks kierunku zapisanego ruchu.
+	 *
+	 * @param move Zapis ruchu
+	 * @return Indeks kierunku.
+	 */
+	public static int getDirection(byte move) {
+		return move & DIRECTION_MASK;
+	}
+
+	/**
+	 * Sprawdza, czy zapisany ruch przesunął skrzynkę.
+	 *
+	 * @param move Zapis ruchu
+	 * @return True, jeśli ruch przesunął skrzynkę.
+	 */
+	public static boolean isPush(byte move) {
+		return (move & PUSH) != 0;
+	}
+}
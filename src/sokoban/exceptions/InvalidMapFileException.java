@@ -1,7 +1,7 @@
 package sokoban.exceptions;
 
 /**
- * Wyjątek wyrzucany, gdy nie znaleziono pliku mapy.
+ * Wyjątek wyrzucany, gdy nie znaleziono pliku mapy lub plik mapy ma nieprawidłowy format.
  * 
  * @author Maciej Budrowski
  *
@@ -9,7 +9,39 @@ package sokoban.exceptions;
 public class InvalidMapFileException extends Exception {
 	private static final long serialVersionUID = -2828889797716034314L;
 
+	protected final int line, column;
+
 	public InvalidMapFileException() {
-		super("Wczytany plik mapy nie jest poprawnym plikiem mapy Sokoban!");
+		this("Wczytany plik mapy nie jest poprawnym plikiem mapy Sokoban!");
+	}
+
+	public InvalidMapFileException(String message) {
+		super(message);
+		this.line = -1;
+		this.column = -1;
+	}
+
+	public InvalidMapFileException(int line, int column, String reason) {
+		super("Błąd w pliku mapy (linia " + line + ", kolumna " + column + "): " + reason);
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Zwraca numer linii, w której wykryto błąd (numerowane od 1).
+	 * 
+	 * @return Numer linii lub -1, jeśli błędu nie da się przypisać do linii.
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * Zwraca numer kolumny, w której wykryto błąd (numerowane od 1).
+	 * 
+	 * @return Numer kolumny lub -1, jeśli błędu nie da się przypisać do kolumny.
+	 */
+	public int getColumn() {
+		return column;
 	}
 }
@@ -0,0 +1,79 @@
+package sokoban.solver;
+
+/**
+ * Wynik przeszukiwania z ograniczonym budżetem. Oprócz ewentualnego rozwiązania zawiera najlepszy osiągnięty postęp (drogę do stanu o najmniejszym oszacowaniu pozostałych przesunięć), dolne ograniczenie długości rozwiązania optymalnego oraz informację, czy znalezione rozwiązanie jest optymalne.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class AnytimeResult extends SolverResult {
+
+	protected final String partial;
+	protected final int partialPushes, remainingEstimate, lowerBound;
+	protected final boolean optimal;
+
+	public AnytimeResult(int status, String solution, int pushes, long nodes, long elapsedNanos, String partial,
+			int partialPushes, int remainingEstimate, int lowerBound, boolean optimal) {
+		super(status, solution, pushes, nodes, elapsedNanos);
+		this.partial = partial;
+		this.partialPushes = partialPushes;
+		this.remainingEstimate = remainingEstimate;
+		this.lowerBound = lowerBound;
+		this.optimal = optimal;
+	}
+
+	/**
+	 * Zwraca drogę do najdalej posuniętego stanu w notacji LURD.
+	 *
+	 * @return Częściowe rozwiązanie lub null.
+	 */
+	public String getPartial() {
+		return partial;
+	}
+
+	/**
+	 * Zwraca liczbę przesunięć w częściowym rozwiązaniu.
+	 *
+	 * @return Liczba przesunięć.
+	 */
+	public int getPartialPushes() {
+		return partialPushes;
+	}
+
+	/**
+	 * Zwraca oszacowanie liczby przesunięć pozostałych po wykonaniu częściowego rozwiązania.
+	 *
+	 * @return Oszacowanie pozostałych przesunięć.
+	 */
+	public int getRemainingEstimate() {
+		return remainingEstimate;
+	}
+
+	/**
+	 * Zwraca dolne ograniczenie liczby przesunięć rozwiązania optymalnego.
+	 *
+	 * @return Dolne ograniczenie.
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * Sprawdza, czy znalezione rozwiązanie jest optymalne.
+	 *
+	 * @return True, jeśli optymalność rozwiązania została udowodniona.
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	@Override
+	public String toString() {
+		if (isSolved()) {
+			return String.format("%s [%s, dolne ograniczenie: %d]", super.toString(),
+					optimal ? "optymalne" : "nieoptymalne", lowerBound);
+		}
+		return String.format("%s [postęp: %d przesunięć, pozostało co najmniej %d, dolne ograniczenie: %d]",
+				super.toString(), partialPushes, remainingEstimate, lowerBound);
+	}
+}
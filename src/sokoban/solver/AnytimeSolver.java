@@ -0,0 +1,103 @@
+package sokoban.solver;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Solver działający w ramach twardego budżetu czasu i pamięci. Przeszukiwanie wykonywane jest kolejno ważonym A* o malejących wagach (3, 2, 1): szybkie przebiegi zwykle dostarczają pierwsze rozwiązanie, a ostatni przebieg (zwykłe A*) dowodzi optymalności. Po wyczerpaniu budżetu lub anulowaniu zwracane jest najlepsze znalezione rozwiązanie, a jeśli go nie ma - najdalej posunięty postęp wraz z dolnym ograniczeniem długości rozwiązania.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class AnytimeSolver {
+
+	public static final long DEFAULT_TIME_BUDGET = 5000;
+
+	private static final int[] WEIGHTS = { 3, 2, 1 };
+
+	protected final SolverBoard board;
+	protected long timeBudget = DEFAULT_TIME_BUDGET;
+	protected long memoryBudget = Runtime.getRuntime().maxMemory() / 4 * 3;
+	protected volatile boolean cancelled = false;
+
+	public AnytimeSolver(SolverBoard board) {
+		this.board = board;
+	}
+
+	/**
+	 * Ustawia budżet czasu przeszukiwania.
+	 *
+	 * @param millis Budżet czasu w milisekundach
+	 */
+	public void setTimeBudget(long millis) {
+		this.timeBudget = millis;
+	}
+
+	/**
+	 * Ustawia budżet pamięci - przeszukiwanie zostaje przerwane, gdy zajętość sterty go przekroczy.
+	 *
+	 * @param bytes Budżet pamięci w bajtach
+	 */
+	public void setMemoryBudget(long bytes) {
+		this.memoryBudget = bytes;
+	}
+
+	/**
+	 * Anuluje przeszukiwanie. Metoda może być wywołana z dowolnego wątku; solve() zwraca wtedy najlepszy dotychczasowy wynik.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Uruchamia przeszukiwanie.
+	 *
+	 * @return Wynik przeszukiwania.
+	 */
+	public AnytimeResult solve() {
+		long start = System.nanoTime(), deadline = start + timeBudget * 1000000L;
+		Runtime runtime = Runtime.getRuntime();
+		BooleanSupplier interrupt = () -> cancelled || System.nanoTime() > deadline
+				|| runtime.totalMemory() - runtime.freeMemory() > memoryBudget;
+		int lowerBound = board.isTriviallyUnsolvable() ? Heuristic.INFINITE
+				: new AssignmentHeuristic(board).reset(board.getStartBoxes());
+		if (lowerBound == Heuristic.INFINITE) {
+			return new AnytimeResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start, null, 0,
+					Heuristic.INFINITE, Heuristic.INFINITE, false);
+		}
+		SolverResult best = null;
+		AnytimeResult progress = null;
+		long nodes = 0;
+		for (int weight : WEIGHTS) {
+			Solver solver = new Solver(board);
+			solver.setWeight(weight);
+			solver.setInterrupt(interrupt);
+			solver.setNodeLimit(Integer.MAX_VALUE);
+			SolverResult result = solver.solve();
+			nodes += result.getNodes();
+			if (result.getStatus() == SolverResult.UNSOLVABLE) {
+				return new AnytimeResult(SolverResult.UNSOLVABLE, null, -1, nodes, System.nanoTime() - start, null, 0,
+						Heuristic.INFINITE, Heuristic.INFINITE, false);
+			}
+			if (result.isSolved()) {
+				if (best == null || result.getPushes() < best.getPushes()) {
+					best = result;
+				}
+				if (weight == 1 || best.getPushes() == lowerBound) {
+					return new AnytimeResult(SolverResult.SOLVED, best.getSolution(), best.getPushes(), nodes,
+							System.nanoTime() - start, best.getSolution(), best.getPushes(), 0, best.getPushes(), true);
+				}
+				continue;
+			}
+			progress = (AnytimeResult) result;
+			lowerBound = Math.max(lowerBound, progress.getLowerBound());
+			break;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (best != null) {
+			return new AnytimeResult(SolverResult.SOLVED, best.getSolution(), best.getPushes(), nodes, elapsed,
+					best.getSolution(), best.getPushes(), 0, lowerBound, best.getPushes() == lowerBound);
+		}
+		return new AnytimeResult(SolverResult.INTERRUPTED, null, -1, nodes, elapsed, progress.getPartial(),
+				progress.getPartialPushes(), progress.getRemainingEstimate(), lowerBound, false);
+	}
+}
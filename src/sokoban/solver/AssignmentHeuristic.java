@@ -0,0 +1,152 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Oszacowanie równe kosztowi optymalnego przyporządkowania skrzynek do pól wygranej, w którym kosztem pary jest liczba przesunięć skrzynki do danego pola wygranej. Przyporządkowanie wyznaczane jest algorytmem węgierskim (z potencjałami) na macierzy kwadratowej - gdy pól wygranej jest więcej niż skrzynek, macierz uzupełniana jest wierszami o zerowym koszcie. Po załadowaniu układu skrzynek oszacowanie następnika wymaga jedynie usunięcia przyporządkowania przesuniętej skrzynki i jednej ścieżki powiększającej, czyli O(n^2) zamiast O(n^3).
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class AssignmentHeuristic implements Heuristic {
+
+	/**
+	 * Koszt pary skrzynka - pole wygranej, której nie da się połączyć. Suma kosztów osiągająca tę wartość oznacza brak pełnego przyporządkowania.
+	 */
+	protected static final int BLOCKED = 1 << 20;
+
+	protected final SolverBoard board;
+	protected final int size, stride;
+	protected final int[] cost;
+	protected final int[] u, v, match;
+	protected final int[] scratchU, scratchV, scratchMatch;
+	protected final int[] way, minv, rowBackup;
+	protected final boolean[] used;
+	protected int rows;
+
+	public AssignmentHeuristic(SolverBoard board) {
+		this.board = board;
+		this.size = board.getGoals().length;
+		this.stride = size + 1;
+		this.cost = new int[stride * stride];
+		this.u = new int[stride];
+		this.v = new int[stride];
+		this.match = new int[stride];
+		this.scratchU = new int[stride];
+		this.scratchV = new int[stride];
+		this.scratchMatch = new int[stride];
+		this.way = new int[stride];
+		this.minv = new int[stride];
+		this.rowBackup = new int[stride];
+		this.used = new boolean[stride];
+	}
+
+	@Override
+	public int reset(int[] boxes) {
+		rows = boxes.length;
+		if (rows > size) {
+			return INFINITE;
+		}
+		Arrays.fill(cost, 0);
+		for (int i = 0; i < rows; i++) {
+			fillRow(i + 1, boxes[i]);
+		}
+		Arrays.fill(u, 0);
+		Arrays.fill(v, 0);
+		Arrays.fill(match, 0);
+		for (int row = 1; row <= size; row++) {
+			augment(row, u, v, match);
+		}
+		return total(match);
+	}
+
+	@Override
+	public int estimateMove(int index, int to) {
+		if (rows > size) {
+			return INFINITE;
+		}
+		int row = index + 1, offset = row * stride;
+		System.arraycopy(cost, offset, rowBackup, 0, stride);
+		fillRow(row, to);
+		System.arraycopy(u, 0, scratchU, 0, stride);
+		System.arraycopy(v, 0, scratchV, 0, stride);
+		System.arraycopy(match, 0, scratchMatch, 0, stride);
+		int potential = Integer.MAX_VALUE;
+		for (int col = 1; col <= size; col++) {
+			if (scratchMatch[col] == row) {
+				scratchMatch[col] = 0;
+			}
+			potential = Math.min(potential, cost[offset + col] - scratchV[col]);
+		}
+		scratchU[row] = potential;
+		augment(row, scratchU, scratchV, scratchMatch);
+		int result = total(scratchMatch);
+		System.arraycopy(rowBackup, 0, cost, offset, stride);
+		return result;
+	}
+
+	private void fillRow(int row, int box) {
+		int offset = row * stride;
+		for (int col = 1; col <= size; col++) {
+			int distance = board.getPushDistance(col - 1, box);
+			cost[offset + col] = distance == SolverBoard.UNREACHABLE ? BLOCKED : distance;
+		}
+	}
+
+	/**
+	 * Dołącza wiersz do przyporządkowania wzdłuż najkrótszej ścieżki powiększającej w kosztach zredukowanych. Wymaga, aby potencjały były dopuszczalne również dla dołączanego wiersza.
+	 *
+	 * @param row Dołączany wiersz
+	 * @param u Potencjały wierszy
+	 * @param v Potencjały kolumn
+	 * @param match Wiersz przypisany do każdej kolumny (0 - brak)
+	 */
+	private void augment(int row, int[] u, int[] v, int[] match) {
+		match[0] = row;
+		int col = 0;
+		Arrays.fill(minv, Integer.MAX_VALUE);
+		Arrays.fill(used, false);
+		do {
+			used[col] = true;
+			int from = match[col], offset = from * stride, delta = Integer.MAX_VALUE, next = 0;
+			for (int j = 1; j <= size; j++) {
+				if (used[j]) {
+					continue;
+				}
+				int reduced = cost[offset + j] - u[from] - v[j];
+				if (reduced < minv[j]) {
+					minv[j] = reduced;
+					way[j] = col;
+				}
+				if (minv[j] < delta) {
+					delta = minv[j];
+					next = j;
+				}
+			}
+			for (int j = 0; j <= size; j++) {
+				if (used[j]) {
+					u[match[j]] += delta;
+					v[j] -= delta;
+				} else {
+					minv[j] -= delta;
+				}
+			}
+			col = next;
+		} while (match[col] != 0);
+		do {
+			int previous = way[col];
+			match[col] = match[previous];
+			col = previous;
+		} while (col != 0);
+	}
+
+	private int total(int[] match) {
+		int sum = 0;
+		for (int col = 1; col <= size; col++) {
+			if (match[col] <= rows) {
+				sum += cost[match[col] * stride + col];
+			}
+		}
+		return sum >= BLOCKED ? INFINITE : sum;
+	}
+}
@@ -0,0 +1,78 @@
+package sokoban.solver;
+
+/**
+ * Wynik przeszukiwania dwukierunkowego uzupełniony o liczbę węzłów rozwiniętych w każdym kierunku oraz o kierunek, który znalazł punkt spotkania.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class BidirectionalResult extends SolverResult {
+
+	/**
+	 * Punkt spotkania znalazło przeszukiwanie w przód (przesuwanie skrzynek od stanu początkowego).
+	 */
+	public static final int FORWARD = 0;
+	/**
+	 * Punkt spotkania znalazło przeszukiwanie wstecz (przyciąganie skrzynek od pól wygranej).
+	 */
+	public static final int BACKWARD = 1;
+	/**
+	 * Nie znaleziono punktu spotkania.
+	 */
+	public static final int NONE = -1;
+
+	protected final long forwardNodes, backwardNodes;
+	protected final int meetingDirection;
+
+	public BidirectionalResult(int status, String solution, int pushes, long forwardNodes, long backwardNodes,
+			int meetingDirection, long elapsedNanos) {
+		super(status, solution, pushes, forwardNodes + backwardNodes, elapsedNanos);
+		this.forwardNodes = forwardNodes;
+		this.backwardNodes = backwardNodes;
+		this.meetingDirection = meetingDirection;
+	}
+
+	/**
+	 * Zwraca liczbę węzłów rozwiniętych przez przeszukiwanie w przód.
+	 *
+	 * @return Liczba węzłów.
+	 */
+	public long getForwardNodes() {
+		return forwardNodes;
+	}
+
+	/**
+	 * Zwraca liczbę węzłów rozwiniętych przez przeszukiwanie wstecz.
+	 *
+	 * @return Liczba węzłów.
+	 */
+	public long getBackwardNodes() {
+		return backwardNodes;
+	}
+
+	/**
+	 * Zwraca nazwę kierunku używaną w raportach narzędzi wiersza poleceń.
+	 *
+	 * @param direction FORWARD, BACKWARD lub NONE
+	 * @return "forward", "backward" lub "none".
+	 */
+	public static String directionName(int direction) {
+		return direction == FORWARD ? "forward" : direction == BACKWARD ? "backward" : "none";
+	}
+
+	/**
+	 * Zwraca kierunek, który znalazł punkt spotkania.
+	 *
+	 * @return FORWARD, BACKWARD lub NONE.
+	 */
+	public int getMeetingDirection() {
+		return meetingDirection;
+	}
+
+	@Override
+	public String toString() {
+		String direction = meetingDirection == FORWARD ? "w przód" : meetingDirection == BACKWARD ? "wstecz" : "brak";
+		return String.format("%s [w przód: %d, wstecz: %d, spotkanie: %s]", super.toString(), forwardNodes,
+				backwardNodes, direction);
+	}
+}
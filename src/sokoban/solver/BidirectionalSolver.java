@@ -0,0 +1,303 @@
+package sokoban.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+
+import sokoban.engine.DeadlockDetector;
+
+/**
+ * Solver przeszukujący przestrzeń stanów jednocześnie w dwóch kierunkach: w przód, przesuwając skrzynki od stanu początkowego, oraz wstecz, przyciągając skrzynki od układu końcowego (wszystkie skrzynki na polach wygranej, gracz w dowolnym z obszarów planszy). Oba kierunki przeszukiwane są wszerz, warstwa po warstwie - zawsze rozwijana jest mniejsza z dwóch warstw brzegowych - a odwiedzone stany obu kierunków trafiają do wspólnej tablicy transpozycji. Stan wygenerowany przez jeden kierunek i znaleziony w tablicy przez drugi wyznacza rozwiązanie; przeszukiwanie kończy się, gdy najkrótsze znalezione rozwiązanie nie przekracza sumy głębokości obu kierunków, więc wynik jest optymalny pod względem liczby przesunięć.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class BidirectionalSolver {
+
+	/**
+	 * Węzły jednego kierunku przeszukiwania.
+	 */
+	protected final class Side {
+		final int direction;
+		int[] nodeBoxes = new int[1024 * boxCount];
+		int[] nodePlayer = new int[1024], nodeParent = new int[1024], nodePush = new int[1024], nodeG = new int[1024];
+		int count = 0, depth = 0;
+		long expanded = 0;
+		int[] frontier = new int[0];
+
+		Side(int direction) {
+			this.direction = direction;
+		}
+
+		int add(int[] boxes, int player, long hash, int parent, int push) {
+			if (count == nodePlayer.length) {
+				int capacity = count * 2;
+				nodeBoxes = Arrays.copyOf(nodeBoxes, capacity * boxCount);
+				nodePlayer = Arrays.copyOf(nodePlayer, capacity);
+				nodeParent = Arrays.copyOf(nodeParent, capacity);
+				nodePush = Arrays.copyOf(nodePush, capacity);
+				nodeG = Arrays.copyOf(nodeG, capacity);
+			}
+			int id = count++;
+			System.arraycopy(boxes, 0, nodeBoxes, id * boxCount, boxCount);
+			nodePlayer[id] = player;
+			nodeParent[id] = parent;
+			nodePush[id] = push;
+			nodeG[id] = parent < 0 ? 0 : nodeG[parent] + 1;
+			table.put(hash, id << 1 | direction);
+			return id;
+		}
+	}
+
+	protected final SolverBoard board;
+	protected final int boxCount;
+	protected int nodeLimit = Solver.DEFAULT_NODE_LIMIT;
+	protected BooleanSupplier interrupt = () -> false;
+	protected boolean interrupted;
+
+	protected TranspositionTable table;
+	protected Side forward, backward;
+	protected Reachability reach, childReach;
+	protected boolean[] occupied;
+	protected DeadlockDetector deadlockDetector;
+	protected IntPredicate boxTest;
+	protected int best, bestDirection, bestParent, bestPush, bestOther;
+
+	public BidirectionalSolver(SolverBoard board) {
+		this.board = board;
+		this.boxCount = board.getBoxCount();
+	}
+
+	/**
+	 * Ustawia maksymalną łączną liczbę węzłów obu kierunków.
+	 *
+	 * @param nodeLimit Limit węzłów
+	 */
+	public void setNodeLimit(int nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Ustawia warunek przerwania sprawdzany cyklicznie w trakcie przeszukiwania (np. budżet czasu lub anulowanie).
+	 *
+	 * @param interrupt Warunek przerwania
+	 */
+	public void setInterrupt(BooleanSupplier interrupt) {
+		this.interrupt = interrupt;
+	}
+
+	/**
+	 * Uruchamia przeszukiwanie. Przeszukiwanie wstecz wymaga, aby liczba skrzynek była równa liczbie pól wygranej - w przeciwnym razie wykonywane jest zwykłe przeszukiwanie w przód.
+	 *
+	 * @return Wynik przeszukiwania.
+	 */
+	public SolverResult solve() {
+		long start = System.nanoTime();
+		if (board.isTriviallyUnsolvable()) {
+			return new BidirectionalResult(SolverResult.UNSOLVABLE, null, -1, 0, 0, BidirectionalResult.NONE,
+					System.nanoTime() - start);
+		}
+		if (board.getGoals().length != boxCount) {
+			Solver solver = new Solver(board);
+			solver.setNodeLimit(nodeLimit);
+			solver.setInterrupt(interrupt);
+			return solver.solve();
+		}
+		table = new TranspositionTable(1024);
+		forward = new Side(BidirectionalResult.FORWARD);
+		backward = new Side(BidirectionalResult.BACKWARD);
+		reach = new Reachability(board);
+		childReach = new Reachability(board);
+		occupied = new boolean[board.getCellCount()];
+		deadlockDetector = new DeadlockDetector(board.getLevel());
+		boxTest = cell -> occupied[cell];
+		best = Integer.MAX_VALUE;
+		bestDirection = BidirectionalResult.NONE;
+		interrupted = false;
+
+		Zobrist zobrist = board.getZobrist();
+		int[] goals = board.getGoals().clone();
+		Arrays.sort(goals);
+		long goalHash = zobrist.hashBoxes(goals);
+		boolean[] covered = new boolean[board.getCellCount()];
+		for (int goal : goals) {
+			occupied[goal] = true;
+		}
+		List<Integer> roots = new ArrayList<>();
+		for (int cell = 0; cell < board.getCellCount(); cell++) {
+			if (!board.isFloor(cell) || occupied[cell] || covered[cell]) {
+				continue;
+			}
+			roots.add(reach.normalize(cell, occupied));
+			for (int other = cell; other < board.getCellCount(); other++) {
+				covered[other] |= reach.isReached(other);
+			}
+		}
+		for (int root : roots) {
+			backward.add(goals, root, goalHash ^ zobrist.player(root), -1, -1);
+		}
+		backward.frontier = new int[backward.count];
+		for (int i = 0; i < backward.count; i++) {
+			backward.frontier[i] = i;
+		}
+		Arrays.fill(occupied, false);
+
+		int[] startBoxes = board.getStartBoxes();
+		for (int box : startBoxes) {
+			occupied[box] = true;
+		}
+		int startPlayer = reach.normalize(board.getStartPlayer(), occupied);
+		Arrays.fill(occupied, false);
+		if (board.isSolved(startBoxes)) {
+			return new BidirectionalResult(SolverResult.SOLVED, "", 0, 0, 0, BidirectionalResult.FORWARD,
+					System.nanoTime() - start);
+		}
+		forward.add(startBoxes, startPlayer, zobrist.hashBoxes(startBoxes) ^ zobrist.player(startPlayer), -1, -1);
+		forward.frontier = new int[] { 0 };
+
+		int status = SolverResult.UNSOLVABLE;
+		while (true) {
+			if (interrupted) {
+				status = SolverResult.INTERRUPTED;
+				break;
+			}
+			if (best <= forward.depth + backward.depth) {
+				status = SolverResult.SOLVED;
+				break;
+			}
+			if (forward.frontier.length == 0 || backward.frontier.length == 0) {
+				status = best != Integer.MAX_VALUE ? SolverResult.SOLVED : SolverResult.UNSOLVABLE;
+				break;
+			}
+			if (forward.count + backward.count >= nodeLimit) {
+				status = SolverResult.LIMIT_EXCEEDED;
+				break;
+			}
+			if (forward.frontier.length <= backward.frontier.length) {
+				expandLayer(forward, backward);
+			} else {
+				expandLayer(backward, forward);
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		if (status != SolverResult.SOLVED) {
+			return new BidirectionalResult(status, null, -1, forward.expanded, backward.expanded,
+					BidirectionalResult.NONE, elapsed);
+		}
+		int[] pushes = reconstruct();
+		return new BidirectionalResult(status, board.toLurd(pushes), pushes.length, forward.expanded,
+				backward.expanded, bestDirection, elapsed);
+	}
+
+	/**
+	 * Rozwija całą bieżącą warstwę brzegową jednego kierunku, sprawdzając każdy nowy stan w tablicy wspólnej z drugim kierunkiem. Po przerwaniu warstwa pozostaje rozwinięta tylko częściowo, a przeszukiwanie kończy się.
+	 *
+	 * @param side Rozwijany kierunek
+	 * @param other Przeciwny kierunek
+	 */
+	protected void expandLayer(Side side, Side other) {
+		Zobrist zobrist = board.getZobrist();
+		int[] boxes = new int[boxCount], child = new int[boxCount];
+		int[] next = new int[Math.max(16, side.frontier.length)];
+		int nextSize = 0;
+		int g = side.depth + 1;
+		for (int id : side.frontier) {
+			if ((side.expanded & 255) == 0 && interrupt.getAsBoolean()) {
+				interrupted = true;
+				return;
+			}
+			side.expanded++;
+			System.arraycopy(side.nodeBoxes, id * boxCount, boxes, 0, boxCount);
+			for (int box : boxes) {
+				occupied[box] = true;
+			}
+			int nodePlayer = side.nodePlayer[id];
+			reach.normalize(nodePlayer, occupied);
+			long boxHash = zobrist.hashBoxes(boxes);
+			for (int i = 0; i < boxCount; i++) {
+				int box = boxes[i];
+				for (int dir = 0; dir < 4; dir++) {
+					int stand, to, player, push;
+					if (side == forward) {
+						stand = board.neighbor(box, SolverBoard.opposite(dir));
+						to = board.neighbor(box, dir);
+						if (stand < 0 || to < 0 || occupied[to] || board.isDead(to) || !reach.isReached(stand)) {
+							continue;
+						}
+						player = box;
+						push = box * 4 + dir;
+					} else {
+						stand = board.neighbor(box, dir);
+						player = stand < 0 ? -1 : board.neighbor(stand, dir);
+						if (player < 0 || occupied[stand] || occupied[player] || board.isDead(stand)
+								|| !reach.isReached(stand)) {
+							continue;
+						}
+						to = stand;
+						push = stand * 4 + SolverBoard.opposite(dir);
+					}
+					occupied[box] = false;
+					occupied[to] = true;
+					int normalized = childReach.normalize(player, occupied);
+					boolean deadlock = side == forward && deadlockDetector.isDeadlockAfterPush(to, box, boxTest);
+					occupied[to] = false;
+					occupied[box] = true;
+					if (deadlock) {
+						continue;
+					}
+					long hash = boxHash ^ zobrist.box(box) ^ zobrist.box(to) ^ zobrist.player(normalized);
+					int existing = table.get(hash);
+					if (existing >= 0) {
+						if ((existing & 1) != side.direction && g + other.nodeG[existing >>> 1] < best) {
+							best = g + other.nodeG[existing >>> 1];
+							bestDirection = side.direction;
+							bestParent = id;
+							bestPush = push;
+							bestOther = existing >>> 1;
+						}
+						continue;
+					}
+					Solver.moveBox(boxes, child, i, to);
+					int node = side.add(child, normalized, hash, id, push);
+					if (nextSize == next.length) {
+						next = Arrays.copyOf(next, nextSize * 2);
+					}
+					next[nextSize++] = node;
+				}
+			}
+			for (int box : boxes) {
+				occupied[box] = false;
+			}
+		}
+		side.frontier = Arrays.copyOf(next, nextSize);
+		side.depth = g;
+	}
+
+	/**
+	 * Składa ciąg przesunięć z drogi od stanu początkowego do punktu spotkania oraz odwróconej drogi przeszukiwania wstecz.
+	 *
+	 * @return Przesunięcia zapisane jako indeks pola skrzynki * 4 + kierunek.
+	 */
+	protected int[] reconstruct() {
+		int forwardNode, backwardNode;
+		List<Integer> pushes = new ArrayList<>();
+		if (bestDirection == BidirectionalResult.FORWARD) {
+			forwardNode = bestParent;
+			backwardNode = bestOther;
+		} else {
+			forwardNode = bestOther;
+			backwardNode = bestParent;
+		}
+		for (int id = forwardNode; forward.nodeParent[id] >= 0; id = forward.nodeParent[id]) {
+			pushes.add(0, forward.nodePush[id]);
+		}
+		pushes.add(bestPush);
+		for (int id = backwardNode; backward.nodeParent[id] >= 0; id = backward.nodeParent[id]) {
+			pushes.add(backward.nodePush[id]);
+		}
+		return pushes.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
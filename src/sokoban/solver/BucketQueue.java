@@ -0,0 +1,87 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Kolejka priorytetowa dla małych, całkowitych priorytetów (np. f = g + h w algorytmie A*). Każdy priorytet ma własny kubełek, więc wstawianie i pobieranie odbywają się w stałym czasie zamortyzowanym. W obrębie jednego kubełka elementy pobierane są w kolejności LIFO.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class BucketQueue {
+
+	protected int[][] buckets = new int[64][];
+	protected int[] sizes = new int[64];
+	protected int min = Integer.MAX_VALUE, size = 0;
+
+	/**
+	 * Dodaje element do kolejki.
+	 *
+	 * @param priority Priorytet (nieujemny, mniejszy - ważniejszy)
+	 * @param value Wartość
+	 */
+	public void add(int priority, int value) {
+		if (priority >= buckets.length) {
+			int capacity = Math.max(priority + 1, buckets.length * 2);
+			buckets = Arrays.copyOf(buckets, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		int[] bucket = buckets[priority];
+		if (bucket == null) {
+			bucket = buckets[priority] = new int[16];
+		} else if (sizes[priority] == bucket.length) {
+			bucket = buckets[priority] = Arrays.copyOf(bucket, bucket.length * 2);
+		}
+		bucket[sizes[priority]++] = value;
+		if (priority < min) {
+			min = priority;
+		}
+		size++;
+	}
+
+	/**
+	 * Pobiera i usuwa element o najmniejszym priorytecie.
+	 *
+	 * @return Wartość elementu.
+	 */
+	public int poll() {
+		while (sizes[min] == 0) {
+			min++;
+		}
+		size--;
+		return buckets[min][--sizes[min]];
+	}
+
+	/**
+	 * Zwraca najmniejszy priorytet w kolejce.
+	 *
+	 * @return Najmniejszy priorytet lub Integer.MAX_VALUE, jeśli kolejka jest pusta.
+	 */
+	public int peekPriority() {
+		if (size == 0) {
+			return Integer.MAX_VALUE;
+		}
+		while (sizes[min] == 0) {
+			min++;
+		}
+		return min;
+	}
+
+	/**
+	 * Sprawdza, czy kolejka jest pusta.
+	 *
+	 * @return True, jeśli kolejka jest pusta.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Zwraca liczbę elementów w kolejce.
+	 *
+	 * @return Liczba elementów.
+	 */
+	public int size() {
+		return size;
+	}
+}
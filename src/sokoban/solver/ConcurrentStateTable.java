@@ -0,0 +1,97 @@
+package sokoban.solver;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bezblokadowy zbiór odwiedzonych stanów o stałej pojemności, przeznaczony dla wielowątkowego przeszukiwania. Dla każdego skrótu stanu przechowywany jest najmniejszy znany koszt dojścia (liczba przesunięć). Sloty zajmowane są operacją compare-and-set, więc wątki nigdy nie czekają na siebie nawzajem.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class ConcurrentStateTable {
+
+	/**
+	 * Stan jest nowy lub dotarto do niego mniejszym kosztem.
+	 */
+	public static final int ACCEPTED = 0;
+	/**
+	 * Stan był już osiągnięty nie większym kosztem.
+	 */
+	public static final int DUPLICATE = 1;
+	/**
+	 * Tablica jest pełna.
+	 */
+	public static final int FULL = 2;
+
+	private static final long EMPTY = 0;
+
+	protected final AtomicLongArray keys;
+	/**
+	 * Koszty powiększone o jeden - zero oznacza slot bez kosztu, więc nowej tablicy nie trzeba wypełniać.
+	 */
+	protected final AtomicIntegerArray costs;
+	protected final int mask, maxProbes;
+
+	public ConcurrentStateTable(int capacity) {
+		int size = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+		keys = new AtomicLongArray(size);
+		costs = new AtomicIntegerArray(size);
+		mask = size - 1;
+		maxProbes = Math.min(size, 4096);
+	}
+
+	/**
+	 * Próbuje zapisać stan o danym koszcie.
+	 *
+	 * @param hash Skrót stanu
+	 * @param cost Koszt dojścia do stanu
+	 * @return ACCEPTED, DUPLICATE lub FULL.
+	 */
+	public int offer(long hash, int cost) {
+		long key = hash == EMPTY ? 1 : hash;
+		int slot = TranspositionTable.spread(key) & mask;
+		for (int probe = 0; probe < maxProbes; probe++, slot = (slot + 1) & mask) {
+			long current = keys.get(slot);
+			if (current == EMPTY) {
+				if (!keys.compareAndSet(slot, EMPTY, key) && keys.get(slot) != key) {
+					continue;
+				}
+			} else if (current != key) {
+				continue;
+			}
+			while (true) {
+				int known = costs.get(slot);
+				if (known != 0 && known <= cost + 1) {
+					return DUPLICATE;
+				}
+				if (costs.compareAndSet(slot, known, cost + 1)) {
+					return ACCEPTED;
+				}
+			}
+		}
+		return FULL;
+	}
+
+	/**
+	 * Zwraca najmniejszy znany koszt dojścia do stanu.
+	 *
+	 * @param hash Skrót stanu
+	 * @return Koszt lub Integer.MAX_VALUE, jeśli stanu nie ma w tablicy.
+	 */
+	public int getCost(long hash) {
+		long key = hash == EMPTY ? 1 : hash;
+		int slot = TranspositionTable.spread(key) & mask;
+		for (int probe = 0; probe < maxProbes; probe++, slot = (slot + 1) & mask) {
+			long current = keys.get(slot);
+			if (current == EMPTY) {
+				return Integer.MAX_VALUE;
+			}
+			if (current == key) {
+				int cost = costs.get(slot);
+				return cost == 0 ? Integer.MAX_VALUE : cost - 1;
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+}
@@ -0,0 +1,493 @@
+package sokoban.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+
+import sokoban.engine.DeadlockDetector;
+
+/**
+ * Solver przeszukujący przestrzeń stanów wszerz z warstwami przechowywanymi na dysku, przeznaczony dla poziomów, których przestrzeń stanów nie mieści się w pamięci. Każda warstwa to plik posortowanych, unikalnych stanów zapisanych przez StateCodec. Następniki warstwy zbierane są w ograniczonym buforze, sortowane i zapisywane jako serie, a następnie scalane w jedną posortowaną warstwę z równoczesnym usunięciem duplikatów oraz stanów występujących w poprzednich warstwach (graf przesunięć jest skierowany, więc odejmowane są wszystkie wcześniejsze warstwy). Warstwy odczytywane są przez odwzorowanie w pamięci; rozwiązanie odtwarzane jest od stanu końcowego przez wyszukiwanie binarne poprzedników w kolejnych warstwach. Zużycie sterty zależy jedynie od rozmiaru bufora, a wejście/wyjście jest sekwencyjne.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class ExternalBfsSolver {
+
+	public static final int DEFAULT_CHUNK_STATES = 1 << 19;
+
+	/**
+	 * Warstwa odwzorowana w pamięci (w segmentach, aby obsłużyć pliki większe niż 2 GB). Segment zawiera tyle całych rekordów, ile mieści się w Integer.MAX_VALUE bajtów.
+	 */
+	protected static final class MappedLayer {
+		final int words, segmentRecords;
+		final long count;
+		final ByteBuffer[] segments;
+
+		MappedLayer(Path file, int words) throws IOException {
+			this.words = words;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long bytes = channel.size(), recordBytes = words * 8L;
+				this.count = bytes / recordBytes;
+				this.segmentRecords = (int) (Integer.MAX_VALUE / recordBytes);
+				long segmentBytes = segmentRecords * recordBytes;
+				this.segments = new ByteBuffer[(int) ((count + segmentRecords - 1) / segmentRecords)];
+				for (int i = 0; i < segments.length; i++) {
+					long offset = i * segmentBytes;
+					segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentBytes, bytes - offset));
+				}
+			}
+		}
+
+		void read(long index, long[] out) {
+			ByteBuffer segment = segments[(int) (index / segmentRecords)];
+			int offset = (int) (index % segmentRecords) * words * 8;
+			for (int i = 0; i < words; i++) {
+				out[i] = segment.getLong(offset + i * 8);
+			}
+		}
+
+		boolean contains(long[] key, long[] scratch) {
+			long low = 0, high = count - 1;
+			while (low <= high) {
+				long mid = (low + high) >>> 1;
+				read(mid, scratch);
+				int cmp = compare(scratch, 0, key, 0, words);
+				if (cmp == 0) {
+					return true;
+				} else if (cmp < 0) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Sekwencyjny odczyt posortowanego pliku stanów.
+	 */
+	protected static final class RecordReader implements AutoCloseable {
+		final DataInputStream in;
+		final long[] current;
+		boolean valid;
+
+		RecordReader(Path file, int words) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+			this.current = new long[words];
+			advance();
+		}
+
+		void advance() throws IOException {
+			try {
+				for (int i = 0; i < current.length; i++) {
+					current[i] = in.readLong();
+				}
+				valid = true;
+			} catch (EOFException e) {
+				valid = false;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	protected final SolverBoard board;
+	protected final StateCodec codec;
+	protected final Path workDir;
+	protected final int words, boxCount;
+	protected int chunkStates = DEFAULT_CHUNK_STATES;
+	protected long stateLimit = Long.MAX_VALUE;
+	protected BooleanSupplier interrupt = () -> false;
+	protected boolean interrupted;
+
+	protected final List<Path> layerFiles = new ArrayList<>();
+	protected long[] chunk, sortBuffer;
+	protected int chunkSize;
+	protected List<Path> runs;
+	protected long totalStates;
+
+	public ExternalBfsSolver(SolverBoard board, Path workDir) {
+		this.board = board;
+		this.codec = new StateCodec(board);
+		this.workDir = workDir;
+		this.words = codec.getWords();
+		this.boxCount = board.getBoxCount();
+	}
+
+	/**
+	 * Ustawia liczbę stanów bufora następników trzymanego w pamięci.
+	 *
+	 * @param chunkStates Liczba stanów w buforze
+	 */
+	public void setChunkStates(int chunkStates) {
+		this.chunkStates = chunkStates;
+	}
+
+	/**
+	 * Ustawia maksymalną łączną liczbę stanów zapisanych na dysku.
+	 *
+	 * @param stateLimit Limit stanów
+	 */
+	public void setStateLimit(long stateLimit) {
+		this.stateLimit = stateLimit;
+	}
+
+	/**
+	 * Ustawia warunek przerwania sprawdzany cyklicznie w trakcie przeszukiwania (np. budżet czasu lub anulowanie).
+	 *
+	 * @param interrupt Warunek przerwania
+	 */
+	public void setInterrupt(BooleanSupplier interrupt) {
+		this.interrupt = interrupt;
+	}
+
+	/**
+	 * Porównuje leksykograficznie dwa zapisane stany.
+	 *
+	 * @param a Tablica pierwszego stanu
+	 * @param aOffset Położenie pierwszego stanu w tablicy
+	 * @param b Tablica drugiego stanu
+	 * @param bOffset Położenie drugiego stanu w tablicy
+	 * @param words Liczba słów stanu
+	 * @return Wartość ujemna, zero lub dodatnia - jak w Comparator.compare().
+	 */
+	protected static int compare(long[] a, int aOffset, long[] b, int bOffset, int words) {
+		for (int i = 0; i < words; i++) {
+			int cmp = Long.compare(a[aOffset + i], b[bOffset + i]);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Uruchamia przeszukiwanie. Pliki robocze usuwane są po jego zakończeniu.
+	 *
+	 * @return Wynik przeszukiwania.
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public SolverResult solve() throws IOException {
+		long start = System.nanoTime();
+		if (board.isTriviallyUnsolvable()) {
+			return new SolverResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start);
+		}
+		Files.createDirectories(workDir);
+		chunk = new long[chunkStates * words];
+		sortBuffer = new long[chunkStates * words];
+		runs = new ArrayList<>();
+		totalStates = 1;
+		interrupted = false;
+		try {
+			Reachability reach = new Reachability(board);
+			boolean[] occupied = new boolean[board.getCellCount()];
+			int[] startBoxes = board.getStartBoxes();
+			for (int box : startBoxes) {
+				occupied[box] = true;
+			}
+			long[] state = new long[words];
+			codec.encode(startBoxes, reach.normalize(board.getStartPlayer(), occupied), state);
+			Path first = layerPath(0);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(first)))) {
+				for (long word : state) {
+					out.writeLong(word);
+				}
+			}
+			layerFiles.add(first);
+			if (board.isSolved(startBoxes)) {
+				return new SolverResult(SolverResult.SOLVED, "", 0, 1, System.nanoTime() - start);
+			}
+
+			long[] goal = null;
+			long expanded = 0;
+			int status = SolverResult.UNSOLVABLE;
+			while (true) {
+				MappedLayer layer = new MappedLayer(layerFiles.get(layerFiles.size() - 1), words);
+				expanded += layer.count;
+				goal = expandLayer(layer);
+				if (interrupted) {
+					status = SolverResult.INTERRUPTED;
+					break;
+				}
+				long added = mergeRuns(layerPath(layerFiles.size()));
+				totalStates += added;
+				if (goal != null) {
+					status = SolverResult.SOLVED;
+					break;
+				}
+				if (added == 0) {
+					break;
+				}
+				if (totalStates >= stateLimit) {
+					status = SolverResult.LIMIT_EXCEEDED;
+					break;
+				}
+			}
+			if (status != SolverResult.SOLVED) {
+				return new SolverResult(status, null, -1, expanded, System.nanoTime() - start);
+			}
+			int[] pushes = reconstruct(goal);
+			return new SolverResult(status, board.toLurd(pushes), pushes.length, expanded, System.nanoTime() - start);
+		} finally {
+			for (Path file : layerFiles) {
+				Files.deleteIfExists(file);
+			}
+			for (Path run : runs) {
+				Files.deleteIfExists(run);
+			}
+			layerFiles.clear();
+			chunk = sortBuffer = null;
+		}
+	}
+
+	private Path layerPath(int depth) {
+		return workDir.resolve("layer-" + depth + ".bin");
+	}
+
+	/**
+	 * Generuje następniki wszystkich stanów warstwy, zapisując je w seriach na dysku.
+	 *
+	 * @param layer Rozwijana warstwa
+	 * @return Zapisany stan końcowy, jeśli któryś z następników jest rozwiązaniem, w przeciwnym razie null (także po przerwaniu).
+	 */
+	protected long[] expandLayer(MappedLayer layer) throws IOException {
+		Reachability reach = new Reachability(board), childReach = new Reachability(board);
+		boolean[] occupied = new boolean[board.getCellCount()];
+		DeadlockDetector deadlockDetector = new DeadlockDetector(board.getLevel());
+		IntPredicate boxTest = cell -> occupied[cell];
+		int[] boxes = new int[boxCount], child = new int[boxCount];
+		long[] state = new long[words], encoded = new long[words], goal = null;
+		chunkSize = 0;
+		for (long index = 0; index < layer.count; index++) {
+			if ((index & 4095) == 0 && interrupt.getAsBoolean()) {
+				interrupted = true;
+				return null;
+			}
+			layer.read(index, state);
+			int player = codec.decode(state, boxes);
+			for (int box : boxes) {
+				occupied[box] = true;
+			}
+			reach.normalize(player, occupied);
+			for (int i = 0; i < boxCount; i++) {
+				int box = boxes[i];
+				for (int dir = 0; dir < 4; dir++) {
+					int from = board.neighbor(box, SolverBoard.opposite(dir));
+					int to = board.neighbor(box, dir);
+					if (from < 0 || to < 0 || occupied[to] || board.isDead(to) || !reach.isReached(from)) {
+						continue;
+					}
+					occupied[box] = false;
+					occupied[to] = true;
+					int childPlayer = childReach.normalize(box, occupied);
+					boolean deadlock = deadlockDetector.isDeadlockAfterPush(to, box, boxTest);
+					occupied[to] = false;
+					occupied[box] = true;
+					if (deadlock) {
+						continue;
+					}
+					Solver.moveBox(boxes, child, i, to);
+					if (chunkSize == chunkStates) {
+						flushChunk();
+					}
+					codec.encode(child, childPlayer, encoded);
+					System.arraycopy(encoded, 0, chunk, chunkSize * words, words);
+					chunkSize++;
+					if (goal == null && board.isSolved(child)) {
+						goal = encoded.clone();
+					}
+				}
+			}
+			for (int box : boxes) {
+				occupied[box] = false;
+			}
+		}
+		flushChunk();
+		return goal;
+	}
+
+	/**
+	 * Sortuje bufor następników, usuwa z niego duplikaty i zapisuje go jako serię.
+	 */
+	protected void flushChunk() throws IOException {
+		if (chunkSize == 0) {
+			return;
+		}
+		sortChunk();
+		Path run = workDir.resolve("run-" + runs.size() + ".bin");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+			for (int i = 0; i < chunkSize; i++) {
+				if (i > 0 && compare(chunk, i * words, chunk, (i - 1) * words, words) == 0) {
+					continue;
+				}
+				for (int w = 0; w < words; w++) {
+					out.writeLong(chunk[i * words + w]);
+				}
+			}
+		}
+		runs.add(run);
+		chunkSize = 0;
+	}
+
+	/**
+	 * Sortuje rekordy bufora przez scalanie wstępujące.
+	 */
+	private void sortChunk() {
+		long[] source = chunk, target = sortBuffer;
+		for (int width = 1; width < chunkSize; width *= 2) {
+			for (int low = 0; low < chunkSize; low += 2 * width) {
+				int mid = Math.min(low + width, chunkSize), high = Math.min(low + 2 * width, chunkSize);
+				int a = low, b = mid, k = low;
+				while (a < mid || b < high) {
+					int pick = b >= high || (a < mid && compare(source, a * words, source, b * words, words) <= 0) ? a++ : b++;
+					System.arraycopy(source, pick * words, target, k++ * words, words);
+				}
+			}
+			long[] swap = source;
+			source = target;
+			target = swap;
+		}
+		if (source != chunk) {
+			System.arraycopy(source, 0, chunk, 0, chunkSize * words);
+		}
+	}
+
+	/**
+	 * Scala serie w nową warstwę, pomijając duplikaty oraz stany obecne w dotychczasowych warstwach.
+	 *
+	 * @param output Plik nowej warstwy
+	 * @return Liczba stanów zapisanych w nowej warstwie.
+	 */
+	protected long mergeRuns(Path output) throws IOException {
+		List<RecordReader> inputs = new ArrayList<>(), previous = new ArrayList<>();
+		long written = 0;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), 1 << 16))) {
+			for (Path run : runs) {
+				inputs.add(new RecordReader(run, words));
+			}
+			for (Path layer : layerFiles) {
+				previous.add(new RecordReader(layer, words));
+			}
+			long[] last = null;
+			while (true) {
+				RecordReader min = null;
+				for (RecordReader reader : inputs) {
+					if (reader.valid && (min == null || compare(reader.current, 0, min.current, 0, words) < 0)) {
+						min = reader;
+					}
+				}
+				if (min == null) {
+					break;
+				}
+				long[] candidate = min.current.clone();
+				min.advance();
+				if (last != null && compare(candidate, 0, last, 0, words) == 0) {
+					continue;
+				}
+				last = candidate;
+				if (isInPrevious(previous, candidate)) {
+					continue;
+				}
+				for (long word : candidate) {
+					out.writeLong(word);
+				}
+				written++;
+			}
+		} finally {
+			for (RecordReader reader : inputs) {
+				reader.close();
+			}
+			for (RecordReader reader : previous) {
+				reader.close();
+			}
+		}
+		for (Path run : runs) {
+			Files.deleteIfExists(run);
+		}
+		runs.clear();
+		layerFiles.add(output);
+		return written;
+	}
+
+	private static boolean isInPrevious(List<RecordReader> previous, long[] candidate) throws IOException {
+		boolean found = false;
+		for (RecordReader reader : previous) {
+			int cmp = -1;
+			while (reader.valid && (cmp = compare(reader.current, 0, candidate, 0, candidate.length)) < 0) {
+				reader.advance();
+			}
+			found |= reader.valid && cmp == 0;
+		}
+		return found;
+	}
+
+	/**
+	 * Odtwarza rozwiązanie, szukając dla każdego stanu poprzednika (przez przyciągnięcie skrzynki) w poprzedniej warstwie.
+	 *
+	 * @param goal Zapisany stan końcowy
+	 * @return Przesunięcia zapisane jako indeks pola skrzynki * 4 + kierunek.
+	 */
+	protected int[] reconstruct(long[] goal) throws IOException {
+		int depth = layerFiles.size() - 1;
+		int[] pushes = new int[depth];
+		Reachability reach = new Reachability(board), previousReach = new Reachability(board);
+		boolean[] occupied = new boolean[board.getCellCount()];
+		int[] boxes = new int[boxCount], previousBoxes = new int[boxCount];
+		long[] state = goal.clone(), key = new long[words], scratch = new long[words];
+		for (int k = depth; k > 0; k--) {
+			MappedLayer layer = new MappedLayer(layerFiles.get(k - 1), words);
+			int player = codec.decode(state, boxes);
+			for (int box : boxes) {
+				occupied[box] = true;
+			}
+			reach.normalize(player, occupied);
+			boolean found = false;
+			for (int i = 0; i < boxCount && !found; i++) {
+				int box = boxes[i];
+				for (int dir = 0; dir < 4 && !found; dir++) {
+					int stand = board.neighbor(box, dir);
+					int behind = stand < 0 ? -1 : board.neighbor(stand, dir);
+					if (behind < 0 || occupied[stand] || occupied[behind] || !reach.isReached(stand)) {
+						continue;
+					}
+					occupied[box] = false;
+					occupied[stand] = true;
+					int previousPlayer = previousReach.normalize(behind, occupied);
+					occupied[stand] = false;
+					occupied[box] = true;
+					Solver.moveBox(boxes, previousBoxes, i, stand);
+					codec.encode(previousBoxes, previousPlayer, key);
+					if (layer.contains(key, scratch)) {
+						pushes[k - 1] = stand * 4 + SolverBoard.opposite(dir);
+						System.arraycopy(key, 0, state, 0, words);
+						found = true;
+					}
+				}
+			}
+			for (int box : boxes) {
+				occupied[box] = false;
+			}
+			if (!found) {
+				throw new IllegalStateException("ExternalBfsSolver - Missing predecessor in layer " + (k - 1));
+			}
+		}
+		return pushes;
+	}
+}
@@ -0,0 +1,108 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Magazyn węzłów trzymany na stercie w równoległych tablicach prostych. Stany identyfikowane są wyłącznie 64-bitowym skrótem Zobrista zapisanym w tablicy transpozycji.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HeapNodeStore implements NodeStore {
+
+	protected final int boxCount;
+	protected final TranspositionTable table = new TranspositionTable(1024);
+
+	protected int[] nodeBoxes;
+	protected int[] nodePlayer, nodeParent, nodeG, nodePush;
+	protected boolean[] nodeClosed;
+	protected int nodeCount = 0;
+
+	public HeapNodeStore(SolverBoard board) {
+		this.boxCount = board.getBoxCount();
+		int capacity = 1024;
+		nodeBoxes = new int[capacity * boxCount];
+		nodePlayer = new int[capacity];
+		nodeParent = new int[capacity];
+		nodeG = new int[capacity];
+		nodePush = new int[capacity];
+		nodeClosed = new boolean[capacity];
+	}
+
+	@Override
+	public int find(int[] boxes, int player, long hash) {
+		return table.get(hash);
+	}
+
+	@Override
+	public int add(int[] boxes, int player, long hash, int parent, int g, int push) {
+		if (nodeCount == nodePlayer.length) {
+			int capacity = nodeCount * 2;
+			nodeBoxes = Arrays.copyOf(nodeBoxes, capacity * boxCount);
+			nodePlayer = Arrays.copyOf(nodePlayer, capacity);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeG = Arrays.copyOf(nodeG, capacity);
+			nodePush = Arrays.copyOf(nodePush, capacity);
+			nodeClosed = Arrays.copyOf(nodeClosed, capacity);
+		}
+		int id = nodeCount++;
+		System.arraycopy(boxes, 0, nodeBoxes, id * boxCount, boxCount);
+		nodePlayer[id] = player;
+		nodeParent[id] = parent;
+		nodeG[id] = g;
+		nodePush[id] = push;
+		table.put(hash, id);
+		return id;
+	}
+
+	@Override
+	public void update(int id, int parent, int g, int push) {
+		nodeParent[id] = parent;
+		nodeG[id] = g;
+		nodePush[id] = push;
+	}
+
+	@Override
+	public void loadBoxes(int id, int[] boxes) {
+		System.arraycopy(nodeBoxes, id * boxCount, boxes, 0, boxCount);
+	}
+
+	@Override
+	public int getPlayer(int id) {
+		return nodePlayer[id];
+	}
+
+	@Override
+	public int getParent(int id) {
+		return nodeParent[id];
+	}
+
+	@Override
+	public int getG(int id) {
+		return nodeG[id];
+	}
+
+	@Override
+	public int getPush(int id) {
+		return nodePush[id];
+	}
+
+	@Override
+	public boolean isClosed(int id) {
+		return nodeClosed[id];
+	}
+
+	@Override
+	public void setClosed(int id) {
+		nodeClosed[id] = true;
+	}
+
+	@Override
+	public int size() {
+		return nodeCount;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,32 @@
+package sokoban.solver;
+
+/**
+ * Interfejs dolnego ograniczenia liczby przesunięć potrzebnych do rozwiązania poziomu. Oszacowanie musi być dopuszczalne (nigdy nie przekraczać rzeczywistej liczby przesunięć), aby solver zachował optymalność. Implementacja pamięta ostatnio załadowany układ skrzynek, dzięki czemu oszacowanie dla następnika różniącego się położeniem jednej skrzynki może zostać wyznaczone przyrostowo. Obiekt przechowuje stan roboczy, więc każdy wątek powinien mieć własną instancję.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public interface Heuristic {
+
+	/**
+	 * Wartość oznaczająca, że z danego układu skrzynek nie da się osiągnąć rozwiązania.
+	 */
+	int INFINITE = Integer.MAX_VALUE;
+
+	/**
+	 * Ładuje układ skrzynek i oblicza dla niego oszacowanie od podstaw.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @return Oszacowanie lub INFINITE.
+	 */
+	int reset(int[] boxes);
+
+	/**
+	 * Oblicza oszacowanie dla układu powstałego z ostatnio załadowanego przez przesunięcie jednej skrzynki. Załadowany układ nie ulega zmianie.
+	 *
+	 * @param index Indeks przesuwanej skrzynki w tablicy przekazanej do reset()
+	 * @param to Nowe pole skrzynki
+	 * @return Oszacowanie lub INFINITE.
+	 */
+	int estimateMove(int index, int to);
+}
@@ -0,0 +1,154 @@
+package sokoban.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+
+/**
+ * Usługa podpowiedzi dla jednego poziomu. Dla każdego stanu leżącego na znalezionym rozwiązaniu zapamiętuje następne przesunięcie w pamięci podręcznej LRU (LinkedHashMap w porządku dostępu) indeksowanej 64-bitowym skrótem Zobrista stanu (układ skrzynek i znormalizowana pozycja gracza). Kolejne podpowiedzi wzdłuż znanego rozwiązania nie wymagają więc ponownego uruchamiania solvera. Podpowiedzi z rozwiązania, którego optymalności nie wykazano (np. z ważonego A* w AnytimeSolver), zapamiętywane są jako tymczasowe - zastępuje je podpowiedź z rozwiązania optymalnego, ale one same nie zastępują podpowiedzi optymalnych. Obiekt nie jest bezpieczny wątkowo - przeznaczony jest do użycia z wątku obsługi zdarzeń.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HintService {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Brak podpowiedzi w pamięci podręcznej.
+	 */
+	public static final int MISS = -1;
+	/**
+	 * Z danego stanu nie da się ukończyć poziomu.
+	 */
+	public static final int NO_SOLUTION = -2;
+
+	/**
+	 * Znacznik podpowiedzi tymczasowej w wartościach pamięci podręcznej.
+	 */
+	private static final int PROVISIONAL = 1 << 30;
+
+	protected final SolverBoard board;
+	protected final Reachability reach;
+	protected final boolean[] occupied;
+	protected final Map<Long, Integer> cache;
+
+	public HintService(Level level) {
+		this(level, DEFAULT_CAPACITY);
+	}
+
+	@SuppressWarnings("serial")
+	public HintService(Level level, int capacity) {
+		this.board = new SolverBoard(level);
+		this.reach = new Reachability(board);
+		this.occupied = new boolean[board.getCellCount()];
+		this.cache = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Zwraca podpowiedź dla danego stanu gry z pamięci podręcznej.
+	 *
+	 * @param state Stan gry
+	 * @return Przesunięcie (pole skrzynki * 4 + kierunek), MISS lub NO_SOLUTION.
+	 */
+	public int getHint(GameState state) {
+		Integer push = cache.get(hash(state));
+		return push == null ? MISS : push < 0 ? push : push & ~PROVISIONAL;
+	}
+
+	/**
+	 * Sprawdza, czy podpowiedź dla danego stanu gry pochodzi z rozwiązania optymalnego.
+	 *
+	 * @param state Stan gry
+	 * @return True, jeśli w pamięci podręcznej jest podpowiedź z rozwiązania optymalnego.
+	 */
+	public boolean isOptimal(GameState state) {
+		Integer push = cache.get(hash(state));
+		return push != null && push >= 0 && (push & PROVISIONAL) == 0;
+	}
+
+	/**
+	 * Zapamiętuje wynik solvera uruchomionego od danego stanu: następne przesunięcie dla każdego stanu na drodze rozwiązania lub brak rozwiązania dla stanu początkowego. Rozwiązanie z AnytimeResult, które nie jest optymalne, zapamiętywane jest jako tymczasowe; pozostałe wyniki traktowane są jak wyniki zwykłego solvera A*, czyli jako optymalne.
+	 *
+	 * @param start Dane poziomu ze stanem, od którego uruchomiono solver
+	 * @param result Wynik solvera
+	 */
+	public void store(SolverBoard start, SolverResult result) {
+		int[] boxes = start.getStartBoxes().clone();
+		int player = start.getStartPlayer();
+		if (result.getStatus() == SolverResult.UNSOLVABLE) {
+			cache.put(hash(boxes, player), NO_SOLUTION);
+			return;
+		}
+		if (!result.isSolved()) {
+			return;
+		}
+		boolean optimal = !(result instanceof AnytimeResult) || ((AnytimeResult) result).isOptimal();
+		String solution = result.getSolution();
+		for (int i = 0; i < solution.length(); i++) {
+			char c = solution.charAt(i);
+			int dir = direction(c);
+			int next = board.neighbor(player, dir);
+			if (Character.isUpperCase(c)) {
+				long key = hash(boxes, player);
+				Integer existing = optimal ? null : cache.get(key);
+				if (existing == null || existing < 0 || (existing & PROVISIONAL) != 0) {
+					cache.put(key, optimal ? next * 4 + dir : (next * 4 + dir) | PROVISIONAL);
+				}
+				for (int k = 0; k < boxes.length; k++) {
+					if (boxes[k] == next) {
+						boxes[k] = board.neighbor(next, dir);
+					}
+				}
+			}
+			player = next;
+		}
+	}
+
+	private static int direction(char c) {
+		char letter = Character.toLowerCase(c);
+		for (int dir = 0; dir < 4; dir++) {
+			if (SolverBoard.DIRECTION_LETTERS[dir] == letter) {
+				return dir;
+			}
+		}
+		throw new IllegalArgumentException("HintService - Invalid LURD character: " + c);
+	}
+
+	private long hash(GameState state) {
+		return hash(state.getBoxIndices(), state.getPlayerY() * board.getWidth() + state.getPlayerX());
+	}
+
+	/**
+	 * Oblicza skrót stanu: klucze Zobrista skrzynek i znormalizowanej pozycji gracza.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @param player Pole gracza
+	 * @return Skrót stanu.
+	 */
+	protected long hash(int[] boxes, int player) {
+		for (int box : boxes) {
+			occupied[box] = true;
+		}
+		int normalized = reach.normalize(player, occupied);
+		for (int box : boxes) {
+			occupied[box] = false;
+		}
+		Zobrist zobrist = board.getZobrist();
+		return zobrist.hashBoxes(boxes) ^ zobrist.player(normalized);
+	}
+
+	/**
+	 * Czyści pamięć podręczną.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+}
@@ -0,0 +1,30 @@
+package sokoban.solver;
+
+/**
+ * Najprostsze oszacowanie: suma odległości w metryce Manhattan każdej skrzynki od najbliższego pola wygranej. Nie uwzględnia ścian ani tego, że dwie skrzynki nie mogą zająć jednego pola wygranej.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class ManhattanHeuristic implements Heuristic {
+
+	protected final SolverBoard board;
+	protected int[] boxes;
+	protected int current;
+
+	public ManhattanHeuristic(SolverBoard board) {
+		this.board = board;
+	}
+
+	@Override
+	public int reset(int[] boxes) {
+		this.boxes = boxes;
+		current = board.estimate(boxes);
+		return current;
+	}
+
+	@Override
+	public int estimateMove(int index, int to) {
+		return current - board.getGoalDistance(boxes[index]) + board.getGoalDistance(to);
+	}
+}
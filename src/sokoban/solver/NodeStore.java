@@ -0,0 +1,116 @@
+package sokoban.solver;
+
+/**
+ * Interfejs magazynu węzłów przeszukiwania używanego przez Solver. Węzeł przechowuje układ skrzynek, znormalizowaną pozycję gracza, rodzica, koszt g oraz przesunięcie prowadzące od rodzica. Magazyn pełni jednocześnie rolę zbioru odwiedzonych stanów.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public interface NodeStore extends AutoCloseable {
+
+	/**
+	 * Wartość zwracana, gdy węzła nie ma w magazynie lub gdy magazyn jest pełny.
+	 */
+	int NONE = -1;
+
+	/**
+	 * Wyszukuje węzeł o danym stanie.
+	 *
+	 * @param boxes Posortowane indeksy pól ze skrzynkami
+	 * @param player Znormalizowane pole gracza
+	 * @param hash Skrót Zobrista stanu
+	 * @return Identyfikator węzła lub NONE.
+	 */
+	int find(int[] boxes, int player, long hash);
+
+	/**
+	 * Dodaje nowy węzeł. Stan nie może znajdować się jeszcze w magazynie.
+	 *
+	 * @param boxes Posortowane indeksy pól ze skrzynkami
+	 * @param player Znormalizowane pole gracza
+	 * @param hash Skrót Zobrista stanu
+	 * @param parent Identyfikator rodzica lub NONE
+	 * @param g Liczba przesunięć od stanu początkowego
+	 * @param push Przesunięcie prowadzące od rodzica (pole skrzynki * 4 + kierunek)
+	 * @return Identyfikator węzła lub NONE, jeśli magazyn jest pełny.
+	 */
+	int add(int[] boxes, int player, long hash, int parent, int g, int push);
+
+	/**
+	 * Zmienia rodzica, koszt i przesunięcie węzła po znalezieniu krótszej drogi.
+	 *
+	 * @param id Identyfikator węzła
+	 * @param parent Nowy rodzic
+	 * @param g Nowy koszt
+	 * @param push Nowe przesunięcie
+	 */
+	void update(int id, int parent, int g, int push);
+
+	/**
+	 * Kopiuje układ skrzynek węzła do podanej tablicy.
+	 *
+	 * @param id Identyfikator węzła
+	 * @param boxes Tablica docelowa
+	 */
+	void loadBoxes(int id, int[] boxes);
+
+	/**
+	 * Zwraca znormalizowane pole gracza w węźle.
+	 *
+	 * @param id Identyfikator węzła
+	 * @return Pole gracza.
+	 */
+	int getPlayer(int id);
+
+	/**
+	 * Zwraca rodzica węzła.
+	 *
+	 * @param id Identyfikator węzła
+	 * @return Identyfikator rodzica lub NONE dla korzenia.
+	 */
+	int getParent(int id);
+
+	/**
+	 * Zwraca liczbę przesunięć od stanu początkowego.
+	 *
+	 * @param id Identyfikator węzła
+	 * @return Koszt g.
+	 */
+	int getG(int id);
+
+	/**
+	 * Zwraca przesunięcie prowadzące od rodzica do węzła.
+	 *
+	 * @param id Identyfikator węzła
+	 * @return Przesunięcie (pole skrzynki * 4 + kierunek).
+	 */
+	int getPush(int id);
+
+	/**
+	 * Sprawdza, czy węzeł został już rozwinięty.
+	 *
+	 * @param id Identyfikator węzła
+	 * @return True, jeśli węzeł jest zamknięty.
+	 */
+	boolean isClosed(int id);
+
+	/**
+	 * Oznacza węzeł jako rozwinięty.
+	 *
+	 * @param id Identyfikator węzła
+	 */
+	void setClosed(int id);
+
+	/**
+	 * Zwraca liczbę węzłów w magazynie.
+	 *
+	 * @return Liczba węzłów.
+	 */
+	int size();
+
+	/**
+	 * Zwalnia zasoby magazynu.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,255 @@
+package sokoban.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Magazyn węzłów przechowywany poza stertą - w buforach bezpośrednich lub w pliku odwzorowanym w pamięci. Magazyn jest tablicą z adresowaniem otwartym o stałej pojemności, w której każdy rekord zawiera stan zapisany przez StateCodec, rodzica, koszt g, przesunięcie oraz flagi. Rekord zajmuje 8 * słowa + 16 bajtów, a tablica dzielona jest na segmenty mniejsze niż 1 GB, więc jej rozmiar nie jest ograniczony limitem pojedynczego bufora. Węzły nie obciążają odśmiecacza pamięci, a close() zwalnia segmenty od razu, bez czekania na odśmiecanie obiektów buforów.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class OffHeapNodeStore implements NodeStore {
+
+	private static final int USED = 1, CLOSED = 2;
+	private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+	/**
+	 * Obiekt i metoda sun.misc.Unsafe.invokeCleaner, zwalniająca pamięć bufora bezpośredniego lub odwzorowania pliku (null, jeśli nie są dostępne).
+	 */
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// bufory zostaną zwolnione przez odśmiecacz pamięci
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	protected final StateCodec codec;
+	protected final int words, recordBytes;
+	protected final int capacity, mask, maxSize;
+	protected final int segmentShift, segmentMask;
+	protected final ByteBuffer[] segments;
+	protected final FileChannel channel;
+	protected final long[] key, stored;
+	protected int size = 0;
+
+	/**
+	 * Tworzy magazyn w buforach bezpośrednich (ich łączny rozmiar ogranicza opcja -XX:MaxDirectMemorySize).
+	 *
+	 * @param board Dane poziomu
+	 * @param capacity Minimalna liczba rekordów tablicy
+	 */
+	public OffHeapNodeStore(SolverBoard board, int capacity) {
+		this(board, capacity, null);
+	}
+
+	/**
+	 * Tworzy magazyn w pliku odwzorowanym w pamięci. Plik usuwany jest przy zamknięciu magazynu.
+	 *
+	 * @param board Dane poziomu
+	 * @param capacity Minimalna liczba rekordów tablicy
+	 * @param file Plik roboczy lub null, aby użyć buforów bezpośrednich
+	 */
+	public OffHeapNodeStore(SolverBoard board, int capacity, Path file) {
+		this.codec = new StateCodec(board);
+		this.words = codec.getWords();
+		this.recordBytes = words * 8 + 16;
+		this.capacity = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 30) * 2 - 1));
+		this.mask = this.capacity - 1;
+		this.maxSize = this.capacity - (this.capacity >>> 2);
+		int perSegment = Math.min(this.capacity, Integer.highestOneBit(MAX_SEGMENT_BYTES / recordBytes));
+		this.segmentShift = Integer.numberOfTrailingZeros(perSegment);
+		this.segmentMask = perSegment - 1;
+		this.segments = new ByteBuffer[this.capacity / perSegment];
+		this.key = new long[words];
+		this.stored = new long[words];
+		try {
+			this.channel = file == null ? null : FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			long segmentBytes = (long) perSegment * recordBytes;
+			for (int i = 0; i < segments.length; i++) {
+				ByteBuffer buffer = channel == null ? ByteBuffer.allocateDirect((int) segmentBytes)
+						: channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+				segments[i] = buffer.order(ByteOrder.nativeOrder());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("OffHeapNodeStore - Cannot map " + file, e);
+		}
+	}
+
+	private ByteBuffer segment(int id) {
+		return segments[id >>> segmentShift];
+	}
+
+	private int offset(int id) {
+		return (id & segmentMask) * recordBytes;
+	}
+
+	private int flags(int id) {
+		return segment(id).getInt(offset(id) + words * 8 + 12);
+	}
+
+	private boolean matches(ByteBuffer buffer, int offset) {
+		for (int i = 0; i < words; i++) {
+			if (buffer.getLong(offset + i * 8) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int find(int[] boxes, int player, long hash) {
+		codec.encode(boxes, player, key);
+		int id = TranspositionTable.spread(hash) & mask;
+		while (true) {
+			ByteBuffer buffer = segment(id);
+			int offset = offset(id);
+			if (buffer.getInt(offset + words * 8 + 12) == 0) {
+				return NONE;
+			}
+			if (matches(buffer, offset)) {
+				return id;
+			}
+			id = (id + 1) & mask;
+		}
+	}
+
+	@Override
+	public int add(int[] boxes, int player, long hash, int parent, int g, int push) {
+		if (size >= maxSize) {
+			return NONE;
+		}
+		codec.encode(boxes, player, key);
+		int id = TranspositionTable.spread(hash) & mask;
+		while (flags(id) != 0) {
+			id = (id + 1) & mask;
+		}
+		ByteBuffer buffer = segment(id);
+		int offset = offset(id);
+		for (int i = 0; i < words; i++) {
+			buffer.putLong(offset + i * 8, key[i]);
+		}
+		offset += words * 8;
+		buffer.putInt(offset, parent);
+		buffer.putInt(offset + 4, g);
+		buffer.putInt(offset + 8, push);
+		buffer.putInt(offset + 12, USED);
+		size++;
+		return id;
+	}
+
+	@Override
+	public void update(int id, int parent, int g, int push) {
+		ByteBuffer buffer = segment(id);
+		int offset = offset(id) + words * 8;
+		buffer.putInt(offset, parent);
+		buffer.putInt(offset + 4, g);
+		buffer.putInt(offset + 8, push);
+	}
+
+	@Override
+	public void loadBoxes(int id, int[] boxes) {
+		readState(id);
+		codec.decode(stored, boxes);
+	}
+
+	@Override
+	public int getPlayer(int id) {
+		readState(id);
+		return codec.decodePlayer(stored);
+	}
+
+	private void readState(int id) {
+		ByteBuffer buffer = segment(id);
+		int offset = offset(id);
+		for (int i = 0; i < words; i++) {
+			stored[i] = buffer.getLong(offset + i * 8);
+		}
+	}
+
+	@Override
+	public int getParent(int id) {
+		return segment(id).getInt(offset(id) + words * 8);
+	}
+
+	@Override
+	public int getG(int id) {
+		return segment(id).getInt(offset(id) + words * 8 + 4);
+	}
+
+	@Override
+	public int getPush(int id) {
+		return segment(id).getInt(offset(id) + words * 8 + 8);
+	}
+
+	@Override
+	public boolean isClosed(int id) {
+		return (flags(id) & CLOSED) != 0;
+	}
+
+	@Override
+	public void setClosed(int id) {
+		segment(id).putInt(offset(id) + words * 8 + 12, USED | CLOSED);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Zwraca liczbę bajtów zajmowanych przez jeden rekord.
+	 *
+	 * @return Rozmiar rekordu w bajtach.
+	 */
+	public int getRecordBytes() {
+		return recordBytes;
+	}
+
+	/**
+	 * Zwalnia wszystkie segmenty i usuwa plik roboczy. Po zamknięciu magazynu nie wolno już z niego korzystać.
+	 */
+	@Override
+	public void close() {
+		for (int i = 0; i < segments.length; i++) {
+			ByteBuffer buffer = segments[i];
+			segments[i] = null;
+			if (buffer != null && INVOKE_CLEANER != null) {
+				try {
+					INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				} catch (ReflectiveOperationException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package sokoban.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import sokoban.engine.DeadlockDetector;
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+
+/**
+ * Wielowątkowy wariant solvera. Węzły o tej samej wartości f = g + h dzielone są dodatkowo według g, a warstwy o tym samym f i g rozwijane są równolegle w puli ForkJoinPool (z podkradaniem zadań między wątkami). Odwiedzone stany trafiają do bezblokadowej tablicy ConcurrentStateTable. Tak jak w solverze sekwencyjnym, w obrębie jednej wartości f pierwszeństwo mają węzły najgłębsze (o największym g), z kubełka pobieranych jest w jednej rundzie co najwyżej SPLIT_THRESHOLD węzłów na wątek, od ostatnio dodanych, a każdy wątek od razu rozwija ostatniego następnika o tym samym f - dzięki temu przeszukiwanie schodzi w głąb jak w solverze sekwencyjnym, a rozwiązanie znajdowane jest bez rozwijania całej ostatniej warstwy f. Ponieważ oszacowanie jest spójne, a kolejne wartości f przetwarzane są w całości przed przejściem do następnej, znalezione rozwiązanie jest optymalne pod względem liczby przesunięć.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class ParallelSolver {
+
+	public static final int DEFAULT_CAPACITY = 1 << 22;
+
+	/**
+	 * Liczba węzłów rozwijanych przez jedno zadanie puli - runda rozwija co najwyżej tyle węzłów na wątek.
+	 */
+	private static final int SPLIT_THRESHOLD = 16;
+
+	/**
+	 * Węzeł przeszukiwania.
+	 */
+	protected static final class Node {
+		final int[] boxes;
+		final int player, g, h, push;
+		final long hash;
+		final Node parent;
+
+		Node(int[] boxes, int player, long hash, int g, int h, Node parent, int push) {
+			this.boxes = boxes;
+			this.player = player;
+			this.hash = hash;
+			this.g = g;
+			this.h = h;
+			this.parent = parent;
+			this.push = push;
+		}
+	}
+
+	/**
+	 * Dane robocze pojedynczego wątku.
+	 */
+	protected final class Worker {
+		final Reachability reach = new Reachability(board), childReach = new Reachability(board);
+		final boolean[] occupied = new boolean[board.getCellCount()];
+		final DeadlockDetector deadlockDetector = new DeadlockDetector(board.getLevel());
+		final IntPredicate boxTest = cell -> occupied[cell];
+		final Heuristic heuristic = heuristicFactory.apply(board);
+	}
+
+	/**
+	 * Zadanie rozwijające fragment listy węzłów o tych samych wartościach f i g.
+	 */
+	@SuppressWarnings("serial")
+	protected final class ExpandTask extends RecursiveAction {
+		final Node[] batch;
+		final int from, to;
+
+		ExpandTask(Node[] batch, int from, int to) {
+			this.batch = batch;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > SPLIT_THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ExpandTask(batch, from, mid), new ExpandTask(batch, mid, to));
+				return;
+			}
+			Worker worker = workers.get();
+			for (int i = from; i < to && !stop.get(); i++) {
+				if ((i & 63) == 0 && interrupt.getAsBoolean()) {
+					interrupted.set(true);
+					stop.set(true);
+					break;
+				}
+				for (Node node = batch[i]; node != null && !stop.get(); node = expand(node, worker)) {
+				}
+			}
+		}
+	}
+
+	protected final SolverBoard board;
+	protected final int threads;
+	protected int capacity = DEFAULT_CAPACITY;
+	protected Function<SolverBoard, Heuristic> heuristicFactory = AssignmentHeuristic::new;
+	protected BooleanSupplier interrupt = () -> false;
+
+	protected ConcurrentStateTable table;
+	protected List<List<ConcurrentLinkedDeque<Node>>> buckets;
+	protected ThreadLocal<Worker> workers;
+	protected AtomicReference<Node> solution;
+	protected AtomicBoolean stop, full, interrupted;
+	protected LongAdder expanded;
+
+	public ParallelSolver(Level level, int threads) {
+		this(new SolverBoard(level), threads);
+	}
+
+	public ParallelSolver(GameState state, int threads) {
+		this(new SolverBoard(state), threads);
+	}
+
+	public ParallelSolver(SolverBoard board, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("ParallelSolver - Thread count must be positive!");
+		}
+		this.board = board;
+		this.threads = threads;
+	}
+
+	public ParallelSolver(Level level) {
+		this(level, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Ustawia pojemność tablicy odwiedzonych stanów.
+	 *
+	 * @param capacity Maksymalna liczba stanów
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Ustawia oszacowanie używane przez solver (domyślnie AssignmentHeuristic). Każdy wątek otrzymuje własną instancję.
+	 *
+	 * @param heuristicFactory Funkcja tworząca oszacowanie dla danych poziomu
+	 */
+	public void setHeuristic(Function<SolverBoard, Heuristic> heuristicFactory) {
+		this.heuristicFactory = heuristicFactory;
+	}
+
+	/**
+	 * Ustawia warunek przerwania sprawdzany cyklicznie przez wątki rozwijające węzły (np. budżet czasu).
+	 *
+	 * @param interrupt Warunek przerwania
+	 */
+	public void setInterrupt(BooleanSupplier interrupt) {
+		this.interrupt = interrupt;
+	}
+
+	/**
+	 * Zwraca liczbę wątków przeszukiwania.
+	 *
+	 * @return Liczba wątków.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Uruchamia przeszukiwanie.
+	 *
+	 * @return Wynik przeszukiwania.
+	 */
+	public SolverResult solve() {
+		long start = System.nanoTime();
+		if (board.isTriviallyUnsolvable()) {
+			return new SolverResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start);
+		}
+		table = new ConcurrentStateTable(capacity);
+		buckets = new CopyOnWriteArrayList<>();
+		workers = ThreadLocal.withInitial(Worker::new);
+		solution = new AtomicReference<>();
+		stop = new AtomicBoolean();
+		full = new AtomicBoolean();
+		interrupted = new AtomicBoolean();
+		expanded = new LongAdder();
+
+		Worker worker = new Worker();
+		int[] startBoxes = board.getStartBoxes().clone();
+		for (int box : startBoxes) {
+			worker.occupied[box] = true;
+		}
+		int player = worker.reach.normalize(board.getStartPlayer(), worker.occupied);
+		long hash = board.getZobrist().hashBoxes(startBoxes) ^ board.getZobrist().player(player);
+		int h = worker.heuristic.reset(startBoxes);
+		if (h == Heuristic.INFINITE) {
+			return new SolverResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start);
+		}
+		Node root = new Node(startBoxes, player, hash, 0, h, null, -1);
+		table.offer(hash, 0);
+		enqueue(root);
+
+		int roundSize = threads * SPLIT_THRESHOLD;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (int f = root.h; f < buckets.size() && !stop.get(); f++) {
+				List<ConcurrentLinkedDeque<Node>> layers = buckets.get(f);
+				for (int g = deepest(layers); g >= 0 && !stop.get(); g = deepest(layers)) {
+					ConcurrentLinkedDeque<Node> layer = layers.get(g);
+					List<Node> round = new ArrayList<>();
+					Node node;
+					while (round.size() < roundSize && (node = layer.poll()) != null) {
+						if (table.getCost(node.hash) == node.g) {
+							round.add(node);
+						}
+					}
+					Node[] batch = round.toArray(new Node[0]);
+					ExpandTask task = new ExpandTask(batch, 0, batch.length);
+					if (batch.length > SPLIT_THRESHOLD) {
+						pool.invoke(task);
+					} else {
+						// mała warstwa - przekazanie jej do puli kosztowałoby więcej niż jej rozwinięcie
+						task.compute();
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		long elapsed = System.nanoTime() - start;
+		Node goal = solution.get();
+		if (goal == null) {
+			int status = full.get() ? SolverResult.LIMIT_EXCEEDED
+					: interrupted.get() ? SolverResult.INTERRUPTED : SolverResult.UNSOLVABLE;
+			return new SolverResult(status, null, -1, expanded.sum(), elapsed);
+		}
+		int[] pushes = new int[goal.g];
+		for (Node node = goal; node.parent != null; node = node.parent) {
+			pushes[node.g - 1] = node.push;
+		}
+		return new SolverResult(SolverResult.SOLVED, board.toLurd(pushes), pushes.length, expanded.sum(), elapsed);
+	}
+
+	/**
+	 * Dodaje węzeł do kubełka odpowiadającego jego wartościom f i g.
+	 *
+	 * @param node Węzeł
+	 */
+	protected void enqueue(Node node) {
+		List<ConcurrentLinkedDeque<Node>> layers = slot(buckets, node.g + node.h, CopyOnWriteArrayList::new);
+		slot(layers, node.g, ConcurrentLinkedDeque::new).push(node);
+	}
+
+	/**
+	 * Zwraca element listy o podanym indeksie, w razie potrzeby wydłużając listę o nowe elementy.
+	 */
+	private static <T> T slot(List<T> list, int index, Supplier<T> factory) {
+		if (index >= list.size()) {
+			synchronized (list) {
+				while (index >= list.size()) {
+					list.add(factory.get());
+				}
+			}
+		}
+		return list.get(index);
+	}
+
+	/**
+	 * Zwraca największe g, dla którego kubełek danej wartości f zawiera węzły.
+	 *
+	 * @param layers Kubełki jednej wartości f, indeksowane przez g
+	 * @return Największe g lub -1, jeśli wszystkie kubełki są puste.
+	 */
+	private static int deepest(List<ConcurrentLinkedDeque<Node>> layers) {
+		for (int g = layers.size() - 1; g >= 0; g--) {
+			if (!layers.get(g).isEmpty()) {
+				return g;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Rozwija pojedynczy węzeł, dodając jego następników do kubełków. Ostatni następnik o tej samej wartości f nie trafia do kubełka, tylko jest zwracany, aby wątek rozwinął go od razu - tak jak solver sekwencyjny, który pobiera z kubełka ostatnio dodany węzeł.
+	 *
+	 * @param node Rozwijany węzeł
+	 * @param worker Dane robocze bieżącego wątku
+	 * @return Następnik do rozwinięcia w następnej kolejności lub null.
+	 */
+	protected Node expand(Node node, Worker worker) {
+		expanded.increment();
+		if (board.isSolved(node.boxes)) {
+			solution.compareAndSet(null, node);
+			stop.set(true);
+			return null;
+		}
+		Node next = null;
+		Zobrist zobrist = board.getZobrist();
+		boolean[] occupied = worker.occupied;
+		int[] boxes = node.boxes;
+		for (int box : boxes) {
+			occupied[box] = true;
+		}
+		worker.reach.normalize(node.player, occupied);
+		worker.heuristic.reset(boxes);
+		long boxHash = node.hash ^ zobrist.player(node.player);
+		int g = node.g + 1;
+		for (int i = 0; i < boxes.length; i++) {
+			int box = boxes[i];
+			for (int dir = 0; dir < 4; dir++) {
+				int from = board.neighbor(box, SolverBoard.opposite(dir));
+				int to = board.neighbor(box, dir);
+				if (from < 0 || to < 0 || occupied[to] || board.isDead(to) || !worker.reach.isReached(from)) {
+					continue;
+				}
+				occupied[box] = false;
+				occupied[to] = true;
+				int player = worker.childReach.normalize(box, occupied);
+				boolean deadlock = worker.deadlockDetector.isDeadlockAfterPush(to, box, worker.boxTest);
+				occupied[to] = false;
+				occupied[box] = true;
+				int h = deadlock ? Heuristic.INFINITE : worker.heuristic.estimateMove(i, to);
+				if (h == Heuristic.INFINITE) {
+					continue;
+				}
+				long hash = boxHash ^ zobrist.box(box) ^ zobrist.box(to) ^ zobrist.player(player);
+				int result = table.offer(hash, g);
+				if (result == ConcurrentStateTable.FULL) {
+					full.set(true);
+					stop.set(true);
+				}
+				if (result != ConcurrentStateTable.ACCEPTED) {
+					continue;
+				}
+				int[] child = new int[boxes.length];
+				Solver.moveBox(boxes, child, i, to);
+				Node successor = new Node(child, player, hash, g, h, node, box * 4 + dir);
+				if (g + h == node.g + node.h) {
+					if (next != null) {
+						enqueue(next);
+					}
+					next = successor;
+				} else {
+					enqueue(successor);
+				}
+			}
+		}
+		for (int box : boxes) {
+			occupied[box] = false;
+		}
+		return next;
+	}
+}
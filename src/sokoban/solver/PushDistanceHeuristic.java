@@ -0,0 +1,44 @@
+package sokoban.solver;
+
+/**
+ * Oszacowanie sumujące dla każdej skrzynki liczbę przesunięć potrzebną do doprowadzenia jej do najbliższego pola wygranej. W przeciwieństwie do odległości Manhattan uwzględnia ściany i miejsce potrzebne graczowi za skrzynką, ale wciąż pozwala wielu skrzynkom celować w to samo pole wygranej.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class PushDistanceHeuristic implements Heuristic {
+
+	protected final SolverBoard board;
+	protected int[] boxes;
+	protected int current, unreachable;
+
+	public PushDistanceHeuristic(SolverBoard board) {
+		this.board = board;
+	}
+
+	@Override
+	public int reset(int[] boxes) {
+		this.boxes = boxes;
+		current = 0;
+		unreachable = 0;
+		for (int box : boxes) {
+			int distance = board.getNearestPushDistance(box);
+			if (distance == SolverBoard.UNREACHABLE) {
+				unreachable++;
+			} else {
+				current += distance;
+			}
+		}
+		return unreachable > 0 ? INFINITE : current;
+	}
+
+	@Override
+	public int estimateMove(int index, int to) {
+		int from = board.getNearestPushDistance(boxes[index]), distance = board.getNearestPushDistance(to);
+		int remaining = from == SolverBoard.UNREACHABLE ? unreachable - 1 : unreachable;
+		if (remaining > 0 || distance == SolverBoard.UNREACHABLE) {
+			return INFINITE;
+		}
+		return current - (from == SolverBoard.UNREACHABLE ? 0 : from) + distance;
+	}
+}
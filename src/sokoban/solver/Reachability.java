@@ -0,0 +1,91 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Klasa pomocnicza wyznaczająca obszar osiągalny dla gracza przy danym układzie skrzynek. Oznaczenia odwiedzonych pól przechowywane są jako numery przebiegu, więc kolejne przeszukania nie wymagają czyszczenia tablic. Obiekt nie jest bezpieczny wątkowo - każdy wątek powinien mieć własną instancję.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class Reachability {
+
+	protected final SolverBoard board;
+	protected final int[] stamp, queue, parent;
+	protected int current = 0;
+
+	public Reachability(SolverBoard board) {
+		this.board = board;
+		this.stamp = new int[board.getCellCount()];
+		this.queue = new int[board.getCellCount()];
+		this.parent = new int[board.getCellCount()];
+	}
+
+	/**
+	 * Wyznacza pola osiągalne dla gracza i zwraca znormalizowaną pozycję gracza (najmniejszy indeks osiągalnego pola).
+	 *
+	 * @param player Pole gracza
+	 * @param occupied Tablica pól zajętych przez skrzynki
+	 * @return Znormalizowana pozycja gracza.
+	 */
+	public int normalize(int player, boolean[] occupied) {
+		if (++current == 0) {
+			Arrays.fill(stamp, 0);
+			current = 1;
+		}
+		int head = 0, tail = 0, min = player;
+		stamp[player] = current;
+		queue[tail++] = player;
+		while (head < tail) {
+			int cell = queue[head++];
+			for (int dir = 0; dir < 4; dir++) {
+				int next = board.neighbor(cell, dir);
+				if (next >= 0 && !occupied[next] && stamp[next] != current) {
+					stamp[next] = current;
+					parent[next] = cell;
+					queue[tail++] = next;
+					if (next < min) {
+						min = next;
+					}
+				}
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * Sprawdza, czy pole zostało osiągnięte w ostatnim wywołaniu normalize().
+	 *
+	 * @param cell Indeks pola
+	 * @return True, jeśli gracz może dojść do pola.
+	 */
+	public boolean isReached(int cell) {
+		return stamp[cell] == current;
+	}
+
+	/**
+	 * Wyznacza najkrótszą ścieżkę gracza między polami w notacji LURD.
+	 *
+	 * @param from Pole początkowe
+	 * @param to Pole docelowe
+	 * @param occupied Tablica pól zajętych przez skrzynki
+	 * @return Ścieżka złożona z małych liter kierunków.
+	 */
+	public String path(int from, int to, boolean[] occupied) {
+		normalize(from, occupied);
+		if (!isReached(to)) {
+			throw new IllegalStateException("Reachability::path - Target cell is not reachable!");
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int cell = to; cell != from; cell = parent[cell]) {
+			int prev = parent[cell];
+			for (int dir = 0; dir < 4; dir++) {
+				if (board.neighbor(prev, dir) == cell) {
+					sb.append(SolverBoard.DIRECTION_LETTERS[dir]);
+					break;
+				}
+			}
+		}
+		return sb.reverse().toString();
+	}
+}
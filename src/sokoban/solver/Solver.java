@@ -0,0 +1,287 @@
+package sokoban.solver;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import sokoban.engine.DeadlockDetector;
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+
+/**
+ * Solver poziomów wyznaczający rozwiązania optymalne pod względem liczby przesunięć skrzynek. Przeszukiwanie A* odbywa się w przestrzeni układów skrzynek, a pozycja gracza jest normalizowana do najmniejszego indeksu osiągalnego pola. Węzły i odwiedzone stany przechowywane są w magazynie NodeStore - domyślnie na stercie, a dla dużych poziomów poza nią (OffHeapNodeStore).
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class Solver {
+
+	public static final int DEFAULT_NODE_LIMIT = 2000000;
+
+	/**
+	 * Przeszukiwanie A* w przód od stanu początkowego.
+	 */
+	public static final int MODE_FORWARD = 0;
+	/**
+	 * Przeszukiwanie dwukierunkowe (BidirectionalSolver) - w przód od stanu początkowego i wstecz od pól wygranej.
+	 */
+	public static final int MODE_BIDIRECTIONAL = 1;
+
+	protected final SolverBoard board;
+	protected final int boxCount;
+	protected int nodeLimit = DEFAULT_NODE_LIMIT;
+	protected int mode = MODE_FORWARD;
+	protected int weight = 1;
+	protected BooleanSupplier interrupt = () -> false;
+	protected Function<SolverBoard, Heuristic> heuristicFactory = AssignmentHeuristic::new;
+	protected Function<SolverBoard, NodeStore> storeFactory = HeapNodeStore::new;
+
+	public Solver(Level level) {
+		this(new SolverBoard(level));
+	}
+
+	public Solver(GameState state) {
+		this(new SolverBoard(state));
+	}
+
+	public Solver(SolverBoard board) {
+		this.board = board;
+		this.boxCount = board.getBoxCount();
+	}
+
+	/**
+	 * Ustawia maksymalną liczbę przechowywanych węzłów.
+	 *
+	 * @param nodeLimit Limit węzłów
+	 */
+	public void setNodeLimit(int nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Ustawia tryb przeszukiwania używany przy kolejnych wywołaniach solve().
+	 *
+	 * @param mode MODE_FORWARD lub MODE_BIDIRECTIONAL
+	 */
+	public void setMode(int mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Ustawia wagę oszacowania (f = g + waga * h). Waga większa niż 1 zwykle znacznie przyspiesza znalezienie rozwiązania, ale nie gwarantuje jego optymalności.
+	 *
+	 * @param weight Waga oszacowania (co najmniej 1)
+	 */
+	public void setWeight(int weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Ustawia warunek przerwania sprawdzany cyklicznie w trakcie przeszukiwania (np. budżet czasu lub anulowanie). Po przerwaniu solver zwraca AnytimeResult z najlepszym dotychczasowym postępem.
+	 *
+	 * @param interrupt Warunek przerwania
+	 */
+	public void setInterrupt(BooleanSupplier interrupt) {
+		this.interrupt = interrupt;
+	}
+
+	/**
+	 * Ustawia oszacowanie używane przez solver (domyślnie AssignmentHeuristic).
+	 *
+	 * @param heuristicFactory Funkcja tworząca oszacowanie dla danych poziomu
+	 */
+	public void setHeuristic(Function<SolverBoard, Heuristic> heuristicFactory) {
+		this.heuristicFactory = heuristicFactory;
+	}
+
+	/**
+	 * Ustawia magazyn węzłów używany przez solver (domyślnie HeapNodeStore). Magazyn jest zamykany po zakończeniu przeszukiwania.
+	 *
+	 * @param storeFactory Funkcja tworząca magazyn dla danych poziomu
+	 */
+	public void setNodeStore(Function<SolverBoard, NodeStore> storeFactory) {
+		this.storeFactory = storeFactory;
+	}
+
+	/**
+	 * Zwraca dane poziomu, na których działa solver.
+	 *
+	 * @return Dane poziomu.
+	 */
+	public SolverBoard getBoard() {
+		return board;
+	}
+
+	/**
+	 * Uruchamia przeszukiwanie.
+	 *
+	 * @return Wynik przeszukiwania.
+	 */
+	public SolverResult solve() {
+		if (mode == MODE_BIDIRECTIONAL) {
+			BidirectionalSolver solver = new BidirectionalSolver(board);
+			solver.setNodeLimit(nodeLimit);
+			solver.setInterrupt(interrupt);
+			return solver.solve();
+		}
+		long start = System.nanoTime();
+		if (board.isTriviallyUnsolvable()) {
+			return new SolverResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start);
+		}
+		try (NodeStore store = storeFactory.apply(board)) {
+			return search(store, start);
+		}
+	}
+
+	private SolverResult search(NodeStore store, long start) {
+		long expanded = 0;
+		Zobrist zobrist = board.getZobrist();
+		BucketQueue open = new BucketQueue();
+		Reachability reach = new Reachability(board), childReach = new Reachability(board);
+		boolean[] occupied = new boolean[board.getCellCount()];
+		DeadlockDetector deadlockDetector = new DeadlockDetector(board.getLevel());
+		IntPredicate boxTest = cell -> occupied[cell];
+		Heuristic heuristic = heuristicFactory.apply(board);
+		int[] boxes = new int[boxCount], child = new int[boxCount];
+
+		int[] startBoxes = board.getStartBoxes();
+		for (int box : startBoxes) {
+			occupied[box] = true;
+		}
+		int startPlayer = reach.normalize(board.getStartPlayer(), occupied);
+		for (int box : startBoxes) {
+			occupied[box] = false;
+		}
+		long startHash = zobrist.hashBoxes(startBoxes) ^ zobrist.player(startPlayer);
+		int h0 = heuristic.reset(startBoxes);
+		if (h0 == Heuristic.INFINITE) {
+			return new SolverResult(SolverResult.UNSOLVABLE, null, -1, 0, System.nanoTime() - start);
+		}
+		int root = store.add(startBoxes, startPlayer, startHash, NodeStore.NONE, 0, -1);
+		open.add(weight * h0, root);
+
+		int status = SolverResult.UNSOLVABLE, solution = -1;
+		int best = root, bestH = h0, bestG = 0, frontier = h0;
+		while (!open.isEmpty()) {
+			if ((expanded & 255) == 0 && interrupt.getAsBoolean()) {
+				status = SolverResult.INTERRUPTED;
+				break;
+			}
+			frontier = open.peekPriority();
+			int id = open.poll();
+			if (store.isClosed(id)) {
+				continue;
+			}
+			store.setClosed(id);
+			expanded++;
+			store.loadBoxes(id, boxes);
+			if (board.isSolved(boxes)) {
+				status = SolverResult.SOLVED;
+				solution = id;
+				break;
+			}
+			if (store.size() >= nodeLimit) {
+				status = SolverResult.LIMIT_EXCEEDED;
+				break;
+			}
+			for (int box : boxes) {
+				occupied[box] = true;
+			}
+			int nodePlayer = store.getPlayer(id);
+			reach.normalize(nodePlayer, occupied);
+			int h = heuristic.reset(boxes);
+			int g = store.getG(id) + 1;
+			if (h < bestH || (h == bestH && g - 1 > bestG)) {
+				best = id;
+				bestH = h;
+				bestG = g - 1;
+			}
+			long boxHash = zobrist.hashBoxes(boxes);
+			for (int i = 0; i < boxCount && status != SolverResult.LIMIT_EXCEEDED; i++) {
+				int box = boxes[i];
+				for (int dir = 0; dir < 4; dir++) {
+					int from = board.neighbor(box, SolverBoard.opposite(dir));
+					int to = board.neighbor(box, dir);
+					if (from < 0 || to < 0 || occupied[to] || board.isDead(to) || !reach.isReached(from)) {
+						continue;
+					}
+					occupied[box] = false;
+					occupied[to] = true;
+					int player = childReach.normalize(box, occupied);
+					boolean deadlock = deadlockDetector.isDeadlockAfterPush(to, box, boxTest);
+					occupied[to] = false;
+					occupied[box] = true;
+					int childH = deadlock ? Heuristic.INFINITE : heuristic.estimateMove(i, to);
+					if (childH == Heuristic.INFINITE) {
+						continue;
+					}
+					long hash = boxHash ^ zobrist.box(box) ^ zobrist.box(to) ^ zobrist.player(player);
+					moveBox(boxes, child, i, to);
+					int existing = store.find(child, player, hash);
+					if (existing != NodeStore.NONE) {
+						if (g < store.getG(existing) && !store.isClosed(existing)) {
+							store.update(existing, id, g, box * 4 + dir);
+							open.add(g + weight * childH, existing);
+						}
+						continue;
+					}
+					int node = store.add(child, player, hash, id, g, box * 4 + dir);
+					if (node == NodeStore.NONE) {
+						status = SolverResult.LIMIT_EXCEEDED;
+						break;
+					}
+					open.add(g + weight * childH, node);
+				}
+			}
+			for (int box : boxes) {
+				occupied[box] = false;
+			}
+			if (status == SolverResult.LIMIT_EXCEEDED) {
+				break;
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		if (status == SolverResult.UNSOLVABLE) {
+			return new SolverResult(status, null, -1, expanded, elapsed);
+		}
+		if (status != SolverResult.SOLVED) {
+			int lowerBound = weight == 1 ? Math.max(h0, Math.min(frontier, open.peekPriority())) : h0;
+			int[] partial = pushesTo(store, best);
+			return new AnytimeResult(status, null, -1, expanded, elapsed, board.toLurd(partial), partial.length, bestH,
+					lowerBound, false);
+		}
+		int[] pushes = pushesTo(store, solution);
+		return new SolverResult(status, board.toLurd(pushes), pushes.length, expanded, elapsed);
+	}
+
+	private static int[] pushesTo(NodeStore store, int node) {
+		int[] pushes = new int[store.getG(node)];
+		for (int id = node, k = pushes.length - 1; k >= 0; id = store.getParent(id), k--) {
+			pushes[k] = store.getPush(id);
+		}
+		return pushes;
+	}
+
+	/**
+	 * Kopiuje układ skrzynek przesuwając jedną z nich, z zachowaniem uporządkowania rosnącego.
+	 *
+	 * @param boxes Układ źródłowy (posortowany)
+	 * @param target Tablica docelowa
+	 * @param index Indeks przesuwanej skrzynki
+	 * @param to Nowe pole skrzynki
+	 */
+	protected static void moveBox(int[] boxes, int[] target, int index, int to) {
+		System.arraycopy(boxes, 0, target, 0, boxes.length);
+		int i = index;
+		while (i > 0 && target[i - 1] > to) {
+			target[i] = target[i - 1];
+			i--;
+		}
+		while (i < target.length - 1 && target[i + 1] < to) {
+			target[i] = target[i + 1];
+			i++;
+		}
+		target[i] = to;
+	}
+}
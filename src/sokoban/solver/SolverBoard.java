@@ -0,0 +1,351 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+import sokoban.engine.DeadSquares;
+import sokoban.engine.GameState;
+import sokoban.engine.Level;
+import sokoban.util.TileGrid;
+
+/**
+ * Klasa przechowująca dane poziomu przygotowane na potrzeby solvera: tablicę sąsiedztwa pól, pola wygranej, klucze Zobrista oraz stan początkowy. Obiekt jest niezmienny i może być współdzielony przez wiele wątków.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class SolverBoard {
+
+	/**
+	 * Litery kierunków w notacji LURD (w kolejności: góra, prawo, dół, lewo - tak jak w Direction.getDirections()).
+	 */
+	public static final char[] DIRECTION_LETTERS = { 'u', 'r', 'd', 'l' };
+	/**
+	 * Odległość oznaczająca, że skrzynka nie może dotrzeć do danego pola wygranej.
+	 */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	protected final Level level;
+	protected final int width, cellCount;
+	protected final int[] neighbors;
+	protected final boolean[] goal;
+	protected final int[] goals;
+	protected final int[] goalDistance;
+	protected final int[] pushDistance, nearestPushDistance;
+	protected final DeadSquares deadSquares;
+	protected final int[] startBoxes;
+	protected final int startPlayer;
+	protected final Zobrist zobrist;
+
+	public SolverBoard(Level level) {
+		this(level, level.getInitialBoxes(), level.getPlayerY() * level.getWidth() + level.getPlayerX());
+	}
+
+	public SolverBoard(GameState state) {
+		this(state.getLevel(), state.getBoxIndices(),
+				state.getPlayerY() * state.getLevel().getWidth() + state.getPlayerX());
+	}
+
+	protected SolverBoard(Level level, int[] boxes, int player) {
+		this.level = level;
+		this.width = level.getWidth();
+		this.cellCount = width * level.getHeight();
+		this.neighbors = new int[cellCount * 4];
+		this.goal = new boolean[cellCount];
+		int goalCount = 0;
+		for (int cell = 0; cell < cellCount; cell++) {
+			int x = cell % width, y = cell / width;
+			neighbors[cell * 4] = cellAt(x, y - 1);
+			neighbors[cell * 4 + 1] = cellAt(x + 1, y);
+			neighbors[cell * 4 + 2] = cellAt(x, y + 1);
+			neighbors[cell * 4 + 3] = cellAt(x - 1, y);
+			if ((level.getTile(cell) & TileGrid.GOAL) != 0 && isFloor(cell)) {
+				goal[cell] = true;
+				goalCount++;
+			}
+		}
+		this.goals = new int[goalCount];
+		for (int cell = 0, k = 0; cell < cellCount; cell++) {
+			if (goal[cell]) {
+				goals[k++] = cell;
+			}
+		}
+		this.goalDistance = new int[cellCount];
+		for (int cell = 0; cell < cellCount; cell++) {
+			int best = Integer.MAX_VALUE;
+			for (int g : goals) {
+				best = Math.min(best, Math.abs(g % width - cell % width) + Math.abs(g / width - cell / width));
+			}
+			goalDistance[cell] = best;
+		}
+		this.pushDistance = new int[goalCount * cellCount];
+		this.nearestPushDistance = new int[cellCount];
+		Arrays.fill(nearestPushDistance, UNREACHABLE);
+		int[] queue = new int[cellCount];
+		for (int k = 0; k < goalCount; k++) {
+			int offset = k * cellCount;
+			Arrays.fill(pushDistance, offset, offset + cellCount, UNREACHABLE);
+			pushDistance[offset + goals[k]] = 0;
+			queue[0] = goals[k];
+			for (int head = 0, tail = 1; head < tail; head++) {
+				int cell = queue[head];
+				for (int dir = 0; dir < 4; dir++) {
+					int previous = neighbors[cell * 4 + dir];
+					if (previous < 0 || pushDistance[offset + previous] != UNREACHABLE || neighbors[previous * 4 + dir] < 0) {
+						continue;
+					}
+					pushDistance[offset + previous] = pushDistance[offset + cell] + 1;
+					queue[tail++] = previous;
+				}
+			}
+			for (int cell = 0; cell < cellCount; cell++) {
+				nearestPushDistance[cell] = Math.min(nearestPushDistance[cell], pushDistance[offset + cell]);
+			}
+		}
+		this.deadSquares = level.getDeadSquares();
+		this.startBoxes = boxes.clone();
+		Arrays.sort(this.startBoxes);
+		this.startPlayer = player;
+		this.zobrist = new Zobrist(cellCount);
+	}
+
+	/**
+	 * Zwraca indeks pola o danych współrzędnych, jeśli jest ono podłogą.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return Indeks pola lub -1, jeśli pole nie jest dostępne.
+	 */
+	protected int cellAt(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= level.getHeight()) {
+			return -1;
+		}
+		int cell = y * width + x;
+		return isFloor(cell) ? cell : -1;
+	}
+
+	/**
+	 * Sprawdza, czy pole należy do obszaru dostępnego dla gracza i skrzynek.
+	 *
+	 * @param cell Indeks pola
+	 * @return True, jeśli pole jest podłogą.
+	 */
+	public boolean isFloor(int cell) {
+		return (level.getTile(cell) & TileGrid.FLOOR) != 0;
+	}
+
+	/**
+	 * Zwraca sąsiednie pole w danym kierunku.
+	 *
+	 * @param cell Indeks pola
+	 * @param dir Indeks kierunku (0 - góra, 1 - prawo, 2 - dół, 3 - lewo)
+	 * @return Indeks sąsiedniego pola lub -1, jeśli pole nie jest dostępne.
+	 */
+	public int neighbor(int cell, int dir) {
+		return neighbors[cell * 4 + dir];
+	}
+
+	/**
+	 * Zwraca kierunek przeciwny do danego.
+	 *
+	 * @param dir Indeks kierunku
+	 * @return Indeks kierunku przeciwnego.
+	 */
+	public static int opposite(int dir) {
+		return (dir + 2) & 3;
+	}
+
+	/**
+	 * Sprawdza, czy pole jest polem wygranej.
+	 *
+	 * @param cell Indeks pola
+	 * @return True, jeśli pole jest polem wygranej.
+	 */
+	public boolean isGoal(int cell) {
+		return goal[cell];
+	}
+
+	/**
+	 * Sprawdza, czy pole jest martwe (skrzynka nie może z niego dotrzeć do żadnego pola wygranej).
+	 *
+	 * @param cell Indeks pola
+	 * @return True, jeśli pole jest martwe.
+	 */
+	public boolean isDead(int cell) {
+		return deadSquares.isDead(cell);
+	}
+
+	/**
+	 * Zwraca indeksy pól wygranej.
+	 *
+	 * @return Tablica indeksów pól wygranej.
+	 */
+	public int[] getGoals() {
+		return goals;
+	}
+
+	/**
+	 * Zwraca odległość (w metryce Manhattan) pola od najbliższego pola wygranej. Wartość jest dolnym ograniczeniem liczby przesunięć skrzynki stojącej na tym polu.
+	 *
+	 * @param cell Indeks pola
+	 * @return Odległość od najbliższego pola wygranej.
+	 */
+	public int getGoalDistance(int cell) {
+		return goalDistance[cell];
+	}
+
+	/**
+	 * Zwraca minimalną liczbę przesunięć potrzebną do doprowadzenia skrzynki z danego pola do danego pola wygranej, przy założeniu, że pozostałe skrzynki nie przeszkadzają, a gracz może stanąć po dowolnej stronie skrzynki.
+	 *
+	 * @param goalIndex Indeks pola wygranej w tablicy getGoals()
+	 * @param cell Indeks pola
+	 * @return Liczba przesunięć lub UNREACHABLE.
+	 */
+	public int getPushDistance(int goalIndex, int cell) {
+		return pushDistance[goalIndex * cellCount + cell];
+	}
+
+	/**
+	 * Zwraca minimalną liczbę przesunięć potrzebną do doprowadzenia skrzynki z danego pola do najbliższego pola wygranej.
+	 *
+	 * @param cell Indeks pola
+	 * @return Liczba przesunięć lub UNREACHABLE.
+	 */
+	public int getNearestPushDistance(int cell) {
+		return nearestPushDistance[cell];
+	}
+
+	/**
+	 * Oblicza dolne ograniczenie liczby przesunięć dla danego układu skrzynek.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @return Suma odległości skrzynek od najbliższych pól wygranej.
+	 */
+	public int estimate(int[] boxes) {
+		int h = 0;
+		for (int box : boxes) {
+			h += goalDistance[box];
+		}
+		return h;
+	}
+
+	/**
+	 * Zwraca posortowane indeksy pól ze skrzynkami w stanie początkowym.
+	 *
+	 * @return Tablica indeksów pól.
+	 */
+	public int[] getStartBoxes() {
+		return startBoxes;
+	}
+
+	/**
+	 * Zwraca indeks pola gracza w stanie początkowym.
+	 *
+	 * @return Indeks pola gracza.
+	 */
+	public int getStartPlayer() {
+		return startPlayer;
+	}
+
+	/**
+	 * Zwraca liczbę skrzynek.
+	 *
+	 * @return Liczba skrzynek.
+	 */
+	public int getBoxCount() {
+		return startBoxes.length;
+	}
+
+	/**
+	 * Zwraca liczbę wszystkich pól siatki.
+	 *
+	 * @return Liczba pól.
+	 */
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	/**
+	 * Zwraca szerokość planszy.
+	 *
+	 * @return Szerokość planszy.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Zwraca klucze Zobrista dla poziomu.
+	 *
+	 * @return Klucze Zobrista.
+	 */
+	public Zobrist getZobrist() {
+		return zobrist;
+	}
+
+	/**
+	 * Zwraca poziom, dla którego przygotowano dane.
+	 *
+	 * @return Poziom gry.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Sprawdza, czy wszystkie skrzynki stoją na polach wygranej.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @return True, jeśli stan jest rozwiązaniem.
+	 */
+	public boolean isSolved(int[] boxes) {
+		for (int box : boxes) {
+			if (!goal[box]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sprawdza, czy poziom w oczywisty sposób nie ma rozwiązania: skrzynek jest więcej niż pól wygranej lub któraś ze skrzynek stoi na martwym polu.
+	 *
+	 * @return True, jeśli stan początkowy nie ma rozwiązania.
+	 */
+	public boolean isTriviallyUnsolvable() {
+		if (startBoxes.length > goals.length) {
+			return true;
+		}
+		for (int box : startBoxes) {
+			if (deadSquares.isDead(box)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Zamienia ciąg przesunięć skrzynek na pełne rozwiązanie w notacji LURD (małe litery - ruch gracza, wielkie litery - przesunięcie skrzynki).
+	 *
+	 * @param pushes Przesunięcia zapisane jako indeks pola skrzynki * 4 + kierunek
+	 * @return Rozwiązanie w notacji LURD.
+	 */
+	public String toLurd(int[] pushes) {
+		StringBuilder sb = new StringBuilder();
+		Reachability reach = new Reachability(this);
+		boolean[] occupied = new boolean[cellCount];
+		for (int box : startBoxes) {
+			occupied[box] = true;
+		}
+		int player = startPlayer;
+		for (int push : pushes) {
+			int box = push >> 2, dir = push & 3;
+			int from = neighbor(box, opposite(dir));
+			sb.append(reach.path(player, from, occupied));
+			sb.append(Character.toUpperCase(DIRECTION_LETTERS[dir]));
+			occupied[box] = false;
+			occupied[neighbor(box, dir)] = true;
+			player = box;
+		}
+		return sb.toString();
+	}
+}
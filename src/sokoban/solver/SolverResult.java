@@ -0,0 +1,132 @@
+package sokoban.solver;
+
+/**
+ * Struktura przechowująca wynik działania solvera: status, rozwiązanie oraz statystyki przeszukiwania.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class SolverResult {
+
+	/**
+	 * Znaleziono rozwiązanie optymalne pod względem liczby przesunięć.
+	 */
+	public static final int SOLVED = 0;
+	/**
+	 * Przeszukano całą przestrzeń stanów - poziom nie ma rozwiązania.
+	 */
+	public static final int UNSOLVABLE = 1;
+	/**
+	 * Przeszukiwanie przerwano po przekroczeniu limitu.
+	 */
+	public static final int LIMIT_EXCEEDED = 2;
+	/**
+	 * Przeszukiwanie przerwano z powodu wyczerpania budżetu czasu lub pamięci albo anulowania.
+	 */
+	public static final int INTERRUPTED = 3;
+
+	protected final int status;
+	protected final String solution;
+	protected final int pushes;
+	protected final long nodes, elapsedNanos;
+
+	public SolverResult(int status, String solution, int pushes, long nodes, long elapsedNanos) {
+		this.status = status;
+		this.solution = solution;
+		this.pushes = pushes;
+		this.nodes = nodes;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Zwraca status wyniku (SOLVED, UNSOLVABLE, LIMIT_EXCEEDED lub INTERRUPTED).
+	 *
+	 * @return Status wyniku.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Sprawdza, czy znaleziono rozwiązanie.
+	 *
+	 * @return True, jeśli znaleziono rozwiązanie.
+	 */
+	public boolean isSolved() {
+		return status == SOLVED;
+	}
+
+	/**
+	 * Zwraca rozwiązanie w notacji LURD.
+	 *
+	 * @return Rozwiązanie lub null, jeśli go nie znaleziono.
+	 */
+	public String getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Zwraca liczbę przesunięć skrzynek w rozwiązaniu.
+	 *
+	 * @return Liczba przesunięć lub -1, jeśli nie znaleziono rozwiązania.
+	 */
+	public int getPushes() {
+		return pushes;
+	}
+
+	/**
+	 * Zwraca liczbę ruchów gracza w rozwiązaniu.
+	 *
+	 * @return Liczba ruchów lub -1, jeśli nie znaleziono rozwiązania.
+	 */
+	public int getMoves() {
+		return solution == null ? -1 : solution.length();
+	}
+
+	/**
+	 * Zwraca liczbę rozwiniętych węzłów.
+	 *
+	 * @return Liczba węzłów.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Zwraca czas przeszukiwania w milisekundach.
+	 *
+	 * @return Czas przeszukiwania.
+	 */
+	public double getElapsedMillis() {
+		return elapsedNanos / 1e6;
+	}
+
+	/**
+	 * Zwraca liczbę rozwiniętych węzłów na sekundę.
+	 *
+	 * @return Liczba węzłów na sekundę.
+	 */
+	public double getNodesPerSecond() {
+		return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		String result;
+		switch (status) {
+		case SOLVED:
+			result = "Rozwiązanie: " + pushes + " przesunięć, " + getMoves() + " ruchów";
+			break;
+		case UNSOLVABLE:
+			result = "Brak rozwiązania";
+			break;
+		case INTERRUPTED:
+			result = "Przerwano";
+			break;
+		default:
+			result = "Przekroczono limit";
+		}
+		return String.format("%s (%d węzłów, %.1f ms, %.0f węzłów/s)", result, nodes, getElapsedMillis(),
+				getNodesPerSecond());
+	}
+}
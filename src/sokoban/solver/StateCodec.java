@@ -0,0 +1,97 @@
+package sokoban.solver;
+
+/**
+ * Zwarty zapis stanu przeszukiwania w słowach 64-bitowych: mapa bitowa skrzynek nad kolejnymi polami podłogi, a za nią numer pola podłogi zajmowanego przez znormalizowaną pozycję gracza. Dla typowego poziomu cały stan mieści się w 2-4 słowach.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class StateCodec {
+
+	protected final int boxCount;
+	protected final int[] floorIndex, floorCells;
+	protected final int playerBits, words;
+
+	public StateCodec(SolverBoard board) {
+		this.boxCount = board.getBoxCount();
+		int cells = board.getCellCount(), floors = 0;
+		this.floorIndex = new int[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			floorIndex[cell] = board.isFloor(cell) ? floors++ : -1;
+		}
+		this.floorCells = new int[floors];
+		for (int cell = 0; cell < cells; cell++) {
+			if (floorIndex[cell] >= 0) {
+				floorCells[floorIndex[cell]] = cell;
+			}
+		}
+		this.playerBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, floors - 1));
+		this.words = (floors + playerBits + 63) >>> 6;
+	}
+
+	/**
+	 * Zwraca liczbę słów zajmowanych przez jeden stan.
+	 *
+	 * @return Liczba słów 64-bitowych.
+	 */
+	public int getWords() {
+		return words;
+	}
+
+	/**
+	 * Zapisuje stan w postaci zwartej.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @param player Pole gracza
+	 * @param out Tablica docelowa o długości co najmniej getWords()
+	 */
+	public void encode(int[] boxes, int player, long[] out) {
+		for (int i = 0; i < words; i++) {
+			out[i] = 0;
+		}
+		for (int box : boxes) {
+			int bit = floorIndex[box];
+			out[bit >>> 6] |= 1L << bit;
+		}
+		int offset = floorCells.length;
+		long value = floorIndex[player];
+		for (int i = 0; i < playerBits; i++, offset++) {
+			if ((value >>> i & 1) != 0) {
+				out[offset >>> 6] |= 1L << offset;
+			}
+		}
+	}
+
+	/**
+	 * Odczytuje stan zapisany w postaci zwartej.
+	 *
+	 * @param in Zapisany stan
+	 * @param boxes Tablica na posortowane indeksy pól ze skrzynkami
+	 * @return Pole gracza.
+	 */
+	public int decode(long[] in, int[] boxes) {
+		int count = 0;
+		for (int i = 0; i < floorCells.length && count < boxCount; i++) {
+			if ((in[i >>> 6] & (1L << i)) != 0) {
+				boxes[count++] = floorCells[i];
+			}
+		}
+		return decodePlayer(in);
+	}
+
+	/**
+	 * Odczytuje samo pole gracza ze stanu zapisanego w postaci zwartej.
+	 *
+	 * @param in Zapisany stan
+	 * @return Pole gracza.
+	 */
+	public int decodePlayer(long[] in) {
+		int offset = floorCells.length, value = 0;
+		for (int i = 0; i < playerBits; i++, offset++) {
+			if ((in[offset >>> 6] & (1L << offset)) != 0) {
+				value |= 1 << i;
+			}
+		}
+		return floorCells[value];
+	}
+}
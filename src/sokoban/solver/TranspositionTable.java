@@ -0,0 +1,108 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Tablica transpozycji z adresowaniem otwartym (sondowanie liniowe) odwzorowująca 64-bitowe skróty stanów na identyfikatory węzłów. Skrót traktowany jest jako tożsamość stanu - prawdopodobieństwo kolizji przy 64 bitach jest pomijalne nawet dla setek milionów stanów.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class TranspositionTable {
+
+	private static final int EMPTY = -1;
+
+	protected long[] keys;
+	protected int[] values;
+	protected int size = 0, mask;
+
+	public TranspositionTable(int initialCapacity) {
+		int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) * 2 - 1);
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, EMPTY);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Miesza bity skrótu, aby rozłożyć klucze równomiernie po tablicy.
+	 *
+	 * @param key Skrót stanu
+	 * @return Indeks początkowy sondowania.
+	 */
+	protected static int spread(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/**
+	 * Zwraca wartość przypisaną do danego skrótu.
+	 *
+	 * @param key Skrót stanu
+	 * @return Identyfikator węzła lub -1, jeśli stanu nie ma w tablicy.
+	 */
+	public int get(long key) {
+		int slot = spread(key) & mask;
+		while (values[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * Zapisuje wartość dla danego skrótu, nadpisując poprzednią.
+	 *
+	 * @param key Skrót stanu
+	 * @param value Identyfikator węzła (nieujemny)
+	 */
+	public void put(long key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize();
+		}
+		int slot = spread(key) & mask;
+		while (values[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != EMPTY) {
+				int slot = spread(oldKeys[i]) & mask;
+				while (values[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Zwraca liczbę zapisanych stanów.
+	 *
+	 * @return Liczba stanów.
+	 */
+	public int size() {
+		return size;
+	}
+}
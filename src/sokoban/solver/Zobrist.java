@@ -0,0 +1,60 @@
+package sokoban.solver;
+
+import java.util.SplittableRandom;
+
+/**
+ * Klasa przechowująca losowe 64-bitowe klucze Zobrista dla pól planszy. Skrót stanu to XOR kluczy pól zajętych przez skrzynki oraz klucza znormalizowanej pozycji gracza, dzięki czemu przesunięcie skrzynki aktualizuje skrót w czasie stałym.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class Zobrist {
+
+	private static final long SEED = 0x5E4B0BA2L;
+
+	protected final long[] boxKeys, playerKeys;
+
+	public Zobrist(int cellCount) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		boxKeys = new long[cellCount];
+		playerKeys = new long[cellCount];
+		for (int i = 0; i < cellCount; i++) {
+			boxKeys[i] = random.nextLong();
+			playerKeys[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Zwraca klucz skrzynki stojącej na danym polu.
+	 *
+	 * @param cell Indeks pola
+	 * @return Klucz skrzynki.
+	 */
+	public long box(int cell) {
+		return boxKeys[cell];
+	}
+
+	/**
+	 * Zwraca klucz gracza stojącego na danym polu.
+	 *
+	 * @param cell Indeks pola
+	 * @return Klucz gracza.
+	 */
+	public long player(int cell) {
+		return playerKeys[cell];
+	}
+
+	/**
+	 * Oblicza skrót układu skrzynek.
+	 *
+	 * @param boxes Indeksy pól ze skrzynkami
+	 * @return Skrót układu skrzynek.
+	 */
+	public long hashBoxes(int[] boxes) {
+		long hash = 0;
+		for (int box : boxes) {
+			hash ^= boxKeys[box];
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,503 @@
+package sokoban.tools;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import sokoban.engine.Level;
+import sokoban.engine.LevelParser;
+import sokoban.exceptions.InvalidMapFileException;
+import sokoban.solver.BidirectionalResult;
+import sokoban.solver.Solver;
+import sokoban.solver.SolverBoard;
+import sokoban.solver.SolverResult;
+
+/**
+ * Narzędzie wiersza poleceń rozwiązujące wszystkie mapy z podanego katalogu bez uruchamiania interfejsu graficznego. Pliki przechodzą przez trzyetapowy potok: wczytywanie, sprawdzanie poprawności i rozwiązywanie. Etapy połączone są kolejkami o ograniczonej pojemności, dzięki czemu w pamięci znajduje się tylko kilka poziomów na wątek, niezależnie od rozmiaru zestawu. Rozwiązywaniem zajmuje się tyle wątków, ile jest rdzeni procesora, a każdy poziom ma własny limit czasu. Raport zapisywany jest w formacie CSV lub JSON.
+ *
+ * <pre>
+ * java sokoban.tools.BatchSolver katalog [--threads N] [--timeout ms] [--nodes N] [--format csv|json] [--output plik]
+ *                                 [opcje solvera - SolverOptions]
+ * </pre>
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class BatchSolver {
+
+	public static final long DEFAULT_TIMEOUT = 10000;
+
+	public static final String STATUS_SOLVED = "solved";
+	public static final String STATUS_UNSOLVABLE = "unsolvable";
+	public static final String STATUS_TIMEOUT = "timeout";
+	public static final String STATUS_LIMIT = "limit";
+	public static final String STATUS_INVALID = "invalid";
+
+	private static final String CSV_HEADER = "file,name,width,height,boxes,status,pushes,moves,nodes,millis,"
+			+ "direction,forwardNodes,backwardNodes,error";
+
+	/**
+	 * Poziom przekazywany między etapami potoku.
+	 */
+	protected static final class Job {
+		final Path file;
+		final Level level;
+		final String error;
+
+		Job(Path file, Level level, String error) {
+			this.file = file;
+			this.level = level;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * Wiersz raportu dla pojedynczego poziomu. Dla przeszukiwania dwukierunkowego zawiera także kierunek, który znalazł punkt spotkania, oraz liczbę węzłów rozwiniętych w każdym kierunku.
+	 */
+	public static final class Report {
+		protected final String file, name, status, error;
+		protected final int width, height, boxes, pushes, moves;
+		protected final long nodes;
+		protected final double millis;
+		protected final BidirectionalResult bidirectional;
+
+		public Report(String file, Level level, String status, SolverResult result, String error) {
+			this.file = file;
+			this.name = level == null ? "" : level.getName();
+			this.width = level == null ? 0 : level.getWidth();
+			this.height = level == null ? 0 : level.getHeight();
+			this.boxes = level == null ? 0 : level.getBoxCount();
+			this.status = status;
+			this.pushes = result == null ? -1 : result.getPushes();
+			this.moves = result == null ? -1 : result.getMoves();
+			this.nodes = result == null ? 0 : result.getNodes();
+			this.millis = result == null ? 0 : result.getElapsedMillis();
+			this.bidirectional = result instanceof BidirectionalResult ? (BidirectionalResult) result : null;
+			this.error = error == null ? "" : error;
+		}
+
+		/**
+		 * Zwraca nazwę pliku mapy.
+		 *
+		 * @return Nazwa pliku.
+		 */
+		public String getFile() {
+			return file;
+		}
+
+		/**
+		 * Zwraca status poziomu (solved, unsolvable, timeout, limit lub invalid).
+		 *
+		 * @return Status poziomu.
+		 */
+		public String getStatus() {
+			return status;
+		}
+
+		/**
+		 * Zamienia wiersz raportu na wiersz CSV.
+		 *
+		 * @return Wiersz CSV (bez znaku końca linii).
+		 */
+		public String toCsv() {
+			return String.join(",", csv(file), csv(name), Integer.toString(width), Integer.toString(height),
+					Integer.toString(boxes), status, Integer.toString(pushes), Integer.toString(moves),
+					Long.toString(nodes), String.format("%.1f", millis),
+					bidirectional == null ? "" : BidirectionalResult.directionName(bidirectional.getMeetingDirection()),
+					bidirectional == null ? "" : Long.toString(bidirectional.getForwardNodes()),
+					bidirectional == null ? "" : Long.toString(bidirectional.getBackwardNodes()), csv(error));
+		}
+
+		/**
+		 * Zamienia wiersz raportu na obiekt JSON.
+		 *
+		 * @return Obiekt JSON.
+		 */
+		public JSONObject toJson() {
+			JSONObject obj = new JSONObject();
+			obj.put("file", file);
+			obj.put("name", name);
+			obj.put("width", width);
+			obj.put("height", height);
+			obj.put("boxes", boxes);
+			obj.put("status", status);
+			obj.put("pushes", pushes);
+			obj.put("moves", moves);
+			obj.put("nodes", nodes);
+			obj.put("millis", Math.round(millis * 10.0) / 10.0);
+			if (bidirectional != null) {
+				obj.put("direction", BidirectionalResult.directionName(bidirectional.getMeetingDirection()));
+				obj.put("forwardNodes", bidirectional.getForwardNodes());
+				obj.put("backwardNodes", bidirectional.getBackwardNodes());
+			}
+			if (!error.isEmpty()) {
+				obj.put("error", error);
+			}
+			return obj;
+		}
+
+		private static String csv(String value) {
+			if (value == null) {
+				return "";
+			}
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+				return value;
+			}
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+	}
+
+	private static final Job END = new Job(null, null, null);
+
+	protected final Path directory;
+	protected int threads = Runtime.getRuntime().availableProcessors();
+	protected long timeout = DEFAULT_TIMEOUT;
+	protected int nodeLimit = Solver.DEFAULT_NODE_LIMIT;
+	protected SolverOptions options = new SolverOptions();
+
+	public BatchSolver(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Ustawia liczbę wątków rozwiązujących poziomy.
+	 *
+	 * @param threads Liczba wątków
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Ustawia limit czasu rozwiązywania pojedynczego poziomu.
+	 *
+	 * @param millis Limit czasu w milisekundach
+	 */
+	public void setTimeout(long millis) {
+		this.timeout = millis;
+	}
+
+	/**
+	 * Ustawia limit liczby węzłów przeszukiwania pojedynczego poziomu.
+	 *
+	 * @param nodeLimit Limit węzłów
+	 */
+	public void setNodeLimit(int nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Zwraca opcje wyboru wariantu solvera.
+	 *
+	 * @return Opcje solvera.
+	 */
+	public SolverOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Przetwarza wszystkie pliki .map z katalogu.
+	 *
+	 * @return Raport posortowany według nazw plików.
+	 * @throws IOException Jeśli nie udało się odczytać katalogu.
+	 * @throws InterruptedException Jeśli wątek został przerwany w trakcie oczekiwania na wyniki.
+	 */
+	public List<Report> run() throws IOException, InterruptedException {
+		BlockingQueue<Job> parsed = new ArrayBlockingQueue<>(threads * 2);
+		BlockingQueue<Job> validated = new ArrayBlockingQueue<>(threads * 2);
+		List<Report> reports = Collections.synchronizedList(new ArrayList<>());
+		IOException[] failure = new IOException[1];
+
+		Thread reader = new Thread(() -> {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.map")) {
+				for (Path file : files) {
+					parsed.put(parse(file));
+				}
+			} catch (IOException e) {
+				failure[0] = e;
+			} catch (InterruptedException e) {
+				return;
+			} finally {
+				putQuietly(parsed, END);
+			}
+		}, "BatchSolver-reader");
+
+		Thread validator = new Thread(() -> {
+			try {
+				for (Job job = parsed.take(); job != END; job = parsed.take()) {
+					String error = job.error;
+					if (error == null) {
+						try {
+							error = validate(job.level);
+						} catch (RuntimeException e) {
+							e.printStackTrace();
+							error = "Błąd sprawdzania: " + e;
+						}
+					}
+					if (error != null) {
+						reports.add(new Report(job.file.getFileName().toString(), job.level, STATUS_INVALID, null, error));
+					} else {
+						validated.put(job);
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			} finally {
+				for (int i = 0; i < threads; i++) {
+					putQuietly(validated, END);
+				}
+			}
+		}, "BatchSolver-validator");
+
+		List<Thread> solvers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			solvers.add(new Thread(() -> {
+				try {
+					for (Job job = validated.take(); job != END; job = validated.take()) {
+						try {
+							reports.add(solve(job));
+						} catch (RuntimeException e) {
+							// błąd jednego poziomu nie może zatrzymać wątku - pozostałe poziomy czekałyby w kolejce
+							e.printStackTrace();
+							reports.add(new Report(job.file.getFileName().toString(), job.level, STATUS_INVALID, null,
+									"Błąd solvera: " + e));
+						}
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+			}, "BatchSolver-solver-" + i));
+		}
+
+		reader.start();
+		validator.start();
+		for (Thread solver : solvers) {
+			solver.start();
+		}
+		reader.join();
+		validator.join();
+		for (Thread solver : solvers) {
+			solver.join();
+		}
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+
+		List<Report> result = new ArrayList<>(reports);
+		result.sort((a, b) -> a.getFile().compareTo(b.getFile()));
+		return result;
+	}
+
+	/**
+	 * Etap wczytywania: zamienia plik mapy na poziom.
+	 *
+	 * @param file Plik mapy
+	 * @return Zadanie z poziomem albo z opisem błędu.
+	 */
+	protected Job parse(Path file) {
+		try {
+			Level level = LevelParser.parse(() -> {
+				try {
+					return Files.newInputStream(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			return new Job(file, level, null);
+		} catch (InvalidMapFileException | UncheckedIOException e) {
+			return new Job(file, null, e.getMessage());
+		}
+	}
+
+	/**
+	 * Etap sprawdzania poprawności: odrzuca poziomy, których nie da się przekazać do solvera (bez skrzynek lub bez gracza). Poziom z większą liczbą skrzynek niż pól wygranej jest poprawny - etap rozwiązywania zgłasza go jako nierozwiązywalny.
+	 *
+	 * @param level Poziom
+	 * @return Opis błędu lub null, jeśli poziom jest poprawny.
+	 */
+	protected String validate(Level level) {
+		if (level.getBoxCount() == 0) {
+			return "Brak skrzynek";
+		}
+		if (level.getPlayerX() < 0 || level.getPlayerY() < 0) {
+			return "Brak gracza";
+		}
+		return null;
+	}
+
+	/**
+	 * Etap rozwiązywania: uruchamia solver z limitem czasu.
+	 *
+	 * @param job Zadanie z poprawnym poziomem
+	 * @return Wiersz raportu.
+	 */
+	protected Report solve(Job job) {
+		String file = job.file.getFileName().toString();
+		SolverBoard board = new SolverBoard(job.level);
+		if (board.isTriviallyUnsolvable()) {
+			return new Report(file, job.level, STATUS_UNSOLVABLE, null, null);
+		}
+		long deadline = System.nanoTime() + timeout * 1000000L;
+		SolverResult result;
+		try {
+			result = options.solve(board, nodeLimit, () -> System.nanoTime() > deadline);
+		} catch (UncheckedIOException e) {
+			return new Report(file, job.level, STATUS_LIMIT, null, "Błąd plików roboczych: " + e.getCause().getMessage());
+		}
+		String status;
+		switch (result.getStatus()) {
+		case SolverResult.SOLVED:
+			status = STATUS_SOLVED;
+			break;
+		case SolverResult.UNSOLVABLE:
+			status = STATUS_UNSOLVABLE;
+			break;
+		case SolverResult.INTERRUPTED:
+			status = STATUS_TIMEOUT;
+			break;
+		default:
+			status = STATUS_LIMIT;
+		}
+		return new Report(file, job.level, status, result, null);
+	}
+
+	private static void putQuietly(BlockingQueue<Job> queue, Job job) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(job);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Zapisuje raport w formacie CSV.
+	 *
+	 * @param reports Wiersze raportu
+	 * @param out Strumień wyjściowy
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static void writeCsv(List<Report> reports, Writer out) throws IOException {
+		out.write(CSV_HEADER);
+		out.write('\n');
+		for (Report report : reports) {
+			out.write(report.toCsv());
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	/**
+	 * Zapisuje raport w formacie JSON.
+	 *
+	 * @param reports Wiersze raportu
+	 * @param out Strumień wyjściowy
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static void writeJson(List<Report> reports, Writer out) throws IOException {
+		JSONArray arr = new JSONArray();
+		for (Report report : reports) {
+			arr.put(report.toJson());
+		}
+		out.write(new JSONObject().put("levels", arr).toString(4));
+		out.write('\n');
+		out.flush();
+	}
+
+	private static void usage(PrintStream out) {
+		out.println("Użycie: java sokoban.tools.BatchSolver katalog [--threads N] [--timeout ms] [--nodes N]"
+				+ " [--format csv|json] [--output plik] " + SolverOptions.USAGE);
+	}
+
+	/**
+	 * Punkt wejścia narzędzia wiersza poleceń.
+	 *
+	 * @param args Argumenty wywołania
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			usage(System.err);
+			System.exit(2);
+		}
+		BatchSolver batch = new BatchSolver(Paths.get(args[0]));
+		String format = "csv", output = null;
+		try {
+			for (int i = 1; i < args.length; i++) {
+				switch (args[i]) {
+				case "--threads":
+					batch.setThreads(Integer.parseInt(args[++i]));
+					break;
+				case "--timeout":
+					batch.setTimeout(Long.parseLong(args[++i]));
+					break;
+				case "--nodes":
+					batch.setNodeLimit(Integer.parseInt(args[++i]));
+					break;
+				case "--format":
+					format = args[++i];
+					break;
+				case "--output":
+					output = args[++i];
+					break;
+				default:
+					int last = batch.getOptions().parse(args, i);
+					if (last < 0) {
+						throw new IllegalArgumentException(args[i]);
+					}
+					i = last;
+				}
+			}
+			batch.getOptions().validate();
+			if (!format.equals("csv") && !format.equals("json")) {
+				throw new IllegalArgumentException(format);
+			}
+		} catch (RuntimeException e) {
+			System.err.println("Nieprawidłowy argument: " + e.getMessage());
+			usage(System.err);
+			System.exit(2);
+		}
+
+		try {
+			List<Report> reports = batch.run();
+			Writer out = output == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+					: Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+			try {
+				if (format.equals("json")) {
+					writeJson(reports, out);
+				} else {
+					writeCsv(reports, out);
+				}
+			} finally {
+				if (output != null) {
+					out.close();
+				}
+			}
+			long solved = reports.stream().filter(r -> r.getStatus().equals(STATUS_SOLVED)).count();
+			System.err.println("Rozwiązano " + solved + " z " + reports.size() + " poziomów.");
+		} catch (IOException | InterruptedException e) {
+			System.err.println("Błąd: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package sokoban.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import sokoban.solver.AssignmentHeuristic;
+import sokoban.solver.ExternalBfsSolver;
+import sokoban.solver.Heuristic;
+import sokoban.solver.HeapNodeStore;
+import sokoban.solver.ManhattanHeuristic;
+import sokoban.solver.NodeStore;
+import sokoban.solver.OffHeapNodeStore;
+import sokoban.solver.ParallelSolver;
+import sokoban.solver.PushDistanceHeuristic;
+import sokoban.solver.Solver;
+import sokoban.solver.SolverBoard;
+import sokoban.solver.SolverResult;
+
+/**
+ * Wybór wariantu solvera z wiersza poleceń, wspólny dla narzędzi uruchamiających solver (BatchSolver, test regresji wydajności).
+ *
+ * <pre>
+ * --mode M        tryb przeszukiwania: forward (domyślny, A*), bidirectional (BidirectionalSolver)
+ *                 lub external (ExternalBfsSolver - warstwy przeszukiwania wszerz na dysku)
+ * --workdir DIR   katalog plików roboczych trybu external (domyślnie katalog tymczasowy systemu)
+ * --parallel N    przeszukiwanie wielowątkowe (ParallelSolver) w N wątkach
+ * --heuristic H   oszacowanie: assignment (domyślne), manhattan lub pushdistance
+ * --store S       magazyn węzłów solvera sekwencyjnego: heap (domyślny) lub offheap (OffHeapNodeStore)
+ * --capacity N    pojemność magazynu offheap (domyślnie wystarczająca dla limitu węzłów)
+ * </pre>
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class SolverOptions {
+
+	public static final String USAGE = "[--mode forward|bidirectional|external] [--workdir DIR] [--parallel N]"
+			+ " [--heuristic assignment|manhattan|pushdistance] [--store heap|offheap] [--capacity N]";
+
+	public static final String MODE_FORWARD = "forward";
+	public static final String MODE_BIDIRECTIONAL = "bidirectional";
+	public static final String MODE_EXTERNAL = "external";
+
+	public static final String HEURISTIC_ASSIGNMENT = "assignment";
+	public static final String HEURISTIC_MANHATTAN = "manhattan";
+	public static final String HEURISTIC_PUSH_DISTANCE = "pushdistance";
+
+	public static final String STORE_HEAP = "heap";
+	public static final String STORE_OFF_HEAP = "offheap";
+
+	/**
+	 * Nazwy wszystkich dostępnych oszacowań.
+	 */
+	public static final String[] HEURISTICS = { HEURISTIC_ASSIGNMENT, HEURISTIC_MANHATTAN, HEURISTIC_PUSH_DISTANCE };
+
+	protected String mode = MODE_FORWARD;
+	protected Path workDir = null;
+	protected int parallel = 0;
+	protected String heuristic = HEURISTIC_ASSIGNMENT;
+	protected Function<SolverBoard, Heuristic> heuristicFactory = AssignmentHeuristic::new;
+	protected String store = STORE_HEAP;
+	protected int capacity = 0;
+
+	/**
+	 * Odczytuje opcję solvera z argumentów wywołania.
+	 *
+	 * @param args Argumenty wywołania
+	 * @param i Indeks bieżącego argumentu
+	 * @return Indeks ostatniego odczytanego argumentu lub -1, jeśli argument nie jest opcją solvera.
+	 * @throws IllegalArgumentException Jeśli wartość opcji jest nieprawidłowa.
+	 */
+	public int parse(String[] args, int i) {
+		switch (args[i]) {
+		case "--mode":
+			setMode(value(args, i));
+			break;
+		case "--workdir":
+			setWorkDir(Paths.get(value(args, i)));
+			break;
+		case "--parallel":
+			setParallel(Integer.parseInt(value(args, i)));
+			break;
+		case "--heuristic":
+			setHeuristic(value(args, i));
+			break;
+		case "--store":
+			setStore(value(args, i));
+			break;
+		case "--capacity":
+			setCapacity(Integer.parseInt(value(args, i)));
+			break;
+		default:
+			return -1;
+		}
+		return i + 1;
+	}
+
+	/**
+	 * Sprawdza, czy wybrane opcje można ze sobą połączyć. Wywoływana po odczytaniu wszystkich argumentów, więc wynik nie zależy od ich kolejności.
+	 *
+	 * @throws IllegalArgumentException Jeśli wybrany tryb nie obsługuje którejś z opcji.
+	 */
+	public void validate() {
+		if (parallel > 0 && !store.equals(STORE_HEAP)) {
+			throw new IllegalArgumentException("--store " + store + " nie działa z --parallel");
+		}
+		if (workDir != null && !mode.equals(MODE_EXTERNAL)) {
+			throw new IllegalArgumentException("--workdir wymaga --mode " + MODE_EXTERNAL);
+		}
+		if (mode.equals(MODE_FORWARD)) {
+			return;
+		}
+		// pozostałe tryby przeszukują wszerz, bez oszacowania i bez magazynu węzłów
+		if (parallel > 0 || !heuristic.equals(HEURISTIC_ASSIGNMENT) || !store.equals(STORE_HEAP)) {
+			throw new IllegalArgumentException("--mode " + mode + " nie działa z --parallel, --heuristic ani --store");
+		}
+	}
+
+	/**
+	 * Wybiera tryb przeszukiwania.
+	 *
+	 * @param mode Nazwa trybu (forward, bidirectional lub external)
+	 */
+	public void setMode(String mode) {
+		if (!mode.equals(MODE_FORWARD) && !mode.equals(MODE_BIDIRECTIONAL) && !mode.equals(MODE_EXTERNAL)) {
+			throw new IllegalArgumentException("--mode " + mode);
+		}
+		this.mode = mode;
+	}
+
+	/**
+	 * Ustawia katalog plików roboczych trybu external. Każde rozwiązywanie korzysta z osobnego podkatalogu, usuwanego po zakończeniu.
+	 *
+	 * @param workDir Katalog roboczy
+	 */
+	public void setWorkDir(Path workDir) {
+		this.workDir = workDir;
+	}
+
+	/**
+	 * Ustawia liczbę wątków przeszukiwania jednego poziomu.
+	 *
+	 * @param threads Liczba wątków (0 - solver sekwencyjny)
+	 */
+	public void setParallel(int threads) {
+		if (threads < 0) {
+			throw new IllegalArgumentException("--parallel " + threads);
+		}
+		this.parallel = threads;
+	}
+
+	/**
+	 * Wybiera oszacowanie używane przez solver.
+	 *
+	 * @param name Nazwa oszacowania (assignment, manhattan lub pushdistance)
+	 */
+	public void setHeuristic(String name) {
+		switch (name) {
+		case HEURISTIC_ASSIGNMENT:
+			heuristicFactory = AssignmentHeuristic::new;
+			break;
+		case HEURISTIC_MANHATTAN:
+			heuristicFactory = ManhattanHeuristic::new;
+			break;
+		case HEURISTIC_PUSH_DISTANCE:
+			heuristicFactory = PushDistanceHeuristic::new;
+			break;
+		default:
+			throw new IllegalArgumentException("--heuristic " + name);
+		}
+		this.heuristic = name;
+	}
+
+	/**
+	 * Wybiera magazyn węzłów solvera sekwencyjnego.
+	 *
+	 * @param store Nazwa magazynu (heap lub offheap)
+	 */
+	public void setStore(String store) {
+		if (!store.equals(STORE_HEAP) && !store.equals(STORE_OFF_HEAP)) {
+			throw new IllegalArgumentException("--store " + store);
+		}
+		this.store = store;
+	}
+
+	/**
+	 * Ustawia pojemność magazynu offheap.
+	 *
+	 * @param capacity Minimalna liczba rekordów (0 - pojemność wyznaczana z limitu węzłów)
+	 */
+	public void setCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("--capacity " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Rozwiązuje poziom wybranym wariantem solvera.
+	 *
+	 * @param board Dane poziomu
+	 * @param nodeLimit Limit liczby węzłów
+	 * @param interrupt Warunek przerwania (np. limit czasu)
+	 * @return Wynik przeszukiwania.
+	 * @throws UncheckedIOException Jeśli w trybie external nastąpił błąd wejścia/wyjścia.
+	 */
+	public SolverResult solve(SolverBoard board, int nodeLimit, BooleanSupplier interrupt) {
+		if (mode.equals(MODE_EXTERNAL)) {
+			return solveExternal(board, nodeLimit, interrupt);
+		}
+		if (parallel > 0) {
+			ParallelSolver solver = new ParallelSolver(board, parallel);
+			solver.setCapacity(nodeLimit);
+			solver.setHeuristic(heuristicFactory);
+			solver.setInterrupt(interrupt);
+			return solver.solve();
+		}
+		Solver solver = new Solver(board);
+		solver.setMode(mode.equals(MODE_BIDIRECTIONAL) ? Solver.MODE_BIDIRECTIONAL : Solver.MODE_FORWARD);
+		solver.setNodeLimit(nodeLimit);
+		solver.setHeuristic(heuristicFactory);
+		solver.setNodeStore(storeFactory(nodeLimit));
+		solver.setInterrupt(interrupt);
+		return solver.solve();
+	}
+
+	private SolverResult solveExternal(SolverBoard board, int nodeLimit, BooleanSupplier interrupt) {
+		try {
+			Path base = workDir != null ? workDir : Paths.get(System.getProperty("java.io.tmpdir"));
+			Files.createDirectories(base);
+			Path dir = Files.createTempDirectory(base, "external-bfs-");
+			try {
+				ExternalBfsSolver solver = new ExternalBfsSolver(board, dir);
+				solver.setStateLimit(nodeLimit);
+				solver.setInterrupt(interrupt);
+				return solver.solve();
+			} finally {
+				Files.deleteIfExists(dir);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Function<SolverBoard, NodeStore> storeFactory(int nodeLimit) {
+		if (store.equals(STORE_HEAP)) {
+			return HeapNodeStore::new;
+		}
+		// tablica zapełnia się w 3/4, więc domyślna pojemność musi pomieścić cały limit węzłów
+		int records = capacity > 0 ? capacity : (int) Math.min(Integer.MAX_VALUE, nodeLimit * 4L / 3 + 1);
+		return board -> new OffHeapNodeStore(board, records);
+	}
+
+	/**
+	 * Zwraca krótki opis wybranego wariantu solvera, zapisywany razem z wynikami pomiarów.
+	 *
+	 * @return Opis wariantu (np. "forward", "bidirectional", "parallel-4" lub "forward/manhattan/offheap").
+	 */
+	public String describe() {
+		if (!mode.equals(MODE_FORWARD)) {
+			return mode;
+		}
+		String variant = parallel > 0 ? "parallel-" + parallel : "forward";
+		if (!heuristic.equals(HEURISTIC_ASSIGNMENT)) {
+			variant += "/" + heuristic;
+		}
+		return store.equals(STORE_HEAP) ? variant : variant + "/" + store;
+	}
+
+	protected static String value(String[] args, int i) {
+		if (i + 1 >= args.length) {
+			throw new IllegalArgumentException(args[i]);
+		}
+		return args[i + 1];
+	}
+}
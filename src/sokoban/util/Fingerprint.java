@@ -0,0 +1,44 @@
+package sokoban.util;
+
+/**
+ * Klasa pomocnicza obliczająca 64-bitowy odcisk treści (np. struktury mapy). Odcisk wyznaczany jest algorytmem FNV-1a z końcowym mieszaniem bitów, więc niewielkie zmiany treści dają zupełnie różne wartości.
+ * 
+ * @author Maciej Budrowski
+ *
+ */
+public class Fingerprint {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	/**
+	 * Oblicza odcisk podanej treści.
+	 * 
+	 * @param content Treść
+	 * @return 64-bitowy odcisk treści.
+	 */
+	public static long of(CharSequence content) {
+		long hash = OFFSET_BASIS;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			hash = (hash ^ (c & 0xff)) * PRIME;
+			hash = (hash ^ (c >>> 8)) * PRIME;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Zamienia odcisk na postać szesnastkową o stałej długości.
+	 * 
+	 * @param fingerprint Odcisk
+	 * @return Odcisk zapisany jako 16 cyfr szesnastkowych.
+	 */
+	public static String toHex(long fingerprint) {
+		return String.format("%016x", fingerprint);
+	}
+}
@@ -0,0 +1,232 @@
+package sokoban.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Dziennik zdarzeń najlepszych wyników, do którego rekordy są wyłącznie dopisywane. Każdy rekord zajmuje jeden wiersz w postaci "CRC32 TAB JSON", więc koszt dopisania nie zależy od liczby zapisanych wyników. Pierwszy rekord ({"generation": N}) zawiera numer pokolenia dziennika - po każdym scaleniu dziennika z plikiem najlepszych wyników dziennik zastępowany jest pustym dziennikiem kolejnego pokolenia. Przy odczycie rekord z nieprawidłową sumą kontrolną lub niepełny ostatni wiersz (np. po awarii w trakcie zapisu) kończy odczyt, a uszkodzona końcówka pliku jest obcinana.
+ *
+ * Dziennik zapamiętuje, do którego miejsca został już odczytany, więc readNew() odczytuje jedynie rekordy dopisane od tego czasu (np. przez inny proces). Plik otwierany jest przy każdej operacji, ponieważ inny proces może go w międzyczasie zastąpić nowym. Wszystkie metody zmieniające plik wywoływane są pod blokadą pliku najlepszych wyników.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HighscoreJournal {
+
+	private static final String GENERATION = "generation";
+
+	protected final Path file;
+	protected long generation = 0, offset = 0;
+	protected int records = 0;
+
+	public HighscoreJournal(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Odczytuje numer pokolenia dziennika zapisanego w pliku.
+	 *
+	 * @param file Plik dziennika
+	 * @return Numer pokolenia (0, jeśli pliku nie ma lub nie zawiera nagłówka).
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static long readGeneration(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 256));
+			channel.read(buffer, 0);
+			String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+			int end = content.indexOf('\n');
+			JSONObject header = end < 0 ? null : decode(content.substring(0, end));
+			return header != null && header.has(GENERATION) ? header.getLong(GENERATION) : 0;
+		}
+	}
+
+	/**
+	 * Odczytuje wszystkie poprawne rekordy dziennika (z pominięciem nagłówka) i obcina uszkodzoną końcówkę pliku.
+	 *
+	 * @param consumer Odbiorca kolejnych rekordów
+	 * @return Liczba odczytanych rekordów.
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public int replay(Consumer<JSONObject> consumer) throws IOException {
+		generation = 0;
+		offset = 0;
+		records = 0;
+		read(consumer, true);
+		return records;
+	}
+
+	/**
+	 * Odczytuje rekordy dopisane od ostatniego odczytu lub zapisu.
+	 *
+	 * @param consumer Odbiorca kolejnych rekordów
+	 * @return False, jeśli dziennik został w międzyczasie zastąpiony dziennikiem innego pokolenia - wtedy żaden rekord nie jest odczytywany.
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public boolean readNew(Consumer<JSONObject> consumer) throws IOException {
+		if (readGeneration(file) != generation) {
+			return false;
+		}
+		if (!Files.exists(file) || Files.size(file) == offset) {
+			return true;
+		}
+		read(consumer, false);
+		return true;
+	}
+
+	private void read(Consumer<JSONObject> consumer, boolean fromStart) throws IOException {
+		if (!Files.exists(file)) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long start = fromStart ? 0 : offset;
+			ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - start));
+			while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+			}
+			byte[] content = buffer.array();
+			int valid = 0;
+			for (int from = 0, end; from < content.length; from = end + 1) {
+				for (end = from; end < content.length && content[end] != '\n'; end++) {
+				}
+				if (end == content.length) {
+					break;
+				}
+				JSONObject record = decode(new String(content, from, end - from, StandardCharsets.UTF_8));
+				if (record == null) {
+					break;
+				}
+				valid = end + 1;
+				if (start + from == 0 && record.has(GENERATION)) {
+					generation = record.getLong(GENERATION);
+					continue;
+				}
+				records++;
+				consumer.accept(record);
+			}
+			offset = start + valid;
+			if (channel.size() > offset) {
+				channel.truncate(offset);
+				channel.force(false);
+			}
+		}
+	}
+
+	/**
+	 * Dopisuje rekordy na końcu dziennika i wymusza ich zapis na dysk (jedno wywołanie fsync dla wszystkich rekordów). Jeśli pliku nie ma, tworzony jest dziennik bieżącego pokolenia.
+	 *
+	 * @param batch Rekordy
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public void append(List<JSONObject> batch) throws IOException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		if (!Files.exists(file)) {
+			reset(generation);
+		}
+		StringBuilder content = new StringBuilder();
+		for (JSONObject record : batch) {
+			content.append(encode(record));
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			offset = channel.size();
+		}
+		records += batch.size();
+	}
+
+	/**
+	 * Atomowo zastępuje dziennik pustym dziennikiem podanego pokolenia, np. po zapisaniu pełnego stanu do pliku najlepszych wyników.
+	 *
+	 * @param generation Numer pokolenia nowego dziennika
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public void reset(long generation) throws IOException {
+		JSONObject header = new JSONObject();
+		header.put(GENERATION, generation);
+		byte[] content = encode(header).getBytes(StandardCharsets.UTF_8);
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(ByteBuffer.wrap(content));
+			channel.force(false);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.generation = generation;
+		offset = content.length;
+		records = 0;
+	}
+
+	/**
+	 * Zwraca numer pokolenia dziennika.
+	 *
+	 * @return Numer pokolenia.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Zwraca liczbę rekordów w dzienniku.
+	 *
+	 * @return Liczba rekordów.
+	 */
+	public int size() {
+		return records;
+	}
+
+	/**
+	 * Zwraca ścieżkę do pliku dziennika.
+	 *
+	 * @return Ścieżka do pliku.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	private static String encode(JSONObject record) {
+		String json = record.toString();
+		return Long.toHexString(crc(json)) + '\t' + json + '\n';
+	}
+
+	private static JSONObject decode(String line) {
+		int tab = line.indexOf('\t');
+		if (tab <= 0) {
+			return null;
+		}
+		String json = line.substring(tab + 1);
+		try {
+			if (Long.parseLong(line.substring(0, tab), 16) != crc(json)) {
+				return null;
+			}
+			return new JSONObject(json);
+		} catch (NumberFormatException | JSONException e) {
+			return null;
+		}
+	}
+
+	private static long crc(String json) {
+		CRC32 crc = new CRC32();
+		crc.update(json.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+}
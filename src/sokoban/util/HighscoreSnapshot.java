@@ -0,0 +1,266 @@
+package sokoban.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+import sokoban.MapInfo;
+
+/**
+ * Binarny plik z pełnym stanem najlepszych wyników. Plik składa się z nagłówka (numer pokolenia i ostatnio użyte imię), bloków z wynikami kolejnych map oraz tabeli map (odcisk, nazwa, liczba wyników, najlepszy czas i położenie bloku) zapisanej na końcu pliku. Przy otwieraniu pliku odczytywane są tylko nagłówek i tabela, a wyniki mapy wczytywane są z jej bloku dopiero wtedy, gdy są potrzebne. Plik pozostaje otwarty do wywołania close(), więc wyniki można wczytywać także wtedy, gdy inny proces zastąpił już plik nowszym.
+ *
+ * Numer pokolenia pliku jest równy numerowi pokolenia dziennika, którego rekordy nie są w nim jeszcze uwzględnione (HighscoreJournal).
+ *
+ * <pre>
+ * int MAGIC, int VERSION, long generation, UTF lastUsedName
+ * bloki map: (UTF player, double time) * count
+ * tabela: int mapCount, (long fingerprint, UTF mapName, int count, double best, long offset) * mapCount
+ * long tableOffset
+ * </pre>
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class HighscoreSnapshot implements Closeable {
+
+	private static final int MAGIC = 0x534b4853;
+	private static final int VERSION = 1;
+
+	/**
+	 * Wpis tabeli map - położenie i podsumowanie wyników jednej mapy.
+	 */
+	public static final class Section {
+		private final MapInfo map;
+		private final int count;
+		private final double best;
+		private final long offset;
+
+		Section(MapInfo map, int count, double best, long offset) {
+			this.map = map;
+			this.count = count;
+			this.best = best;
+			this.offset = offset;
+		}
+
+		/**
+		 * Zwraca mapę, której dotyczą wyniki.
+		 *
+		 * @return Informacje o mapie.
+		 */
+		public MapInfo getMap() {
+			return map;
+		}
+
+		/**
+		 * Zwraca liczbę wyników mapy.
+		 *
+		 * @return Liczba wyników.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Zwraca najlepszy czas mapy.
+		 *
+		 * @return Najlepszy czas.
+		 */
+		public double getBest() {
+			return best;
+		}
+	}
+
+	protected final Path file;
+	protected final FileChannel channel;
+	protected long generation;
+	protected String lastUsedName;
+	protected List<Section> sections;
+
+	protected HighscoreSnapshot(Path file, FileChannel channel) {
+		this.file = file;
+		this.channel = channel;
+	}
+
+	/**
+	 * Sprawdza, czy plik jest binarnym plikiem najlepszych wyników (a nie np. plikiem JSON zapisanym przez starszą wersję).
+	 *
+	 * @param file Plik
+	 * @return True, jeśli plik zaczyna się od sygnatury pliku najlepszych wyników.
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static boolean isSnapshot(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			return in.readInt() == MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Otwiera plik, odczytując nagłówek i tabelę map.
+	 *
+	 * @param file Plik najlepszych wyników
+	 * @return Otwarty plik.
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia lub plik ma nieprawidłowy format.
+	 */
+	public static HighscoreSnapshot open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		HighscoreSnapshot snapshot = new HighscoreSnapshot(file, channel);
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("HighscoreSnapshot - Invalid file format: " + file);
+			}
+			snapshot.generation = in.readLong();
+			snapshot.lastUsedName = in.readUTF();
+
+			ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+			channel.read(trailer, channel.size() - Long.BYTES);
+			trailer.flip();
+			in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(trailer.getLong()))));
+			int count = in.readInt();
+			List<Section> sections = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				long fingerprint = in.readLong();
+				String name = in.readUTF();
+				sections.add(new Section(new MapInfo(name, fingerprint), in.readInt(), in.readDouble(), in.readLong()));
+			}
+			snapshot.sections = Collections.unmodifiableList(sections);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Odczytuje numer pokolenia zapisany w nagłówku pliku, bez odczytywania tabeli map.
+	 *
+	 * @param file Plik najlepszych wyników
+	 * @return Numer pokolenia (0, jeśli pliku nie ma lub ma nieprawidłowy format).
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static long readGeneration(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			return in.readInt() == MAGIC && in.readInt() == VERSION ? in.readLong() : 0;
+		} catch (EOFException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Wczytuje wyniki mapy z jej bloku. Wyniki otrzymują kolejne ujemne numery sekwencyjne, więc przy równych czasach poprzedzają wyniki dodane po zapisaniu pliku.
+	 *
+	 * @param section Wpis tabeli map
+	 * @param target Lista, do której dodawane są wyniki
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public synchronized void readSection(Section section, Leaderboard target) throws IOException {
+		InputStream stream = Channels.newInputStream(channel.position(section.offset));
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		for (int i = 0; i < section.count; i++) {
+			String player = in.readUTF();
+			target.add(player, in.readDouble(), i - (long) section.count);
+		}
+	}
+
+	/**
+	 * Zapisuje pełny stan do pliku tymczasowego, wymusza jego zapis na dysk i atomowo zastępuje nim podany plik, więc awaria w trakcie zapisu nie uszkadza poprzedniej wersji pliku.
+	 *
+	 * @param file Plik najlepszych wyników
+	 * @param generation Numer pokolenia dziennika, którego rekordy nie są uwzględnione w pliku
+	 * @param lastUsedName Ostatnio użyte imię
+	 * @param boards Listy wyników map
+	 * @param filter Filtr numerów sekwencyjnych - zapisywane są tylko wyniki, których numery go spełniają
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 */
+	public static void write(Path file, long generation, String lastUsedName, Map<MapInfo, Leaderboard> boards,
+			LongPredicate filter) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		List<Section> sections = new ArrayList<>(boards.size());
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(generation);
+			out.writeUTF(lastUsedName == null ? "" : lastUsedName);
+			for (Map.Entry<MapInfo, Leaderboard> entry : boards.entrySet()) {
+				long offset = out.size();
+				List<Leaderboard.Entry> scores = entry.getValue().getEntries(filter);
+				for (Leaderboard.Entry score : scores) {
+					out.writeUTF(score.getPlayer());
+					out.writeDouble(score.getTime());
+				}
+				if (!scores.isEmpty()) {
+					sections.add(new Section(entry.getKey(), scores.size(), scores.get(0).getTime(), offset));
+				}
+			}
+			long tableOffset = out.size();
+			out.writeInt(sections.size());
+			for (Section section : sections) {
+				out.writeLong(section.map.getFingerprint());
+				out.writeUTF(section.map.getMapName() == null ? "" : section.map.getMapName());
+				out.writeInt(section.count);
+				out.writeDouble(section.best);
+				out.writeLong(section.offset);
+			}
+			out.writeLong(tableOffset);
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Zwraca numer pokolenia pliku.
+	 *
+	 * @return Numer pokolenia.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Zwraca ostatnio użyte imię.
+	 *
+	 * @return Imię gracza.
+	 */
+	public String getLastUsedName() {
+		return lastUsedName;
+	}
+
+	/**
+	 * Zwraca tabelę map zapisanych w pliku.
+	 *
+	 * @return Niemodyfikowalna lista wpisów tabeli.
+	 */
+	public List<Section> getSections() {
+		return sections;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -1,16 +1,30 @@
 package sokoban.util;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -20,7 +34,9 @@ import org.json.JSONTokener;
 import sokoban.MapInfo;
 
 /**
- * Klasa odpowiadająca za zarządzanie najlepszymi wynikami.
+ * Klasa odpowiadająca za zarządzanie najlepszymi wynikami. Przechowywane są wszystkie wyniki każdej mapy (Leaderboard), a getHighscoresForMap() zwraca getTopN() najlepszych z nich. Pełny stan zapisywany jest w pliku highscores.dat, a każdy nowy wynik jest jedynie dopisywany do dziennika (HighscoreJournal), więc koszt dodania wyniku nie zależy od liczby zapisanych wyników. Wszystkie operacje na plikach wykonuje jeden wątek zapisujący (Writer) - metody wywoływane z wątku interfejsu zmieniają jedynie stan w pamięci i przekazują rekord do kolejki. Wątek zapisujący czeka WRITE_DELAY_MILLIS na kolejne wyniki, dopisuje całą serię do dziennika i wymusza jej zapis na dysk (fsync) jednokrotnie, a po przekroczeniu COMPACTION_THRESHOLD rekordów scala dziennik z plikiem highscores.dat. Przed zakończeniem programu należy wywołać flush().
+ * 
+ * Z tych samych plików może jednocześnie korzystać kilka uruchomionych programów. Każda operacja na plikach wykonywana jest pod blokadą pliku highscores.lock (FileChannel.lock()), a przed dopisaniem własnych wyników wątek zapisujący odczytuje rekordy dopisane do dziennika przez inne procesy. Scalenie dziennika z plikiem najlepszych wyników zastępuje dziennik pustym dziennikiem kolejnego pokolenia - proces, który zauważy zmianę pokolenia, wczytuje od nowa tabelę map z pliku najlepszych wyników i nowy dziennik, zachowując wyniki, których jeszcze nie zapisał. Wątek obserwujący (Watcher) wykrywa zmiany plików za pomocą WatchService, a co REFRESH_INTERVAL_MILLIS dodatkowo porównuje czas modyfikacji i rozmiar plików, i zleca wtedy wątkowi zapisującemu odczytanie nowych rekordów, więc zmiany wprowadzone przez inne procesy widoczne są bez ponownego wczytywania całego pliku. Po ich odczytaniu wywoływani są słuchacze zarejestrowani przez addChangeListener().
  * 
  * @author Maciej Budrowski
  *
@@ -28,9 +44,194 @@ import sokoban.MapInfo;
 public class Highscores {
 	
 	private static final String FILENAME = "highscores.dat";
+	private static final String JOURNAL_FILENAME = "highscores.journal";
+	private static final String LOCK_FILENAME = "highscores.lock";
+	
+	/**
+	 * Liczba rekordów dziennika, po której przekroczeniu dziennik jest scalany z plikiem najlepszych wyników.
+	 */
+	public static final int COMPACTION_THRESHOLD = 1000;
+	/**
+	 * Czas (w milisekundach), przez który wątek zapisujący zbiera kolejne wyniki, zanim zapisze je na dysk.
+	 */
+	public static final long WRITE_DELAY_MILLIS = 200;
+	/**
+	 * Maksymalny czas (w milisekundach) oczekiwania na zapisanie wyników przy zamykaniu programu.
+	 */
+	public static final long FLUSH_TIMEOUT_MILLIS = 5000;
+	/**
+	 * Odstęp (w milisekundach) między sprawdzeniami czasu modyfikacji i rozmiaru plików najlepszych wyników - na wypadek systemów plików, na których WatchService nie zgłasza zmian (np. dyski sieciowe).
+	 */
+	public static final long REFRESH_INTERVAL_MILLIS = 1000;
+	
+	/**
+	 * Wynik oczekujący na zapisanie w dzienniku wraz z jego numerem sekwencyjnym w pamięci.
+	 */
+	private static class Record {
+		
+		private final JSONObject json;
+		private final long sequence;
+		
+		Record(JSONObject json, long sequence) {
+			this.json = json;
+			this.sequence = sequence;
+		}
+	}
+	
+	/**
+	 * Operacja na plikach najlepszych wyników wykonywana pod blokadą.
+	 */
+	private interface FileOperation {
+		void run() throws IOException;
+	}
+	
+	/**
+	 * Wątek zapisujący - jedyny wątek, który zapisuje dziennik i plik najlepszych wyników. Kolejka zawiera rekordy wyników, znaczniki SNAPSHOT (żądanie zapisania pełnego stanu), RESET (żądanie usunięcia wszystkich wyników) i REFRESH (żądanie odczytania zmian wprowadzonych przez inne procesy) oraz bariery CountDownLatch, zwalniane po zapisaniu na dysk wszystkich wcześniejszych elementów.
+	 */
+	private static class Writer extends Thread {
+		
+		private static final Object SNAPSHOT = new Object();
+		private static final Object RESET = new Object();
+		private static final Object REFRESH = new Object();
+		
+		private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+		
+		Writer() {
+			super("highscores-writer");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			List<Object> batch = new ArrayList<>();
+			while (true) {
+				try {
+					Object first = queue.take();
+					if (first instanceof Record || first == SNAPSHOT || first == RESET) {
+						Thread.sleep(WRITE_DELAY_MILLIS);
+					}
+					batch.add(first);
+					queue.drainTo(batch);
+				} catch (InterruptedException e) {
+					return;
+				}
+				write(batch);
+				batch.clear();
+			}
+		}
+		
+		private void write(List<Object> batch) {
+			try {
+				withFileLock(() -> {
+					merge(batch);
+					List<JSONObject> records = new ArrayList<>();
+					boolean snapshot = false;
+					for (Object item : batch) {
+						if (item instanceof Record) {
+							records.add(((Record) item).json);
+						}
+						else if (item == RESET) {
+							records.clear();
+							reset(batch);
+						}
+						else if (item == SNAPSHOT) {
+							snapshot = true;
+						}
+					}
+					journal.append(records);
+					if (snapshot || journal.size() >= COMPACTION_THRESHOLD) {
+						compact();
+					}
+				});
+			} catch (IOException | JSONException e) {
+				e.printStackTrace();
+			}
+			for (Object item : batch) {
+				if (item instanceof CountDownLatch) {
+					((CountDownLatch) item).countDown();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Wątek obserwujący pliki najlepszych wyników - po wykryciu ich zmiany zleca wątkowi zapisującemu odczytanie nowych rekordów.
+	 */
+	private static class Watcher extends Thread {
+		
+		Watcher() {
+			super("highscores-watcher");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			Path directory = Paths.get(FILENAME).toAbsolutePath().getParent();
+			WatchService service;
+			try {
+				service = directory.getFileSystem().newWatchService();
+				directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			} catch (IOException | UnsupportedOperationException e) {
+				// pozostaje samo sprawdzanie czasu modyfikacji
+				service = null;
+			}
+			String stamp = stamp();
+			while (true) {
+				boolean changed = false;
+				try {
+					WatchKey key;
+					if (service == null) {
+						Thread.sleep(REFRESH_INTERVAL_MILLIS);
+						key = null;
+					}
+					else {
+						key = service.poll(REFRESH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+					}
+					if (key != null) {
+						for (WatchEvent<?> event : key.pollEvents()) {
+							Object name = event.context();
+							changed |= name == null || name.toString().equals(FILENAME) || name.toString().equals(JOURNAL_FILENAME);
+						}
+						key.reset();
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				String current = stamp();
+				if (changed || !current.equals(stamp)) {
+					stamp = current;
+					writer().queue.add(Writer.REFRESH);
+				}
+			}
+		}
+		
+		/**
+		 * Zwraca czas modyfikacji i rozmiar pliku najlepszych wyników oraz dziennika.
+		 */
+		private static String stamp() {
+			return stamp(Paths.get(FILENAME)) + "/" + stamp(Paths.get(JOURNAL_FILENAME));
+		}
+		
+		private static String stamp(Path file) {
+			try {
+				return Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+			} catch (IOException e) {
+				return "";
+			}
+		}
+	}
 
-	private static Map< MapInfo, List< Pair<String, Double> > > highscores = new HashMap< MapInfo, List< Pair<String,Double> > >();
-	private static String lastUsedName;
+	private static final Object FILE_LOCK = new Object();
+	private static Map<MapInfo, Leaderboard> highscores = new ConcurrentHashMap<>();
+	private static Map<MapInfo, HighscoreSnapshot.Section> unloaded = new ConcurrentHashMap<>();
+	private static HighscoreSnapshot snapshot;
+	private static volatile int topN = 10;
+	private static volatile String lastUsedName;
+	private static long sequence = 0;
+	private static HighscoreJournal journal = new HighscoreJournal(Paths.get(JOURNAL_FILENAME));
+	private static List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	private static Writer writer;
+	private static Watcher watcher;
 	
 	/**
 	 * Metoda zwracająca mapy z najlepszymi wynikami.
@@ -39,33 +240,128 @@ public class Highscores {
 	 */
 	public static Collection<MapInfo> getMaps() {
 		List<MapInfo> maps = new ArrayList<>(highscores.keySet());
+		maps.addAll(unloaded.keySet());
 		maps.sort((a, b) -> {
 			return a.getMapName().compareTo(b.getMapName());
 		});
 		return maps;
 	}
 	
+	/**
+	 * Metoda zwracająca liczbę wyświetlanych najlepszych wyników.
+	 * 
+	 * @return Liczba najlepszych wyników zwracanych przez getHighscoresForMap().
+	 */
+	public static int getTopN() {
+		return topN;
+	}
+	
+	/**
+	 * Metoda ustawiająca liczbę wyświetlanych najlepszych wyników. Zapisywane są wszystkie wyniki, więc zmiana nie usuwa żadnego wyniku.
+	 * 
+	 * @param n Liczba najlepszych wyników zwracanych przez getHighscoresForMap()
+	 */
+	public static void setTopN(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("Highscores - Invalid top-N size: " + n);
+		}
+		topN = n;
+	}
+	
 	/**
 	 * Metoda zwracająca listę najlepszych wyników dla podanej mapy.
 	 * 
 	 * @param map Żądana mapa
-	 * @return Lista najlepszych wyników dla podanej mapy
+	 * @return Lista getTopN() najlepszych wyników dla podanej mapy lub null, jeśli mapa nie ma wyników.
+	 */
+	public static List< Pair<String, Double> > getHighscoresForMap(MapInfo map) {
+		Leaderboard board = board(map);
+		if (board == null || board.size() == 0) {
+			return null;
+		}
+		return board.getPage(0, topN);
+	}
+	
+	/**
+	 * Metoda zwracająca stronę wyników dla podanej mapy.
+	 * 
+	 * @param map Żądana mapa
+	 * @param offset Indeks pierwszego wyniku (od 0)
+	 * @param count Maksymalna liczba wyników
+	 * @return Lista wyników (pusta, jeśli mapa nie ma wyników).
+	 */
+	public static List< Pair<String, Double> > getHighscoresPage(MapInfo map, int offset, int count) {
+		Leaderboard board = board(map);
+		return board == null ? new ArrayList<>() : board.getPage(offset, count);
+	}
+	
+	/**
+	 * Metoda zwracająca liczbę zapisanych wyników dla podanej mapy.
+	 * 
+	 * @param map Żądana mapa
+	 * @return Liczba wyników.
+	 */
+	public static int getScoreCount(MapInfo map) {
+		HighscoreSnapshot.Section section = unloaded.get(map);
+		if (section != null) {
+			return section.getCount();
+		}
+		Leaderboard board = highscores.get(map);
+		return board == null ? 0 : board.size();
+	}
+	
+	/**
+	 * Metoda zwracająca miejsce, które zająłby podany czas na liście wyników mapy.
+	 * 
+	 * @param map Żądana mapa
+	 * @param time Czas
+	 * @return Miejsce na liście (1 - najlepszy wynik).
+	 */
+	public static int getRank(MapInfo map, double time) {
+		Leaderboard board = board(map);
+		return board == null ? 1 : board.getRank(time);
+	}
+	
+	/**
+	 * Metoda zwracająca procent zapisanych wyników mapy gorszych od podanego czasu.
+	 * 
+	 * @param map Żądana mapa
+	 * @param time Czas
+	 * @return Wartość od 0 do 100.
 	 */
-	public static List< Pair<String, Double> > getHighscoresForMap(MapInfo map) {	
-		return highscores.get(map);
+	public static double getPercentile(MapInfo map, double time) {
+		Leaderboard board = board(map);
+		return board == null ? 100.0 : board.getPercentile(time);
 	}
 	
 	/**
-	 * Metoda zwracająca najlepszy wynik dla podanej mapy.
+	 * Metoda zwracająca najgorszy czas na liście getTopN() najlepszych wyników dla podanej mapy.
 	 * 
 	 * @param mapInfo Żądana mapa
-	 * @return Najlepszy czas dla danej mapy.
+	 * @return Najgorszy czas na liście najlepszych wyników lub null, jeśli mapa nie ma wyników.
 	 */
 	public static Double getHighestScore(MapInfo mapInfo) {
-		if (!highscores.containsKey(mapInfo) || highscores.get(mapInfo).size() == 0) {
+		List< Pair<String, Double> > list = getHighscoresForMap(mapInfo);
+		if (list == null) {
 			return null;
 		}
-		return ((LinkedList< Pair<String, Double> >) highscores.get(mapInfo)).getLast().getValue();
+		return list.get(list.size() - 1).getValue();
+	}
+	
+	/**
+	 * Metoda zwracająca najlepszy czas dla mapy o podanym odcisku struktury.
+	 * 
+	 * @param fingerprint Odcisk struktury mapy
+	 * @return Najlepszy czas lub null, jeśli mapa nie ma najlepszych wyników.
+	 */
+	public static Double getBestTime(long fingerprint) {
+		MapInfo map = new MapInfo(null, fingerprint);
+		HighscoreSnapshot.Section section = unloaded.get(map);
+		if (section != null) {
+			return section.getBest();
+		}
+		Leaderboard board = highscores.get(map);
+		return board == null ? null : board.getBestTime();
 	}
 	
 	/**
@@ -78,55 +374,211 @@ public class Highscores {
 	}
 	
 	/**
-	 * Metoda dodająca najlepszy wynik do kolekcji. Najlepsze wyniki następnie są zapisywane do pliku.
+	 * Metoda dodająca najlepszy wynik do kolekcji. Wynik jest następnie przekazywany do zapisania w dzienniku przez wątek zapisujący, więc metoda nie wykonuje operacji na plikach.
 	 * 
 	 * @param mapInfo Obiekt przechowujący informacje o mapie
 	 * @param player Imię gracza
 	 * @param time Osiągnięty czas
 	 */
-	public static void addHighscore(MapInfo mapInfo, String player, Double time) {
-		if (highscores.containsKey(mapInfo)) {
-			List< Pair<String, Double> > list = highscores.get(mapInfo);
-			int i;
-			for (i = 0; i < list.size(); i++) {
-				if (list.get(i).getValue() <= time) {
-					continue;
-				}
-				break;
+	public static synchronized void addHighscore(MapInfo mapInfo, String player, Double time) {
+		insert(mapInfo, player, time, ++sequence);
+		lastUsedName = player;
+		JSONObject record = new JSONObject();
+		record.put("fingerprint", Long.toHexString(mapInfo.getFingerprint()));
+		record.put("mapName", mapInfo.getMapName());
+		record.put("player", player);
+		record.put("time", time);
+		writer().queue.add(new Record(record, sequence));
+	}
+	
+	/**
+	 * Metoda rejestrująca słuchacza wywoływanego (w wątku zapisującym) po wczytaniu wyników zapisanych przez inne uruchomione programy.
+	 * 
+	 * @param listener Słuchacz
+	 */
+	public static void addChangeListener(Runnable listener) {
+		listeners.add(listener);
+	}
+	
+	private static void insert(MapInfo mapInfo, String player, double time, long seq) {
+		Leaderboard board = board(mapInfo);
+		if (board == null) {
+			board = highscores.computeIfAbsent(mapInfo, key -> new Leaderboard());
+		}
+		board.add(player, time, seq);
+	}
+	
+	private static void insert(JSONObject record, long seq) {
+		insert(new MapInfo(record.getString("mapName"), Long.parseUnsignedLong(record.getString("fingerprint"), 16)),
+				record.getString("player"), record.getDouble("time"), seq);
+	}
+	
+	/**
+	 * Zwraca listę wyników mapy, wczytując ją z pliku najlepszych wyników, jeśli nie była jeszcze potrzebna.
+	 */
+	private static Leaderboard board(MapInfo map) {
+		Leaderboard board = highscores.get(map);
+		if (board != null || !unloaded.containsKey(map)) {
+			return board;
+		}
+		synchronized (unloaded) {
+			HighscoreSnapshot.Section section = unloaded.get(map);
+			if (section == null) {
+				return highscores.get(map);
 			}
-			list.add(i, new Pair<String, Double>(player, time));
-			while (list.size() > 10) {
-				list.remove(10);
+			board = new Leaderboard();
+			try {
+				snapshot.readSection(section, board);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
+			highscores.put(map, board);
+			unloaded.remove(map);
+			return board;
 		}
-		else {
-			List< Pair<String, Double> > list = new LinkedList<>();
-			list.add(new Pair<String, Double>(player, time));
-			highscores.put(mapInfo, list);
+	}
+	
+	/**
+	 * Wczytuje wyniki wszystkich map, których wyniki nie były jeszcze potrzebne, i zamyka plik najlepszych wyników - wywoływana przed zastąpieniem pliku.
+	 */
+	private static void loadAll() throws IOException {
+		for (MapInfo map : new ArrayList<>(unloaded.keySet())) {
+			board(map);
 		}
-		lastUsedName = player;
-		try {
-			saveHighscores();
-		} catch (IOException e) {
-			e.printStackTrace();
+		HighscoreSnapshot previous;
+		synchronized (unloaded) {
+			previous = snapshot;
+			snapshot = null;
+		}
+		if (previous != null) {
+			previous.close();
 		}
 	}
 	
+	private static synchronized Writer writer() {
+		if (writer == null) {
+			writer = new Writer();
+			writer.start();
+		}
+		return writer;
+	}
+	
 	/**
-	 * Metoda wczytująca najlepsze wyniki z pliku.
+	 * Wykonuje operację na plikach pod blokadą pliku highscores.lock, wykluczającą jednoczesne operacje innych procesów. Blokada pliku należy do całej maszyny wirtualnej, więc wątki tego procesu wykluczane są dodatkowo monitorem FILE_LOCK.
+	 */
+	private static void withFileLock(FileOperation operation) throws IOException {
+		synchronized (FILE_LOCK) {
+			try (FileChannel channel = FileChannel.open(Paths.get(LOCK_FILENAME), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE)) {
+				FileLock lock = channel.lock();
+				try {
+					operation.run();
+				} finally {
+					lock.release();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Metoda czekająca, aż wątek zapisujący zapisze na dysk wszystkie wcześniej dodane wyniki. Wywoływana przy zamykaniu programu.
 	 * 
-	 * @throws FileNotFoundException Jeśli nie znaleziono pliku najlepszych wyników
-	 * @throws JSONException Jeśli struktura pliku najlepszych wyników jest nieprawidłowa
+	 * @return True, jeśli wyniki zostały zapisane przed upływem FLUSH_TIMEOUT_MILLIS.
 	 */
-	public static void loadHighscores() throws FileNotFoundException, JSONException {
-		JSONTokener tokener = new JSONTokener(new FileInputStream(new File(FILENAME)));
-		JSONObject root = new JSONObject(tokener);
+	public static boolean flush() {
+		Writer current;
+		synchronized (Highscores.class) {
+			current = writer;
+		}
+		if (current == null) {
+			return true;
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		current.queue.add(latch);
 		try {
-			lastUsedName = root.getString("lastUsedName");
+			return latch.await(FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	/**
+	 * Metoda wczytująca najlepsze wyniki z pliku, a następnie odtwarzająca wyniki zapisane w dzienniku, i uruchamiająca obserwowanie zmian wprowadzanych przez inne procesy. Z pliku odczytywana jest jedynie tabela map - wyniki mapy wczytywane są przy pierwszym zapytaniu o nie. Plik JSON zapisany przez starszą wersję wczytywany jest w całości i od razu zastępowany plikiem binarnym. Brak pliku najlepszych wyników nie jest błędem. Metoda wywoływana jest przy uruchamianiu programu, zanim zostanie dodany pierwszy wynik.
+	 * 
+	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia
+	 * @throws JSONException Jeśli struktura pliku JSON jest nieprawidłowa
+	 */
+	public static void loadHighscores() throws IOException, JSONException {
+		withFileLock(() -> {
+			synchronized (Highscores.class) {
+				highscores.clear();
+				unloaded.clear();
+				if (snapshot != null) {
+					snapshot.close();
+					snapshot = null;
+				}
+				lastUsedName = "";
+				sequence = 0;
+				boolean convert = false;
+				Path file = Paths.get(FILENAME);
+				if (Files.exists(file)) {
+					if (HighscoreSnapshot.isSnapshot(file)) {
+						snapshot = HighscoreSnapshot.open(file);
+						lastUsedName = snapshot.getLastUsedName();
+						for (HighscoreSnapshot.Section section : snapshot.getSections()) {
+							unloaded.put(section.getMap(), section);
+						}
+					}
+					else {
+						loadLegacy(file);
+						convert = true;
+					}
+				}
+				for (JSONObject record : readJournal(snapshot == null ? 0 : snapshot.getGeneration())) {
+					insert(record, ++sequence);
+					lastUsedName = record.getString("player");
+				}
+				if (convert) {
+					writer().queue.add(Writer.SNAPSHOT);
+				}
+			}
+		});
+		synchronized (Highscores.class) {
+			if (watcher == null) {
+				watcher = new Watcher();
+				watcher.start();
+			}
 		}
-		catch (JSONException e) {
-			lastUsedName = "";
+	}
+	
+	/**
+	 * Odczytuje wszystkie rekordy dziennika. Dziennik starszego pokolenia niż plik najlepszych wyników pozostaje po awarii między zapisaniem pliku a zastąpieniem dziennika - jego rekordy są już uwzględnione w pliku, więc dziennik jest jedynie zastępowany pustym.
+	 * 
+	 * @param generation Numer pokolenia pliku najlepszych wyników
+	 * @return Rekordy dziennika w kolejności zapisu.
+	 */
+	private static List<JSONObject> readJournal(long generation) throws IOException {
+		List<JSONObject> records = new ArrayList<>();
+		if (HighscoreJournal.readGeneration(journal.getFile()) < generation) {
+			journal.reset(generation);
+		}
+		else {
+			journal.replay(records::add);
 		}
+		return records;
+	}
+	
+	/**
+	 * Wczytuje plik najlepszych wyników w formacie JSON zapisany przez starszą wersję.
+	 */
+	private static void loadLegacy(Path file) throws IOException, JSONException {
+		JSONObject root;
+		try (InputStream in = Files.newInputStream(file)) {
+			root = new JSONObject(new JSONTokener(in));
+		}
+		// starsze wersje zapisywały imię pod kluczem "lastNameUsed"
+		lastUsedName = root.optString("lastUsedName", root.optString("lastNameUsed", ""));
 		JSONArray scores = root.getJSONArray("highscores");
 		int l = scores.length(), k;
 		JSONObject obj, score;
@@ -135,69 +587,140 @@ public class Highscores {
 			obj = scores.getJSONObject(i);
 			
 			MapInfo mapInfo = new MapInfo(obj.getString("mapName"), obj.getString("mapStructure"));
-			List< Pair<String, Double> > list = new LinkedList<>();
 			arr = obj.getJSONArray("scores");
-			k = Math.min(arr.length(), 10);
+			k = arr.length();
 			for (int j = 0; j < k; j++) {
 				score = arr.getJSONObject(j);
 				
-				list.add(new Pair<String, Double>(score.getString("player"), score.getDouble("time")));
+				insert(mapInfo, score.getString("player"), score.getDouble("time"), ++sequence);
+			}
+		}
+	}
+	
+	/**
+	 * Odczytuje zmiany wprowadzone przez inne procesy. Jeśli dziennik ma to samo pokolenie, wczytywane są jedynie dopisane do niego rekordy - w przeciwnym razie stan w pamięci budowany jest od nowa. Wywoływana wyłącznie przez wątek zapisujący, pod blokadą pliku.
+	 */
+	private static void merge(List<Object> batch) throws IOException {
+		List<JSONObject> records = new ArrayList<>();
+		if (journal.readNew(records::add)) {
+			if (records.isEmpty()) {
+				return;
+			}
+			synchronized (Highscores.class) {
+				for (JSONObject record : records) {
+					insert(record, ++sequence);
+				}
+			}
+		}
+		else {
+			rebuild(batch);
+		}
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+	
+	/**
+	 * Buduje stan w pamięci od nowa na podstawie plików - po scaleniu dziennika przez inny proces lub po usunięciu wyników. Z pliku najlepszych wyników odczytywana jest jedynie tabela map, a plik i dziennik odczytywane są przed zajęciem monitora klasy, więc w tym czasie można dodawać nowe wyniki. Wyniki oczekujące w kolejce wątku zapisującego (i w bieżącej serii) dodawane są ponownie z tymi samymi numerami sekwencyjnymi.
+	 */
+	private static void rebuild(List<Object> batch) throws IOException {
+		Path file = Paths.get(FILENAME);
+		HighscoreSnapshot next = Files.exists(file) ? HighscoreSnapshot.open(file) : null;
+		List<JSONObject> records = readJournal(next == null ? 0 : next.getGeneration());
+		HighscoreSnapshot previous;
+		synchronized (Highscores.class) {
+			List<Record> pending = pending(batch);
+			synchronized (unloaded) {
+				highscores.clear();
+				unloaded.clear();
+				previous = snapshot;
+				snapshot = next;
+				if (next != null) {
+					for (HighscoreSnapshot.Section section : next.getSections()) {
+						unloaded.put(section.getMap(), section);
+					}
+				}
+			}
+			for (JSONObject record : records) {
+				insert(record, ++sequence);
+			}
+			for (Record record : pending) {
+				insert(record.json, record.sequence);
+			}
+		}
+		if (previous != null) {
+			previous.close();
+		}
+	}
+	
+	/**
+	 * Zwraca wyniki z bieżącej serii i kolejki wątku zapisującego, które nie zostały jeszcze zapisane w dzienniku i nie zostały usunięte przez resetHighscores(). Wywoływana pod monitorem klasy.
+	 */
+	private static List<Record> pending(List<Object> batch) {
+		List<Object> items = new ArrayList<>(batch);
+		items.addAll(writer.queue);
+		List<Record> pending = new ArrayList<>();
+		for (Object item : items) {
+			if (item instanceof Record) {
+				pending.add((Record) item);
+			}
+			else if (item == Writer.RESET) {
+				pending.clear();
 			}
-			
-			highscores.put(mapInfo, list);
 		}
+		return pending;
 	}
 	
 	/**
-	 * Metoda zapisująca wszystkie najlepsze wyniki z pamięci do pliku.
+	 * Metoda zlecająca wątkowi zapisującemu zapisanie wszystkich najlepszych wyników z pamięci do pliku i czekająca na zakończenie zapisu.
 	 * 
-	 * @throws IOException Jeśli nastąpił błąd wejścia/wyjścia.
+	 * @throws IOException Jeśli zapis nie zakończył się przed upływem FLUSH_TIMEOUT_MILLIS.
 	 */
 	public static void saveHighscores() throws IOException {
-		JSONObject root = new JSONObject();
-		JSONArray arr = new JSONArray();
-		JSONObject obj, innerObj;
-		JSONArray tmp;
-		for (Map.Entry<MapInfo, List< Pair<String, Double> >> i : highscores.entrySet()) {
-			obj = new JSONObject();
-			
-			obj.put("mapName", i.getKey().getMapName());
-			obj.put("mapStructure", i.getKey().getMapStructure());
-			
-			tmp = new JSONArray();
-			
-			for (Pair<String, Double> j : i.getValue()) {
-				innerObj = new JSONObject();
-				innerObj.put("player", j.getKey());
-				innerObj.put("time", j.getValue());
-				
-				tmp.put(innerObj);
+		writer().queue.add(Writer.SNAPSHOT);
+		if (!flush()) {
+			throw new IOException("Highscores - Timed out while saving " + FILENAME);
+		}
+	}
+	
+	/**
+	 * Zapisuje pełny stan do pliku najlepszych wyników i zastępuje dziennik pustym dziennikiem kolejnego pokolenia. Wywoływana wyłącznie przez wątek zapisujący, pod blokadą pliku, po dopisaniu bieżącej serii do dziennika. Pod monitorem klasy odczytywane są jedynie numer ostatniego wyniku i numery wyników oczekujących w kolejce - zapisywane są wyniki o numerach nie większych od niego, z pominięciem oczekujących, więc w trakcie zapisu można dodawać nowe wyniki.
+	 */
+	private static void compact() throws IOException {
+		loadAll();
+		long covered;
+		String name;
+		Set<Long> queued = new HashSet<>();
+		synchronized (Highscores.class) {
+			covered = sequence;
+			name = lastUsedName;
+			for (Record record : pending(new ArrayList<>())) {
+				queued.add(record.sequence);
 			}
-			
-			obj.put("scores", tmp);
-			
-			arr.put(obj);
 		}
-		
-		root.put("highscores", arr);
-		root.put("lastNameUsed", lastUsedName);
-		
-		FileWriter writer = new FileWriter(new File(FILENAME));
-		writer.write(root.toString(4));
-		writer.close();
+		long generation = journal.getGeneration() + 1;
+		HighscoreSnapshot.write(Paths.get(FILENAME), generation, name, highscores,
+				seq -> seq <= covered && !queued.contains(seq));
+		journal.reset(generation);
 	}
 	
 	/**
-	 * Metoda, która usuwa najlepsze wyniki, a następnie nadpisuje wyniki z pliku.
+	 * Zastępuje plik najlepszych wyników pustym plikiem, a dziennik - pustym dziennikiem kolejnego pokolenia, dzięki czemu wyniki usuwane są także w innych procesach. Wywoływana wyłącznie przez wątek zapisujący, pod blokadą pliku.
 	 */
-	public static void resetHighscores() {
+	private static void reset(List<Object> batch) throws IOException {
+		long generation = journal.getGeneration() + 1;
+		HighscoreSnapshot.write(Paths.get(FILENAME), generation, lastUsedName, Collections.emptyMap(), seq -> true);
+		journal.reset(generation);
+		rebuild(batch);
+	}
+	
+	/**
+	 * Metoda, która usuwa najlepsze wyniki, a następnie zleca usunięcie wyników z plików.
+	 */
+	public static synchronized void resetHighscores() {
 		highscores.clear();
-		try {
-			saveHighscores();
-		}
-		catch (IOException e) {
-			e.printStackTrace();
-		}
+		unloaded.clear();
+		writer().queue.add(Writer.RESET);
 	}
 	
 }
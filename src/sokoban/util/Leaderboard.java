@@ -0,0 +1,317 @@
+package sokoban.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Pełna, posortowana lista wyników jednej mapy, bezpieczna dla wielu wątków. Wyniki przechowywane są w drzewie przeszukiwań (drzewiec - drzewo z losowymi priorytetami) uporządkowanym rosnąco według czasu, a przy równych czasach - według kolejności dodania. Każdy węzeł zna liczbę wyników w swoim poddrzewie, dzięki czemu dodanie wyniku, wyznaczenie miejsca dla danego czasu, percentyla oraz początku dowolnej strony wyników kosztują O(log n) niezależnie od tego, ile wyników ma ten sam czas.
+ *
+ * Zapis (dodanie wyniku) wykonywany jest pod blokadą do zapisu, a zapytania - pod blokadą do odczytu, więc wiele wątków może jednocześnie odpytywać listę.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class Leaderboard {
+
+	/**
+	 * Pojedynczy wynik na liście.
+	 */
+	public static final class Entry implements Comparable<Entry> {
+		private final String player;
+		private final double time;
+		private final long sequence;
+
+		public Entry(String player, double time, long sequence) {
+			this.player = player;
+			this.time = time;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Zwraca imię gracza.
+		 *
+		 * @return Imię gracza.
+		 */
+		public String getPlayer() {
+			return player;
+		}
+
+		/**
+		 * Zwraca osiągnięty czas.
+		 *
+		 * @return Czas w sekundach.
+		 */
+		public double getTime() {
+			return time;
+		}
+
+		/**
+		 * Zwraca numer sekwencyjny wyniku (kolejność dodania).
+		 *
+		 * @return Numer sekwencyjny.
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			int cmp = Double.compare(time, o.time);
+			return cmp != 0 ? cmp : Long.compare(sequence, o.sequence);
+		}
+	}
+
+	/**
+	 * Węzeł drzewa wyników.
+	 */
+	private static final class Node {
+		final Entry entry;
+		final int priority;
+		Node left, right;
+		int count = 1;
+
+		Node(Entry entry, int priority) {
+			this.entry = entry;
+			this.priority = priority;
+		}
+	}
+
+	protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+	protected final Random random = new Random();
+	protected Node root;
+
+	/**
+	 * Dodaje wynik do listy.
+	 *
+	 * @param player Imię gracza
+	 * @param time Osiągnięty czas
+	 * @param sequence Numer sekwencyjny wyniku (rozstrzyga kolejność przy równych czasach)
+	 */
+	public void add(String player, double time, long sequence) {
+		lock.writeLock().lock();
+		try {
+			Entry entry = new Entry(player, time, sequence);
+			if (!contains(entry)) {
+				root = insert(root, new Node(entry, random.nextInt()));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca liczbę wyników na liście.
+	 *
+	 * @return Liczba wyników.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return count(root);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca miejsce, które zająłby podany czas (1 - najlepszy wynik).
+	 *
+	 * @param time Czas
+	 * @return Liczba wyników lepszych od podanego czasu powiększona o jeden.
+	 */
+	public int getRank(double time) {
+		lock.readLock().lock();
+		try {
+			return countBefore(time, false) + 1;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca percentyl podanego czasu, tj. procent zapisanych wyników gorszych od niego.
+	 *
+	 * @param time Czas
+	 * @return Wartość od 0 do 100 (100, jeśli lista jest pusta).
+	 */
+	public double getPercentile(double time) {
+		lock.readLock().lock();
+		try {
+			int size = count(root);
+			if (size == 0) {
+				return 100.0;
+			}
+			return 100.0 * (size - countBefore(time, true)) / size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca stronę wyników.
+	 *
+	 * @param offset Indeks pierwszego wyniku (od 0)
+	 * @param count Maksymalna liczba wyników
+	 * @return Wyniki od najlepszego, w postaci par imię-czas.
+	 */
+	public List<Pair<String, Double>> getPage(int offset, int count) {
+		List<Pair<String, Double>> page = new ArrayList<>(Math.max(0, Math.min(count, 64)));
+		lock.readLock().lock();
+		try {
+			if (offset < 0 || offset >= count(root) || count <= 0) {
+				return page;
+			}
+			// ścieżka do wyniku o indeksie offset - na stosie zostają węzły, które występują po nim
+			Deque<Node> path = new ArrayDeque<>();
+			int skip = offset;
+			for (Node node = root; node != null;) {
+				int left = count(node.left);
+				if (skip <= left) {
+					path.push(node);
+					node = skip == left ? null : node.left;
+				} else {
+					skip -= left + 1;
+					node = node.right;
+				}
+			}
+			while (page.size() < count && !path.isEmpty()) {
+				Node node = path.pop();
+				page.add(new Pair<String, Double>(node.entry.player, node.entry.time));
+				for (Node next = node.right; next != null; next = next.left) {
+					path.push(next);
+				}
+			}
+			return page;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca najlepszy wynik.
+	 *
+	 * @return Najlepszy czas lub null, jeśli lista jest pusta.
+	 */
+	public Double getBestTime() {
+		lock.readLock().lock();
+		try {
+			if (root == null) {
+				return null;
+			}
+			Node node = root;
+			while (node.left != null) {
+				node = node.left;
+			}
+			return node.entry.time;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca kopię wszystkich wyników, których numery sekwencyjne spełniają podany filtr, od najlepszego. Blokada trzymana jest tylko na czas kopiowania, więc zapis kopii (np. do pliku) nie wstrzymuje dodawania wyników.
+	 *
+	 * @param filter Filtr numerów sekwencyjnych
+	 * @return Lista wyników.
+	 */
+	public List<Entry> getEntries(LongPredicate filter) {
+		lock.readLock().lock();
+		try {
+			List<Entry> result = new ArrayList<>(count(root));
+			Deque<Node> path = new ArrayDeque<>();
+			for (Node node = root; node != null || !path.isEmpty();) {
+				if (node != null) {
+					path.push(node);
+					node = node.left;
+				} else {
+					node = path.pop();
+					if (filter.test(node.entry.sequence)) {
+						result.add(node.entry);
+					}
+					node = node.right;
+				}
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Zwraca liczbę wyników o czasie mniejszym od podanego (lub nie większym, jeśli inclusive).
+	 */
+	private int countBefore(double time, boolean inclusive) {
+		int before = 0;
+		for (Node node = root; node != null;) {
+			int cmp = Double.compare(node.entry.time, time);
+			if (cmp < 0 || (inclusive && cmp == 0)) {
+				before += count(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return before;
+	}
+
+	private boolean contains(Entry entry) {
+		for (Node node = root; node != null;) {
+			int cmp = entry.compareTo(node.entry);
+			if (cmp == 0) {
+				return true;
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Wstawia węzeł do poddrzewa i przywraca uporządkowanie priorytetów obrotami. Oczekiwana głębokość drzewa to O(log n).
+	 */
+	private static Node insert(Node node, Node added) {
+		if (node == null) {
+			return added;
+		}
+		node.count++;
+		if (added.entry.compareTo(node.entry) < 0) {
+			node.left = insert(node.left, added);
+			if (node.left.priority > node.priority) {
+				return rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, added);
+			if (node.right.priority > node.priority) {
+				return rotateLeft(node);
+			}
+		}
+		return node;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node top = node.left;
+		node.left = top.right;
+		top.right = node;
+		top.count = node.count;
+		node.count = count(node.left) + count(node.right) + 1;
+		return top;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node top = node.right;
+		node.right = top.left;
+		top.left = node;
+		top.count = node.count;
+		node.count = count(node.left) + count(node.right) + 1;
+		return top;
+	}
+
+	private static int count(Node node) {
+		return node == null ? 0 : node.count;
+	}
+}
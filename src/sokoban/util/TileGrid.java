@@ -0,0 +1,244 @@
+package sokoban.util;
+
+/**
+ * Klasa reprezentująca planszę w postaci płaskiej siatki pól. Warstwy statyczne (ściana, podłoga, pole wygranej) przechowywane są jako flagi bitowe w tablicy bajtów, a położenie skrzynek jako zbiór bitów. Dzięki temu sprawdzenie zawartości dowolnego pola odbywa się w czasie stałym.
+ *
+ * @author Maciej Budrowski
+ *
+ */
+public class TileGrid {
+
+	public static final byte WALL = 1;
+	public static final byte FLOOR = 2;
+	public static final byte GOAL = 4;
+
+	protected final int width, height;
+	protected final byte[] tiles;
+	protected final long[] boxes;
+	protected int boxCount = 0, boxesOnGoals = 0, goalCount = 0;
+
+	public TileGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.tiles = new byte[width * height];
+		this.boxes = new long[(width * height + 63) >>> 6];
+	}
+
+	/**
+	 * Konstruktor kopiujący.
+	 *
+	 * @param other Kopiowana siatka
+	 */
+	public TileGrid(TileGrid other) {
+		this.width = other.width;
+		this.height = other.height;
+		this.tiles = other.tiles.clone();
+		this.boxes = other.boxes.clone();
+		this.boxCount = other.boxCount;
+		this.boxesOnGoals = other.boxesOnGoals;
+		this.goalCount = other.goalCount;
+	}
+
+	/**
+	 * Zwraca szerokość siatki w polach.
+	 *
+	 * @return Szerokość siatki.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Zwraca wysokość siatki w polach.
+	 *
+	 * @return Wysokość siatki.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Sprawdza, czy dane współrzędne leżą wewnątrz siatki.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return True, jeśli współrzędne są prawidłowe.
+	 */
+	public boolean isInside(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Zamienia współrzędne na indeks pola w siatce.
+	 *
+	 * @param x Współrzędna X
+	 * @param y Współrzędna Y
+	 * @return Indeks pola.
+	 */
+	public int index(int x, int y) {
+		return y * width + x;
+	}
+
+	/**
+	 * Zwraca flagi statyczne pola (kombinacja WALL, FLOOR i GOAL).
+	 *
+	 * @param index Indeks pola
+	 * @return Flagi pola.
+	 */
+	public byte getTile(int index) {
+		return tiles[index];
+	}
+
+	/**
+	 * Dodaje flagę statyczną do pola.
+	 *
+	 * @param index Indeks pola
+	 * @param flag Dodawana flaga
+	 */
+	public void addFlag(int index, byte flag) {
+		if ((flag & GOAL) != 0 && (tiles[index] & GOAL) == 0) {
+			goalCount++;
+			if (hasBox(index)) {
+				boxesOnGoals++;
+			}
+		}
+		tiles[index] |= flag;
+	}
+
+	/**
+	 * Sprawdza, czy pole jest ścianą.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli na polu jest ściana.
+	 */
+	public boolean isWall(int index) {
+		return (tiles[index] & WALL) != 0;
+	}
+
+	/**
+	 * Sprawdza, czy pole jest podłogą.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli na polu jest podłoga.
+	 */
+	public boolean isFloor(int index) {
+		return (tiles[index] & FLOOR) != 0;
+	}
+
+	/**
+	 * Sprawdza, czy pole jest polem wygranej.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli pole jest polem wygranej.
+	 */
+	public boolean isGoal(int index) {
+		return (tiles[index] & GOAL) != 0;
+	}
+
+	/**
+	 * Sprawdza, czy na polu znajduje się skrzynka.
+	 *
+	 * @param index Indeks pola
+	 * @return True, jeśli na polu jest skrzynka.
+	 */
+	public boolean hasBox(int index) {
+		return (boxes[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Umieszcza skrzynkę na danym polu.
+	 *
+	 * @param index Indeks pola
+	 */
+	public void placeBox(int index) {
+		if (hasBox(index)) {
+			return;
+		}
+		boxes[index >>> 6] |= 1L << index;
+		boxCount++;
+		if (isGoal(index)) {
+			boxesOnGoals++;
+		}
+	}
+
+	/**
+	 * Usuwa skrzynkę z danego pola.
+	 *
+	 * @param index Indeks pola
+	 */
+	public void removeBox(int index) {
+		if (!hasBox(index)) {
+			return;
+		}
+		boxes[index >>> 6] &= ~(1L << index);
+		boxCount--;
+		if (isGoal(index)) {
+			boxesOnGoals--;
+		}
+	}
+
+	/**
+	 * Przenosi skrzynkę z jednego pola na drugie.
+	 *
+	 * @param from Indeks pola źródłowego
+	 * @param to Indeks pola docelowego
+	 */
+	public void moveBox(int from, int to) {
+		removeBox(from);
+		placeBox(to);
+	}
+
+	/**
+	 * Zwraca liczbę skrzynek na planszy.
+	 *
+	 * @return Liczba skrzynek.
+	 */
+	public int getBoxCount() {
+		return boxCount;
+	}
+
+	/**
+	 * Zwraca liczbę pól wygranej na planszy.
+	 *
+	 * @return Liczba pól wygranej.
+	 */
+	public int getGoalCount() {
+		return goalCount;
+	}
+
+	/**
+	 * Zwraca liczbę skrzynek stojących na polach wygranej.
+	 *
+	 * @return Liczba skrzynek na polach wygranej.
+	 */
+	public int getBoxesOnGoals() {
+		return boxesOnGoals;
+	}
+
+	/**
+	 * Zwraca indeksy wszystkich pól zajętych przez skrzynki w kolejności rosnącej.
+	 *
+	 * @return Tablica indeksów pól ze skrzynkami.
+	 */
+	public int[] getBoxIndices() {
+		int[] result = new int[boxCount];
+		int k = 0;
+		for (int w = 0; w < boxes.length; w++) {
+			long word = boxes[w];
+			while (word != 0) {
+				result[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sprawdza, czy wszystkie skrzynki stoją na polach wygranej.
+	 *
+	 * @return True, jeśli każda skrzynka znajduje się na polu wygranej.
+	 */
+	public boolean areAllBoxesOnGoals() {
+		return boxesOnGoals == boxCount;
+	}
+}